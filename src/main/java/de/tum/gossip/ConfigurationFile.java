@@ -1,6 +1,9 @@
 package de.tum.gossip;
 
 import com.google.common.base.Preconditions;
+import de.tum.gossip.net.util.OutboundQueueConfiguration;
+import de.tum.gossip.p2p.util.RateLimiter;
+import de.tum.gossip.p2p.util.SpreadingConfiguration;
 import org.apache.commons.configuration2.INIConfiguration;
 
 import java.io.File;
@@ -22,6 +25,28 @@ import java.io.FileReader;
  * @param p2p_port    The port to bind the socket for the p2p gossip protocol.
  * @param api_address The address to bind the socket for the api interface.
  * @param api_port    The port to bind the socket for the api interface.
+ * @param outbound_low_water_mark  Once the outbound buffer of a connection drains below this amount of bytes,
+ *                                 held back packets are written again.
+ * @param outbound_high_water_mark Once the outbound buffer of a connection exceeds this amount of bytes,
+ *                                 droppable packets (knowledge and notifications) are held back.
+ * @param outbound_queue_capacity  Maximum number of packets held back per connection.
+ * @param outbound_overflow_policy The policy applied once the outbound queue of a connection is full:
+ *                                 `drop_oldest`, `drop_newest` or `disconnect`.
+ * @param signed_knowledge         If enabled, knowledge is signed by its originator and verified by every receiver.
+ *                                 All peers of the network must agree on this option.
+ * @param cache_bytes              Maximum number of payload bytes held as part of the peer's knowledge base.
+ *                                 If set to a positive value, the knowledge base is bounded by this byte budget
+ *                                 instead of the number of items (`cache_size`).
+ * @param connect_rate_per_second    Maximum number of connection attempts accepted per second from a single address.
+ * @param connect_rate_per_minute    Maximum number of connection attempts accepted per minute from a single address.
+ * @param knowledge_rate_per_second  Maximum number of knowledge packets accepted per second from a single peer.
+ *                                   Exceeding packets are dropped.
+ * @param knowledge_rate_per_minute  Maximum number of knowledge packets accepted per minute from a single peer.
+ * @param spreading_strategy       How knowledge is spread to the peer's sessions: `flood` (every session),
+ *                                 `random_fanout` (`spreading_fanout` random sessions) or `lazy_push`
+ *                                 (`spreading_fanout` random sessions, the remaining ones receive an announcement).
+ * @param spreading_fanout         Number of sessions receiving the knowledge payload eagerly, unless flooding.
+ * @param spreading_fetch_timeout  Milliseconds to wait for an eager copy of announced knowledge before requesting it.
  *
  * <h2>Example</h2>
  * An example configuration file looks like the following:
@@ -33,6 +58,20 @@ import java.io.FileReader;
  * degree = 20
  * p2p_address = 131.159.15.62:6001
  * api_address = 131.159.15.62:7001
+ * # optional
+ * outbound_low_water_mark = 32768
+ * outbound_high_water_mark = 65536
+ * outbound_queue_capacity = 1024
+ * outbound_overflow_policy = drop_oldest
+ * signed_knowledge = false
+ * cache_bytes = 16777216
+ * connect_rate_per_second = 10
+ * connect_rate_per_minute = 100
+ * knowledge_rate_per_second = 100
+ * knowledge_rate_per_minute = 2000
+ * spreading_strategy = lazy_push
+ * spreading_fanout = 6
+ * spreading_fetch_timeout = 200
  *
  * [onion]
  * hops = 2
@@ -45,12 +84,89 @@ public record ConfigurationFile(
         String p2p_address,
         int p2p_port,
         String api_address,
-        int api_port
+        int api_port,
+        int outbound_low_water_mark,
+        int outbound_high_water_mark,
+        int outbound_queue_capacity,
+        OutboundQueueConfiguration.OverflowPolicy outbound_overflow_policy,
+        boolean signed_knowledge,
+        long cache_bytes,
+        int connect_rate_per_second,
+        int connect_rate_per_minute,
+        int knowledge_rate_per_second,
+        int knowledge_rate_per_minute,
+        SpreadingConfiguration.Strategy spreading_strategy,
+        int spreading_fanout,
+        int spreading_fetch_timeout
 ) {
+    public static final RateLimiter.Configuration DEFAULT_CONNECT_RATE_LIMIT = new RateLimiter.Configuration(10, 100);
+    public static final RateLimiter.Configuration DEFAULT_KNOWLEDGE_RATE_LIMIT = new RateLimiter.Configuration(100, 2000);
+
     public ConfigurationFile {
         Preconditions.checkNotNull(hostkey, "`hostkey` option must be defined!");
         Preconditions.checkNotNull(p2p_address, "`gossip/p2p_address` option must be defined!");
         Preconditions.checkNotNull(api_address, "`gossip/api_address` option must be defined!");
+        Preconditions.checkNotNull(outbound_overflow_policy, "`gossip/outbound_overflow_policy` option must be defined!");
+        Preconditions.checkArgument(cache_bytes >= 0, "`gossip/cache_bytes` option must not be negative!");
+        Preconditions.checkArgument(connect_rate_per_second > 0 && connect_rate_per_minute > 0, "`gossip/connect_rate_*` options must be positive!");
+        Preconditions.checkArgument(knowledge_rate_per_second > 0 && knowledge_rate_per_minute > 0, "`gossip/knowledge_rate_*` options must be positive!");
+        Preconditions.checkNotNull(spreading_strategy, "`gossip/spreading_strategy` option must be defined!");
+    }
+
+    /**
+     * Creates a configuration using the default outbound queue settings (see {@link OutboundQueueConfiguration#defaults()})
+     * and the default rate limits and spreading settings (see {@link SpreadingConfiguration#defaults()}).
+     */
+    public ConfigurationFile(String hostkey, int cache_size, int degree, String p2p_address, int p2p_port, String api_address, int api_port) {
+        this(
+                hostkey, cache_size, degree, p2p_address, p2p_port, api_address, api_port,
+                OutboundQueueConfiguration.defaults().lowWaterMark(),
+                OutboundQueueConfiguration.defaults().highWaterMark(),
+                OutboundQueueConfiguration.DEFAULT_CAPACITY,
+                OutboundQueueConfiguration.defaults().overflowPolicy(),
+                false,
+                0,
+                DEFAULT_CONNECT_RATE_LIMIT.perSecond(),
+                DEFAULT_CONNECT_RATE_LIMIT.perMinute(),
+                DEFAULT_KNOWLEDGE_RATE_LIMIT.perSecond(),
+                DEFAULT_KNOWLEDGE_RATE_LIMIT.perMinute(),
+                SpreadingConfiguration.defaults().strategy(),
+                SpreadingConfiguration.defaults().fanout(),
+                SpreadingConfiguration.defaults().fetchTimeoutMillis()
+        );
+    }
+
+    /**
+     * @return A new {@link OutboundQueueConfiguration}, with its own metrics instance, derived from this configuration.
+     */
+    public OutboundQueueConfiguration outboundQueueConfiguration() {
+        return new OutboundQueueConfiguration(
+                outbound_low_water_mark,
+                outbound_high_water_mark,
+                outbound_queue_capacity,
+                outbound_overflow_policy
+        );
+    }
+
+    /**
+     * @return The rate limit applied to connection attempts of a single address.
+     */
+    public RateLimiter.Configuration connectRateLimit() {
+        return new RateLimiter.Configuration(connect_rate_per_second, connect_rate_per_minute);
+    }
+
+    /**
+     * @return The rate limit applied to knowledge packets of a single peer.
+     */
+    public RateLimiter.Configuration knowledgeRateLimit() {
+        return new RateLimiter.Configuration(knowledge_rate_per_second, knowledge_rate_per_minute);
+    }
+
+    /**
+     * @return The configuration of the knowledge spreading.
+     */
+    public SpreadingConfiguration spreadingConfiguration() {
+        return new SpreadingConfiguration(spreading_strategy, spreading_fanout, spreading_fetch_timeout);
     }
 
     public static ConfigurationFile readFromFile(String filePath) throws Exception {
@@ -74,6 +190,27 @@ public record ConfigurationFile(
         var p2p_address_split = gossipSection.getString("p2p_address").split(":");
         var api_address_split = gossipSection.getString("api_address").split(":");
 
+        var defaultOutboundQueue = OutboundQueueConfiguration.defaults();
+        var outbound_low_water_mark = gossipSection.getInt("outbound_low_water_mark", defaultOutboundQueue.lowWaterMark());
+        var outbound_high_water_mark = gossipSection.getInt("outbound_high_water_mark", defaultOutboundQueue.highWaterMark());
+        var outbound_queue_capacity = gossipSection.getInt("outbound_queue_capacity", defaultOutboundQueue.capacity());
+        var outbound_overflow_policy = OutboundQueueConfiguration.OverflowPolicy.valueOf(
+                gossipSection.getString("outbound_overflow_policy", defaultOutboundQueue.overflowPolicy().name()).toUpperCase()
+        );
+        var signed_knowledge = gossipSection.getBoolean("signed_knowledge", false);
+        var cache_bytes = gossipSection.getLong("cache_bytes", 0);
+        var connect_rate_per_second = gossipSection.getInt("connect_rate_per_second", DEFAULT_CONNECT_RATE_LIMIT.perSecond());
+        var connect_rate_per_minute = gossipSection.getInt("connect_rate_per_minute", DEFAULT_CONNECT_RATE_LIMIT.perMinute());
+        var knowledge_rate_per_second = gossipSection.getInt("knowledge_rate_per_second", DEFAULT_KNOWLEDGE_RATE_LIMIT.perSecond());
+        var knowledge_rate_per_minute = gossipSection.getInt("knowledge_rate_per_minute", DEFAULT_KNOWLEDGE_RATE_LIMIT.perMinute());
+
+        var defaultSpreading = SpreadingConfiguration.defaults();
+        var spreading_strategy = SpreadingConfiguration.Strategy.valueOf(
+                gossipSection.getString("spreading_strategy", defaultSpreading.strategy().name()).toUpperCase()
+        );
+        var spreading_fanout = gossipSection.getInt("spreading_fanout", defaultSpreading.fanout());
+        var spreading_fetch_timeout = gossipSection.getInt("spreading_fetch_timeout", defaultSpreading.fetchTimeoutMillis());
+
         Preconditions.checkState(p2p_address_split.length == 2, "Illegal format for `gossip/p2p_address`");
         Preconditions.checkState(api_address_split.length == 2, "Illegal format for `gossip/api_address`");
 
@@ -89,7 +226,20 @@ public record ConfigurationFile(
                 p2p_address,
                 p2p_port,
                 api_address,
-                api_port
+                api_port,
+                outbound_low_water_mark,
+                outbound_high_water_mark,
+                outbound_queue_capacity,
+                outbound_overflow_policy,
+                signed_knowledge,
+                cache_bytes,
+                connect_rate_per_second,
+                connect_rate_per_minute,
+                knowledge_rate_per_second,
+                knowledge_rate_per_minute,
+                spreading_strategy,
+                spreading_fanout,
+                spreading_fetch_timeout
         );
     }
 }
\ No newline at end of file
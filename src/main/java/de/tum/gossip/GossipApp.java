@@ -2,19 +2,43 @@ package de.tum.gossip;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.tum.gossip.api.GossipAPILayer;
+import de.tum.gossip.net.util.NetworkTransport;
 import de.tum.gossip.p2p.GossipModule;
 import de.tum.gossip.p2p.storage.PeerIdentityStorage;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.Future;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 public class GossipApp {
     public final Logger logger = LogManager.getLogger(GossipApp.class);
 
-    private final EventLoopGroup eventLoopGroup;
+    /**
+     * Accepts incoming P2P connections.
+     */
+    private final EventLoopGroup p2pBossGroup;
+    /**
+     * Serves the I/O of P2P sessions and clients.
+     */
+    private final EventLoopGroup p2pWorkerGroup;
+    /**
+     * Accepts incoming API connections.
+     */
+    private final EventLoopGroup apiBossGroup;
+    /**
+     * Serves the I/O of API connections.
+     */
+    private final EventLoopGroup apiWorkerGroup;
+    /**
+     * Runs the gossip logic of both layers, such that slow processing or lock contention never stalls socket reads.
+     */
+    private final EventExecutorGroup processingGroup;
     public final GossipModule gossipModule;
     public final GossipAPILayer apiLayer;
 
@@ -43,10 +67,20 @@ public class GossipApp {
     }
 
     public GossipApp(ConfigurationFile configuration, PeerIdentityStorage identityStorage) {
-        // TODO support EPOLL ELG on linux based machines?
-        this.eventLoopGroup = new NioEventLoopGroup(0, new ThreadFactoryBuilder().setNameFormat("Netty Server IO #%d").build());
-        this.gossipModule = new GossipModule(configuration, eventLoopGroup, identityStorage);
-        this.apiLayer = new GossipAPILayer(configuration, eventLoopGroup, gossipModule);
+        // uses the native EPOLL transport on linux based machines, NIO otherwise.
+        // Both the P2P and the API server derive their channel types from these event loop groups.
+        var transport = NetworkTransport.preferred();
+        this.p2pBossGroup = transport.newEventLoopGroup(1, new ThreadFactoryBuilder().setNameFormat("Netty P2P Boss #%d").build());
+        this.p2pWorkerGroup = transport.newEventLoopGroup(0, new ThreadFactoryBuilder().setNameFormat("Netty P2P IO #%d").build());
+        this.apiBossGroup = transport.newEventLoopGroup(1, new ThreadFactoryBuilder().setNameFormat("Netty API Boss #%d").build());
+        this.apiWorkerGroup = transport.newEventLoopGroup(1, new ThreadFactoryBuilder().setNameFormat("Netty API IO #%d").build());
+        this.processingGroup = new DefaultEventExecutorGroup(
+                Runtime.getRuntime().availableProcessors(),
+                new ThreadFactoryBuilder().setNameFormat("Gossip Processing #%d").build()
+        );
+        logger.info("Using {} network transport", transport);
+        this.gossipModule = new GossipModule(configuration, p2pBossGroup, p2pWorkerGroup, processingGroup, identityStorage);
+        this.apiLayer = new GossipAPILayer(configuration, apiBossGroup, apiWorkerGroup, processingGroup, gossipModule);
     }
 
     public void run() throws Exception {
@@ -81,20 +115,30 @@ public class GossipApp {
             logger.error("Shutdown of Gossip module completed erroneously", e);
         }
 
+        List<EventExecutorGroup> groups = List.of(p2pBossGroup, p2pWorkerGroup, apiBossGroup, apiWorkerGroup, processingGroup);
         try {
             boolean inEventLoop = false;
-            for (var eventLoop: eventLoopGroup) {
-                if (eventLoop.inEventLoop()) {
-                    inEventLoop = true;
-                    break;
+            for (var group: groups) {
+                for (var eventLoop: group) {
+                    if (eventLoop.inEventLoop()) {
+                        inEventLoop = true;
+                        break;
+                    }
                 }
             }
 
+            List<Future<?>> terminationFutures = new ArrayList<>();
+            for (var group: groups) {
+                terminationFutures.add(group.shutdownGracefully());
+            }
+
             if (inEventLoop) {
                 logger.error("Tried to shutdown Gossip App from within the event loop!");
-                eventLoopGroup.shutdownGracefully(); // we can't sync now, otherwise we would create a deadlock
+                // we can't sync now, otherwise we would create a deadlock
             } else {
-                eventLoopGroup.shutdownGracefully().syncUninterruptibly();
+                for (var future: terminationFutures) {
+                    future.syncUninterruptibly();
+                }
             }
         } catch (Exception e) {
             logger.error("Failed to shutdown the event loop", e);
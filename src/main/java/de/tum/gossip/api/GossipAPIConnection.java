@@ -2,15 +2,19 @@ package de.tum.gossip.api;
 
 import com.google.common.base.Preconditions;
 import de.tum.gossip.api.packets.APIPacketGossipAnnounce;
+import de.tum.gossip.api.packets.APIPacketGossipAnnounceChunk;
 import de.tum.gossip.api.packets.APIPacketGossipNotify;
 import de.tum.gossip.api.packets.APIPacketGossipValidation;
 import de.tum.gossip.api.packets.GossipAPIPacket;
 import de.tum.gossip.net.util.ChannelCloseReason;
+import de.tum.gossip.net.util.ChunkReassembler;
 import de.tum.gossip.net.ChannelInboundHandler;
 import de.tum.gossip.net.packets.OutboundPacket;
+import de.tum.gossip.net.packets.PreEncodedPacket;
 import de.tum.gossip.p2p.GossipException;
 import de.tum.gossip.p2p.GossipModule;
 import de.tum.gossip.p2p.util.DataType;
+import io.netty.buffer.ByteBuf;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import org.apache.logging.log4j.LogManager;
@@ -30,6 +34,10 @@ public class GossipAPIConnection implements GossipAPIPacketHandler, APIConnectio
     private final GossipModule gossipModule;
 
     private ChannelInboundHandler channel;
+    /**
+     * Reassembles chunked announcements, keyed by their stream id.
+     */
+    private final ChunkReassembler<Integer> announceChunks = new ChunkReassembler<>();
 
     public GossipAPIConnection(GossipModule gossipModule) {
         this.uuid = UUID.randomUUID();
@@ -57,6 +65,7 @@ public class GossipAPIConnection implements GossipAPIPacketHandler, APIConnectio
     @Override
     public void onDisconnect(ChannelCloseReason reason) {
         gossipModule.handleDisconnectedAPIClient(this);
+        announceChunks.release();
         this.channel = null;
     }
 
@@ -70,6 +79,30 @@ public class GossipAPIConnection implements GossipAPIPacketHandler, APIConnectio
         }
     }
 
+    @Override
+    public void handle(APIPacketGossipAnnounceChunk packet) {
+        ByteBuf data;
+        try {
+            data = announceChunks.append(packet.streamId, packet.totalLength, packet.offset, packet.chunk);
+        } catch (ChunkReassembler.InvalidChunkException e) {
+            channel.close(new ChannelCloseReason.Message(e.getMessage()));
+            return;
+        }
+
+        if (data == null) {
+            return; // wait for the remaining chunks
+        }
+
+        var type = new DataType(packet.dataType);
+        try {
+            gossipModule.spreadInformation(this, packet.ttl, type, data);
+        } catch (GossipException e) {
+            channel.close(new ChannelCloseReason.Message(e.getMessage()));
+        } finally {
+            data.release();
+        }
+    }
+
     @Override
     public void handle(APIPacketGossipNotify packet) {
         var type = new DataType(packet.dataType);
@@ -79,7 +112,7 @@ public class GossipAPIConnection implements GossipAPIPacketHandler, APIConnectio
     @Override
     public void handle(APIPacketGossipValidation packet) {
         try {
-            gossipModule.receiveMessageValidation(packet.messageId, packet.valid);
+            gossipModule.receiveMessageValidation(this, packet.messageId, packet.valid);
         } catch (GossipException ignored) {
             // fine, ttl ran out or packet was evicted due to other issues (space, invalidity)
         }
@@ -91,7 +124,8 @@ public class GossipAPIConnection implements GossipAPIPacketHandler, APIConnectio
             GenericFutureListener<? extends Future<? super Void>>[] genericFutureListeners
     ) {
         Preconditions.checkNotNull(channel);
-        Preconditions.checkState(packet instanceof GossipAPIPacket);
+        Preconditions.checkState(packet instanceof GossipAPIPacket
+                || (packet instanceof PreEncodedPacket encodedPacket && encodedPacket.isOf(GossipAPIPacket.class)));
         channel.sendPacket(packet, genericFutureListeners);
     }
 
@@ -2,17 +2,23 @@ package de.tum.gossip.api;
 
 import de.tum.gossip.ConfigurationFile;
 import de.tum.gossip.api.packets.APIPacketGossipAnnounce;
+import de.tum.gossip.api.packets.APIPacketGossipAnnounceChunk;
 import de.tum.gossip.api.packets.APIPacketGossipNotification;
+import de.tum.gossip.api.packets.APIPacketGossipNotificationChunk;
 import de.tum.gossip.api.packets.APIPacketGossipNotify;
 import de.tum.gossip.api.packets.APIPacketGossipValidation;
 import de.tum.gossip.net.ProtocolDescription;
 import de.tum.gossip.net.TCPServer;
+import de.tum.gossip.net.util.OutboundQueueConfiguration;
+import de.tum.gossip.net.util.OutboundQueueMetrics;
 import de.tum.gossip.p2p.GossipModule;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.concurrent.Future;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * The Gossip socket-layer API interface.
@@ -23,16 +29,48 @@ import org.apache.logging.log4j.Logger;
  */
 public class GossipAPILayer {
     public static final ProtocolDescription PROTOCOL = new ProtocolDescription()
-            .registerInbound(500, APIPacketGossipAnnounce::new)
+            .registerInbound(500, APIPacketGossipAnnounce::newInstance)
             .registerInbound(501, APIPacketGossipNotify::new)
             .registerOutbound(502, APIPacketGossipNotification::new)
-            .registerInbound(503, APIPacketGossipValidation::new);
+            .registerInbound(503, APIPacketGossipValidation::newInstance)
+            .registerInbound(504, APIPacketGossipAnnounceChunk::new)
+            .registerOutbound(505, APIPacketGossipNotificationChunk::new)
+            .freeze();
 
     private final Logger logger = LogManager.getLogger(GossipAPILayer.class);
     private final TCPServer server;
+    private final OutboundQueueConfiguration outboundQueue;
 
     public GossipAPILayer(ConfigurationFile configuration, EventLoopGroup eventLoopGroup, GossipModule gossipModule) {
-        server = PROTOCOL.makeServer(configuration.api_address(), configuration.api_port(), eventLoopGroup, () -> new GossipAPIConnection(gossipModule));
+        this(configuration, eventLoopGroup, eventLoopGroup, null, gossipModule);
+    }
+
+    /**
+     * @param configuration - The configuration file.
+     * @param bossGroup - The event loop group accepting incoming API connections.
+     * @param workerGroup - The event loop group serving the I/O of API connections.
+     * @param handlerExecutor - The executor group running the API logic. If null, the logic runs on the {@code workerGroup}.
+     * @param gossipModule - The gossip module.
+     */
+    public GossipAPILayer(
+            ConfigurationFile configuration,
+            EventLoopGroup bossGroup,
+            EventLoopGroup workerGroup,
+            @Nullable EventExecutorGroup handlerExecutor,
+            GossipModule gossipModule
+    ) {
+        outboundQueue = configuration.outboundQueueConfiguration();
+        server = PROTOCOL.clone()
+                .withOutboundQueue(outboundQueue)
+                .withHandlerExecutor(handlerExecutor)
+                .makeServer(configuration.api_address(), configuration.api_port(), bossGroup, workerGroup, () -> new GossipAPIConnection(gossipModule));
+    }
+
+    /**
+     * @return The metrics of the outbound queues of all API connections.
+     */
+    public OutboundQueueMetrics outboundQueueMetrics() {
+        return outboundQueue.metrics();
     }
 
     public ChannelFuture run() {
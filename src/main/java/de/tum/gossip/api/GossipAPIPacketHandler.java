@@ -1,6 +1,7 @@
 package de.tum.gossip.api;
 
 import de.tum.gossip.api.packets.APIPacketGossipAnnounce;
+import de.tum.gossip.api.packets.APIPacketGossipAnnounceChunk;
 import de.tum.gossip.api.packets.APIPacketGossipNotify;
 import de.tum.gossip.api.packets.APIPacketGossipValidation;
 import de.tum.gossip.net.packets.InboundPacketHandler;
@@ -13,6 +14,8 @@ import de.tum.gossip.net.packets.InboundPacketHandler;
 public interface GossipAPIPacketHandler extends InboundPacketHandler {
     void handle(APIPacketGossipAnnounce packet);
 
+    void handle(APIPacketGossipAnnounceChunk packet);
+
     void handle(APIPacketGossipNotify packet);
 
     void handle(APIPacketGossipValidation packet);
@@ -2,29 +2,74 @@ package de.tum.gossip.api.packets;
 
 import de.tum.gossip.api.GossipAPIPacketHandler;
 import de.tum.gossip.net.packets.InboundPacket;
+import de.tum.gossip.net.packets.PayloadPacket;
+import de.tum.gossip.net.packets.RecyclablePacket;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Created by Andi on 21.06.22.
  */
-public class APIPacketGossipAnnounce implements GossipAPIPacket, InboundPacket<GossipAPIPacketHandler> {
+public class APIPacketGossipAnnounce implements GossipAPIPacket, InboundPacket<GossipAPIPacketHandler>, PayloadPacket, RecyclablePacket {
+    private static final Recycler<APIPacketGossipAnnounce> RECYCLER = new Recycler<>() {
+        @Override
+        protected APIPacketGossipAnnounce newObject(Handle<APIPacketGossipAnnounce> handle) {
+            return new APIPacketGossipAnnounce(handle);
+        }
+    };
+
     public int ttl;
     public int dataType;
-    public byte[] data;
+    /**
+     * The reference counted payload. A retained slice of the received frame.
+     */
+    public ByteBuf data;
+
+    @Nullable
+    private final Recycler.Handle<APIPacketGossipAnnounce> handle;
+
+    public APIPacketGossipAnnounce() {
+        this.handle = null;
+    }
 
-    public APIPacketGossipAnnounce() {}
+    private APIPacketGossipAnnounce(Recycler.Handle<APIPacketGossipAnnounce> handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * @return An empty instance taken from the pool.
+     */
+    public static APIPacketGossipAnnounce newInstance() {
+        return RECYCLER.get();
+    }
 
     @Override
     public void deserialize(ByteBuf byteBuf) {
         ttl = byteBuf.readUnsignedByte();
         byteBuf.readByte(); // reserved
         dataType = byteBuf.readUnsignedShort();
-        data = new byte[byteBuf.readableBytes()];
-        byteBuf.readBytes(data);
+        data = byteBuf.readRetainedSlice(byteBuf.readableBytes());
+    }
+
+    @Override
+    public ByteBuf payload() {
+        return data;
     }
 
     @Override
     public void accept(GossipAPIPacketHandler handler) {
         handler.handle(this);
     }
+
+    @Override
+    public void recycle() {
+        ttl = 0;
+        dataType = 0;
+        data = null;
+
+        if (handle != null) {
+            handle.recycle(this);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package de.tum.gossip.api.packets;
+
+import de.tum.gossip.api.GossipAPIPacketHandler;
+import de.tum.gossip.net.packets.InboundPacket;
+import de.tum.gossip.net.packets.PayloadPacket;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A chunk of an announcement whose data exceeds a single {@link APIPacketGossipAnnounce}.
+ * <p>
+ * The chunks of one announcement share a stream id chosen by the API module and must be sent in order.
+ * Chunks of different streams may interleave. Once all chunks arrived, the data is spread as a single message.
+ * <p>
+ * The packet consists of the 1 byte ttl, 1 byte reserved, 2 byte data type, 2 byte stream id, 2 bytes reserved,
+ * the 4 byte total length of the data, the 4 byte offset of the chunk and the chunk contents.
+ */
+public class APIPacketGossipAnnounceChunk implements GossipAPIPacket, InboundPacket<GossipAPIPacketHandler>, PayloadPacket {
+    public int ttl;
+    public int dataType;
+    public int streamId;
+    public int totalLength;
+    public int offset;
+    /**
+     * The reference counted chunk contents. A retained slice of the received frame.
+     */
+    public ByteBuf chunk;
+
+    @Override
+    public void deserialize(ByteBuf byteBuf) {
+        ttl = byteBuf.readUnsignedByte();
+        byteBuf.readByte(); // reserved
+        dataType = byteBuf.readUnsignedShort();
+        streamId = byteBuf.readUnsignedShort();
+        byteBuf.skipBytes(2); // reserved
+        totalLength = byteBuf.readInt();
+        offset = byteBuf.readInt();
+        chunk = byteBuf.readRetainedSlice(byteBuf.readableBytes());
+    }
+
+    @Override
+    public ByteBuf payload() {
+        return chunk;
+    }
+
+    @Override
+    public void accept(GossipAPIPacketHandler handler) {
+        handler.handle(this);
+    }
+}
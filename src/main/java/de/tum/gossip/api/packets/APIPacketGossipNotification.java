@@ -1,21 +1,36 @@
 package de.tum.gossip.api.packets;
 
+import de.tum.gossip.net.PacketEncoder;
 import de.tum.gossip.net.packets.OutboundPacket;
+import de.tum.gossip.net.packets.PayloadPacket;
 import de.tum.gossip.p2p.util.DataType;
 import de.tum.gossip.p2p.util.MessageNotificationId;
 import io.netty.buffer.ByteBuf;
 
 /**
+ * Notifies an API connection about knowledge awaiting its validation.
+ * <p>
+ * Notifications aren't droppable (see {@link OutboundPacket#isDroppable()}). The message awaits a validation for the
+ * notification id, therefore dropping the notification would hold back the message until its id expired.
+ * <p>
  * Created by Andi on 21.06.22.
  */
-public class APIPacketGossipNotification implements GossipAPIPacket, OutboundPacket {
+public class APIPacketGossipNotification implements GossipAPIPacket, OutboundPacket, PayloadPacket {
+    /**
+     * The maximum size of the data fitting into a single frame. Larger data is sent using {@link APIPacketGossipNotificationChunk}s.
+     */
+    public static final int MAX_DATA_SIZE = PacketEncoder.MAX_FRAME_LENGTH - PacketEncoder.HEADER_SIZE - 4;
+
     public MessageNotificationId messageId;
     public DataType dataType;
-    public byte[] data;
+    public ByteBuf data;
 
     public APIPacketGossipNotification() {}
 
-    public APIPacketGossipNotification(MessageNotificationId messageId, DataType dataType, byte[] data) {
+    /**
+     * @param data - The payload. The packet takes ownership of the provided reference.
+     */
+    public APIPacketGossipNotification(MessageNotificationId messageId, DataType dataType, ByteBuf data) {
         this.messageId = messageId;
         this.dataType = dataType;
         this.data = data;
@@ -23,8 +38,24 @@ public class APIPacketGossipNotification implements GossipAPIPacket, OutboundPac
 
     @Override
     public void serialize(ByteBuf byteBuf) {
-        byteBuf.writeBytes(messageId.messageId());
+        byteBuf.writeShort(messageId.messageId());
         byteBuf.writeShort(dataType.dataType());
-        byteBuf.writeBytes(data);
+        byteBuf.writeBytes(data, data.readerIndex(), data.readableBytes());
+    }
+
+    @Override
+    public int serializedSize() {
+        return Short.BYTES + 2 + data.readableBytes();
+    }
+
+    @Override
+    public ByteBuf payload() {
+        return data;
+    }
+
+    @Override
+    public APIPacketGossipNotification retain() {
+        PayloadPacket.super.retain();
+        return this;
     }
 }
\ No newline at end of file
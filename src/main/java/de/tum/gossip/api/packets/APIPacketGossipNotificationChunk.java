@@ -0,0 +1,62 @@
+package de.tum.gossip.api.packets;
+
+import de.tum.gossip.net.packets.OutboundPacket;
+import de.tum.gossip.net.packets.PayloadPacket;
+import de.tum.gossip.p2p.util.DataType;
+import de.tum.gossip.p2p.util.MessageNotificationId;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A chunk of a notification whose data exceeds a single {@link APIPacketGossipNotification}.
+ * <p>
+ * The chunks of one notification are sent in order and share the message id, which is validated
+ * once for the whole data. Chunks of different notifications may interleave.
+ * <p>
+ * The packet consists of the 2 byte message id, 2 byte data type, the 4 byte total length of the data,
+ * the 4 byte offset of the chunk and the chunk contents.
+ */
+public class APIPacketGossipNotificationChunk implements GossipAPIPacket, OutboundPacket, PayloadPacket {
+    public MessageNotificationId messageId;
+    public DataType dataType;
+    public int totalLength;
+    public int offset;
+    public ByteBuf chunk;
+
+    public APIPacketGossipNotificationChunk() {}
+
+    /**
+     * @param chunk - The chunk contents. The packet takes ownership of the provided reference.
+     */
+    public APIPacketGossipNotificationChunk(MessageNotificationId messageId, DataType dataType, int totalLength, int offset, ByteBuf chunk) {
+        this.messageId = messageId;
+        this.dataType = dataType;
+        this.totalLength = totalLength;
+        this.offset = offset;
+        this.chunk = chunk;
+    }
+
+    @Override
+    public void serialize(ByteBuf byteBuf) {
+        byteBuf.writeShort(messageId.messageId());
+        byteBuf.writeShort(dataType.dataType());
+        byteBuf.writeInt(totalLength);
+        byteBuf.writeInt(offset);
+        byteBuf.writeBytes(chunk, chunk.readerIndex(), chunk.readableBytes());
+    }
+
+    @Override
+    public int serializedSize() {
+        return Short.BYTES + 2 + 4 + 4 + chunk.readableBytes();
+    }
+
+    @Override
+    public ByteBuf payload() {
+        return chunk;
+    }
+
+    @Override
+    public APIPacketGossipNotificationChunk retain() {
+        PayloadPacket.super.retain();
+        return this;
+    }
+}
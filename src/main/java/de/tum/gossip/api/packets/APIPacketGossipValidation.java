@@ -2,22 +2,47 @@ package de.tum.gossip.api.packets;
 
 import de.tum.gossip.api.GossipAPIPacketHandler;
 import de.tum.gossip.net.packets.InboundPacket;
+import de.tum.gossip.net.packets.RecyclablePacket;
 import de.tum.gossip.p2p.util.MessageNotificationId;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Created by Andi on 21.06.22.
  */
-public class APIPacketGossipValidation implements GossipAPIPacket, InboundPacket<GossipAPIPacketHandler> {
+public class APIPacketGossipValidation implements GossipAPIPacket, InboundPacket<GossipAPIPacketHandler>, RecyclablePacket {
+    private static final Recycler<APIPacketGossipValidation> RECYCLER = new Recycler<>() {
+        @Override
+        protected APIPacketGossipValidation newObject(Handle<APIPacketGossipValidation> handle) {
+            return new APIPacketGossipValidation(handle);
+        }
+    };
+
     public MessageNotificationId messageId;
     public boolean valid;
 
-    public APIPacketGossipValidation() {}
+    @Nullable
+    private final Recycler.Handle<APIPacketGossipValidation> handle;
+
+    public APIPacketGossipValidation() {
+        this.handle = null;
+    }
+
+    private APIPacketGossipValidation(Recycler.Handle<APIPacketGossipValidation> handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * @return An empty instance taken from the pool.
+     */
+    public static APIPacketGossipValidation newInstance() {
+        return RECYCLER.get();
+    }
 
     @Override
     public void deserialize(ByteBuf byteBuf) {
-        messageId = MessageNotificationId.createEmpty();
-        byteBuf.readBytes(messageId.messageId());
+        messageId = new MessageNotificationId(byteBuf.readShort());
         valid = (byteBuf.readUnsignedShort() & 0x01) == 1;
     }
 
@@ -25,4 +50,14 @@ public class APIPacketGossipValidation implements GossipAPIPacket, InboundPacket
     public void accept(GossipAPIPacketHandler handler) {
         handler.handle(this);
     }
+
+    @Override
+    public void recycle() {
+        messageId = null;
+        valid = false;
+
+        if (handle != null) {
+            handle.recycle(this);
+        }
+    }
 }
\ No newline at end of file
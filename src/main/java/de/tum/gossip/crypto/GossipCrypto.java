@@ -16,16 +16,21 @@ import org.bouncycastle.openssl.PEMParser;
 import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
 import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
 import org.bouncycastle.util.io.pem.PemObject;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import javax.net.ssl.SSLPeerUnverifiedException;
 import javax.net.ssl.SSLSession;
 import java.io.*;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.*;
 import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
 import java.util.Optional;
 
 /**
@@ -101,6 +106,22 @@ public class GossipCrypto {
         }
     }
 
+    /**
+     * @param encoded - The X.509 encoding of an RSA public key, as returned by {@link RSAPublicKey#getEncoded()}.
+     * @return The decoded public key.
+     * @throws InvalidKeySpecException If the encoding doesn't contain a valid RSA public key.
+     */
+    public static RSAPublicKey decodePublicKey(byte[] encoded) throws InvalidKeySpecException {
+        KeyFactory factory;
+        try {
+            factory = KeyFactory.getInstance("RSA", BouncyCastleProvider.PROVIDER_NAME);
+        } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
+            throw new RuntimeException(e); // something went horribly wrong!
+        }
+
+        return (RSAPublicKey) factory.generatePublic(new X509EncodedKeySpec(encoded));
+    }
+
     public static void writeHostKey(HostKey hostKey, File file) {
         if (!file.exists()) {
             try {
@@ -158,6 +179,14 @@ public class GossipCrypto {
             result = tmp;
         }
 
+        int length = hex.length() / 2;
+        if (result.length < length) {
+            // leading zero bytes aren't part of the BigInteger representation
+            var tmp = new byte[length];
+            System.arraycopy(result, 0, tmp, length - result.length, result.length);
+            result = tmp;
+        }
+
         return result;
     }
 
@@ -192,14 +221,58 @@ public class GossipCrypto {
         }
     }
 
+    /**
+     * Checks the time validity of the peer's certificates and, optionally, that the chain is rooted in the expected identity.
+     * Used for resumed TLS sessions, which skip the {@link SelfSignedCertifyingTrustManager}, and for trust managers
+     * shared between multiple peers, which can't check the identity of the remote peer.
+     * @param certificateInfo - The certificates of the TLS session.
+     * @param expectedIdentity - The public host key the chain is expected to be signed with, or null to skip the check.
+     * @throws CertificateException If any certificate expired or the chain isn't rooted in the expected identity.
+     */
+    public static void checkPeerCertificate(PeerCertificateInfo certificateInfo, @Nullable PublicKey expectedIdentity) throws CertificateException {
+        if (certificateInfo.intermediateCertificate().isPresent()) {
+            certificateInfo.intermediateCertificate().get().checkValidity();
+        }
+        certificateInfo.hostKeyCertificate().checkValidity();
+
+        if (expectedIdentity != null) {
+            try {
+                certificateInfo.hostKeyCertificate().verify(expectedIdentity, BouncyCastleProvider.PROVIDER_NAME);
+            } catch (NoSuchAlgorithmException | InvalidKeyException | NoSuchProviderException | SignatureException e) {
+                throw new CertificateException("Failed to assert root identity of peer certificate", e);
+            }
+        }
+    }
+
+    /**
+     * RSA signatures created with the host key.
+     * <p>
+     * Every thread reuses its own {@link java.security.Signature} instance, avoiding the provider lookup of
+     * {@link java.security.Signature#getInstance(String, String)} for every operation.
+     */
     public static class Signature {
-        public static byte[] sign(byte[] data, HostKey hostkey) {
-            java.security.Signature signer;
+        public static final String ALGORITHM = "SHA512WithRSA";
+
+        private static final ThreadLocal<java.security.Signature> INSTANCE = ThreadLocal.withInitial(() -> {
             try {
-                signer = java.security.Signature.getInstance("SHA512WithRSA", BouncyCastleProvider.PROVIDER_NAME);
+                return java.security.Signature.getInstance(ALGORITHM, BouncyCastleProvider.PROVIDER_NAME);
             } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
                 throw new RuntimeException(e); // something went horribly wrong!
             }
+        });
+
+        public static byte[] sign(byte[] data, HostKey hostkey) {
+            return sign(hostkey, ByteBuffer.wrap(data));
+        }
+
+        /**
+         * Signs the concatenation of the provided buffers. The positions of the buffers are advanced.
+         * @param hostkey - The host key to sign with.
+         * @param data - The signed data.
+         * @return The signature.
+         */
+        public static byte[] sign(HostKey hostkey, ByteBuffer... data) {
+            var signer = INSTANCE.get();
 
             try {
                 signer.initSign(hostkey.privateKey);
@@ -209,7 +282,9 @@ public class GossipCrypto {
             }
 
             try {
-                signer.update(data);
+                for (var buffer: data) {
+                    signer.update(buffer);
+                }
                 return signer.sign();
             } catch (SignatureException e) {
                 // won't ever throw, as we properly initialize the signer by calling `initSign` above!
@@ -218,12 +293,18 @@ public class GossipCrypto {
         }
 
         public static boolean verify(byte[] data, byte[] signature, RSAPublicKey publicKey) {
-            java.security.Signature signer;
-            try {
-                signer = java.security.Signature.getInstance("SHA512WithRSA", BouncyCastleProvider.PROVIDER_NAME);
-            } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
-                throw new RuntimeException(e); // something went horribly wrong!
-            }
+            return verify(signature, publicKey, ByteBuffer.wrap(data));
+        }
+
+        /**
+         * Verifies a signature over the concatenation of the provided buffers. The positions of the buffers are advanced.
+         * @param signature - The signature.
+         * @param publicKey - The public host key of the signer.
+         * @param data - The signed data.
+         * @return True if the signature is valid.
+         */
+        public static boolean verify(byte[] signature, RSAPublicKey publicKey, ByteBuffer... data) {
+            var signer = INSTANCE.get();
 
             try {
                 signer.initVerify(publicKey);
@@ -232,11 +313,13 @@ public class GossipCrypto {
             }
 
             try {
-                signer.update(data);
+                for (var buffer: data) {
+                    signer.update(buffer);
+                }
                 return signer.verify(signature);
             } catch (SignatureException e) {
-                // won't ever throw, as we properly initialize the signer by calling `initVerify` above!
-                throw new RuntimeException(e);
+                // thrown for malformed signatures, e.g. of an unexpected length
+                return false;
             }
         }
     }
@@ -0,0 +1,271 @@
+package de.tum.gossip.crypto;
+
+import com.google.common.base.Preconditions;
+import de.tum.gossip.crypto.certificates.HostKeyCertificate;
+import de.tum.gossip.crypto.certificates.HostKeySelfSignedX509Certificates;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedKeyManager;
+import java.net.Socket;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Key manager serving the short-lived certificate chain derived from our {@link HostKey}.
+ * <p>
+ * Generating a chain is expensive (a fresh key pair and two signatures with the host key). Therefore, a single chain
+ * is shared by the server and all client {@link io.netty.handler.ssl.SslContext}s and replaced in the background,
+ * well before it expires, without rebuilding any SslContext.
+ * <p>
+ * Every chain is served under its own alias. The previous chain stays resolvable, such that a handshake which
+ * chose its alias right before a rotation still retrieves a matching private key and certificate chain.
+ * <p>
+ * Handshakes never wait for a rotation while the current chain is still valid. If the chain is about to expire,
+ * it is served as is and the next chain is generated on the rotation executor (see {@link #scheduleRotation(EventExecutorGroup)}).
+ */
+public class RotatingHostKeyManager extends X509ExtendedKeyManager {
+    /**
+     * A chain is replaced once it is valid for less than this amount of milliseconds. Exceeds the
+     * {@link TlsSessionTracker#SESSION_TIMEOUT_SECONDS}, such that sessions established with a chain
+     * can be resumed for their whole lifetime, without the chain expiring.
+     */
+    public static final long ROTATION_MARGIN = TimeUnit.SECONDS.toMillis(TlsSessionTracker.SESSION_TIMEOUT_SECONDS + 60);
+    /**
+     * The interval in seconds in which the background rotation checks the expiry of the current chain.
+     */
+    public static final long ROTATION_CHECK_INTERVAL_SECONDS = 30;
+
+    private static final String ALIAS_PREFIX = "gossip-";
+
+    private record Generation(String alias, HostKeyCertificate certificate, long notAfter) {
+        static Generation of(long generation, HostKeyCertificate certificate) {
+            long notAfter = Arrays.stream(certificate.certificates())
+                    .mapToLong(value -> value.getNotAfter().getTime())
+                    .min()
+                    .orElseThrow();
+            return new Generation(ALIAS_PREFIX + generation, certificate, notAfter);
+        }
+
+        boolean isExpiring(long currentMillis) {
+            return notAfter - currentMillis < ROTATION_MARGIN;
+        }
+    }
+
+    private final Logger logger = LogManager.getLogger(RotatingHostKeyManager.class);
+
+    private final HostKey hostKey;
+    private final Function<HostKey, HostKeyCertificate> certificateFactory;
+
+    // below fields are written while holding `this`
+    private volatile Generation current;
+    @Nullable
+    private volatile Generation previous;
+    private long generations;
+    @Nullable
+    private volatile EventExecutorGroup rotationExecutor;
+    private final AtomicBoolean rotationPending = new AtomicBoolean();
+
+    public RotatingHostKeyManager(HostKey hostKey) {
+        this(hostKey, HostKeySelfSignedX509Certificates::new);
+    }
+
+    /**
+     * @param hostKey - The host key signing every certificate chain.
+     * @param certificateFactory - Generates a new certificate chain for the host key.
+     */
+    public RotatingHostKeyManager(HostKey hostKey, Function<HostKey, HostKeyCertificate> certificateFactory) {
+        this.hostKey = Preconditions.checkNotNull(hostKey);
+        this.certificateFactory = certificateFactory;
+        this.current = Generation.of(generations++, certificateFactory.apply(hostKey));
+    }
+
+    /**
+     * @return The certificate chain currently served to remote peers.
+     */
+    public HostKeyCertificate certificate() {
+        return current().certificate;
+    }
+
+    /**
+     * @return The amount of certificate chains generated so far.
+     */
+    public synchronized long generatedCertificates() {
+        return generations;
+    }
+
+    /**
+     * Replaces the current certificate chain with a newly generated one.
+     */
+    public synchronized void rotate() {
+        var next = Generation.of(generations, certificateFactory.apply(hostKey));
+        generations++;
+
+        previous = current;
+        current = next;
+        logger.debug("Rotated host key certificate chain to {}, valid until {}", next.alias, next.notAfter);
+    }
+
+    /**
+     * Replaces the current certificate chain if it expires within the {@link #ROTATION_MARGIN}.
+     * @return True if the chain was replaced.
+     */
+    public boolean rotateIfExpiring() {
+        if (!current.isExpiring(System.currentTimeMillis())) {
+            return false;
+        }
+
+        synchronized (this) {
+            // another thread might have rotated in the meantime
+            if (!current.isExpiring(System.currentTimeMillis())) {
+                return false;
+            }
+            rotate();
+            return true;
+        }
+    }
+
+    /**
+     * Periodically checks the current certificate chain and replaces it before it expires.
+     * Handshakes encountering an expiring chain hand the rotation to the same executor.
+     * @param executor - The executor running the (blocking) certificate generation. Must not be an I/O event loop.
+     * @return The future of the scheduled task. Cancel it to stop the rotation.
+     */
+    public ScheduledFuture<?> scheduleRotation(EventExecutorGroup executor) {
+        this.rotationExecutor = executor;
+        return executor.scheduleAtFixedRate(this::rotateSafely,
+                ROTATION_CHECK_INTERVAL_SECONDS, ROTATION_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void rotateSafely() {
+        try {
+            rotateIfExpiring();
+        } catch (RuntimeException e) {
+            // an exception would cancel all subsequent executions of the scheduled rotation
+            logger.error("Failed to rotate host key certificate chain", e);
+        }
+    }
+
+    private void rotateInBackground(EventExecutorGroup executor) {
+        if (!rotationPending.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    rotateSafely();
+                } finally {
+                    rotationPending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the executor was shut down, the chain is rotated by the next handshake once it expired
+            rotationPending.set(false);
+        }
+    }
+
+    private Generation current() {
+        var current = this.current;
+        long currentMillis = System.currentTimeMillis();
+        if (!current.isExpiring(currentMillis)) {
+            return current;
+        }
+
+        var executor = this.rotationExecutor;
+        if (executor != null && currentMillis < current.notAfter) {
+            // the chain is still valid, keep on serving it while the next one is generated
+            rotateInBackground(executor);
+            return current;
+        }
+
+        // fallback without a rotation executor or once the chain expired. Blocks the handshake for the generation.
+        rotateIfExpiring();
+        return this.current;
+    }
+
+    private @Nullable Generation generation(String alias) {
+        var current = this.current;
+        if (current.alias.equals(alias)) {
+            return current;
+        }
+
+        var previous = this.previous;
+        if (previous != null && previous.alias.equals(alias)) {
+            return previous;
+        }
+        return null;
+    }
+
+    private @Nullable String chooseAlias(@Nullable String[] keyTypes) {
+        var generation = current();
+        if (keyTypes == null) {
+            return generation.alias;
+        }
+
+        String algorithm = generation.certificate.privateKey().getAlgorithm();
+        for (var keyType: keyTypes) {
+            if (algorithm.equals(keyType)) {
+                return generation.alias;
+            }
+        }
+        return null;
+    }
+
+    private String[] aliases(String keyType) {
+        var alias = chooseAlias(new String[] { keyType });
+        return alias != null ? new String[] { alias } : null;
+    }
+
+    @Override
+    public String[] getClientAliases(String keyType, Principal[] issuers) {
+        return aliases(keyType);
+    }
+
+    @Override
+    public String chooseClientAlias(String[] keyTypes, Principal[] issuers, Socket socket) {
+        return chooseAlias(keyTypes);
+    }
+
+    @Override
+    public String chooseEngineClientAlias(String[] keyTypes, Principal[] issuers, SSLEngine engine) {
+        return chooseAlias(keyTypes);
+    }
+
+    @Override
+    public String[] getServerAliases(String keyType, Principal[] issuers) {
+        return aliases(keyType);
+    }
+
+    @Override
+    public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+        return chooseAlias(new String[] { keyType });
+    }
+
+    @Override
+    public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+        return chooseAlias(new String[] { keyType });
+    }
+
+    @Override
+    public X509Certificate[] getCertificateChain(String alias) {
+        var generation = generation(alias);
+        return generation != null ? generation.certificate.certificates() : null;
+    }
+
+    @Override
+    public PrivateKey getPrivateKey(String alias) {
+        var generation = generation(alias);
+        return generation != null ? generation.certificate.privateKey() : null;
+    }
+}
@@ -1,5 +1,10 @@
 package de.tum.gossip.crypto;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import de.tum.gossip.crypto.certificates.HostKeyCertificate;
 import de.tum.gossip.crypto.certificates.HostKeySelfSignedX509Certificates;
 import de.tum.gossip.crypto.certificates.HostKeySelfSignedX509RSACertificate;
@@ -7,34 +12,115 @@ import de.tum.gossip.p2p.GossipPeerInfo;
 import io.netty.util.internal.EmptyArrays;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
-import javax.net.ssl.TrustManagerFactory;
-import javax.net.ssl.X509TrustManager;
-import java.io.IOException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.net.Socket;
 import java.security.*;
-import java.security.cert.CertificateException;
-import java.security.cert.X509Certificate;
+import java.security.cert.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Trust manager, verifying the integrity of the provided certificates within the TLS handshake.
- *
+ * <p>
+ * Successfully verified chains are cached by their fingerprint until the first certificate of the chain expires.
+ * Repeated handshakes presenting the same short-lived chain therefore only re-check the time validity,
+ * skipping the PKIX validation and signature verifications.
  */
-public class SelfSignedCertifyingTrustManager implements X509TrustManager {
+public class SelfSignedCertifyingTrustManager extends X509ExtendedTrustManager {
+    /**
+     * The maximum amount of verified certificate chains cached per trust manager.
+     */
+    public static final long VERIFICATION_CACHE_SIZE = 4096;
+
+    /**
+     * {@link CertPathValidator} and {@link CertificateFactory} aren't guaranteed to be thread safe,
+     * therefore every thread reuses its own instances.
+     */
+    private static final ThreadLocal<CertPathValidator> PKIX_VALIDATOR = ThreadLocal.withInitial(() -> {
+        try {
+            return CertPathValidator.getInstance("PKIX");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e); // every Java implementation supports PKIX
+        }
+    });
+    private static final ThreadLocal<CertificateFactory> CERTIFICATE_FACTORY = ThreadLocal.withInitial(() -> {
+        try {
+            return CertificateFactory.getInstance("X.509");
+        } catch (CertificateException e) {
+            throw new RuntimeException(e); // every Java implementation supports X.509
+        }
+    });
+
     public final GossipPeerInfo expectedIdentity;
+    @Nullable
+    private final TlsSessionTracker sessionTracker;
 
     private enum CallOrigin {
         SERVER,
         CLIENT,
     }
 
+    /**
+     * @param fingerprint - SHA-256 hash over the encoded certificate chain.
+     */
+    private record VerifiedChain(HashCode fingerprint, String authType, CallOrigin origin) {}
+
     private final Class<? extends HostKeyCertificate> type;
 
+    /**
+     * Maps verified certificate chains to the epoch millis at which the first certificate of the chain expires.
+     */
+    private final Cache<VerifiedChain, Long> verifiedChains = Caffeine.newBuilder()
+            .maximumSize(VERIFICATION_CACHE_SIZE)
+            .expireAfter(new NotAfterExpiry())
+            .build();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private static class NotAfterExpiry implements Expiry<VerifiedChain, Long> {
+        @Override
+        public long expireAfterCreate(VerifiedChain key, Long notAfter, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, notAfter - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(VerifiedChain key, Long notAfter, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, notAfter, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(VerifiedChain key, Long notAfter, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
     public SelfSignedCertifyingTrustManager(Class<? extends HostKeyCertificate> type) {
         this(type, null);
     }
 
     public SelfSignedCertifyingTrustManager(Class<? extends HostKeyCertificate> type, GossipPeerInfo expectedIdentity) {
+        this(type, expectedIdentity, null);
+    }
+
+    /**
+     * @param type - The expected type of certificate chain.
+     * @param expectedIdentity - The expected identity of the remote peer, or null to accept any identity.
+     * @param sessionTracker - Optional tracker, which is informed about every engine whose certificate chain got verified.
+     */
+    public SelfSignedCertifyingTrustManager(
+            Class<? extends HostKeyCertificate> type,
+            @Nullable GossipPeerInfo expectedIdentity,
+            @Nullable TlsSessionTracker sessionTracker
+    ) {
         this.expectedIdentity = expectedIdentity;
         this.type = type;
+        this.sessionTracker = sessionTracker;
     }
 
     @Override
@@ -47,12 +133,54 @@ public class SelfSignedCertifyingTrustManager implements X509TrustManager {
         checkTrusted(x509Certificates, authType, CallOrigin.SERVER);
     }
 
+    @Override
+    public void checkClientTrusted(X509Certificate[] x509Certificates, String authType, Socket socket) throws CertificateException {
+        checkClientTrusted(x509Certificates, authType);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] x509Certificates, String authType, Socket socket) throws CertificateException {
+        checkServerTrusted(x509Certificates, authType);
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] x509Certificates, String authType, SSLEngine engine) throws CertificateException {
+        checkClientTrusted(x509Certificates, authType);
+        markVerified(engine);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] x509Certificates, String authType, SSLEngine engine) throws CertificateException {
+        checkServerTrusted(x509Certificates, authType);
+        markVerified(engine);
+    }
+
+    private void markVerified(SSLEngine engine) {
+        if (sessionTracker != null) {
+            sessionTracker.markVerified(engine);
+        }
+    }
+
     private void assertCertificateCount(X509Certificate[] certificates, int size) throws CertificateException {
         if (certificates.length != size) {
             throw new CertificateException("Illegal size of certificate chain 1: " + certificates.length);
         }
     }
 
+    /**
+     * @return The amount of certificate chains which were trusted due to a previous verification.
+     */
+    public long verificationCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * @return The amount of certificate chains which were fully verified.
+     */
+    public long verificationCacheMisses() {
+        return cacheMisses.sum();
+    }
+
     private void checkTrusted(X509Certificate[] certificates, String authType, CallOrigin origin) throws CertificateException {
         if (type.equals(HostKeySelfSignedX509RSACertificate.class)) {
             assertCertificateCount(certificates, 1);
@@ -62,52 +190,58 @@ public class SelfSignedCertifyingTrustManager implements X509TrustManager {
             throw new RuntimeException("Unknown certificate type!");
         }
 
-        var rootCertificate = certificates[certificates.length - 1];
+        long currentMillis = System.currentTimeMillis();
+        long notAfter = Long.MAX_VALUE;
+        for (var certificate: certificates) {
+            // check general time validity
+            certificate.checkValidity();
 
-        try {
-            rootCertificate.verify(rootCertificate.getPublicKey(), BouncyCastleProvider.PROVIDER_NAME);
-        } catch (NoSuchAlgorithmException | InvalidKeyException | NoSuchProviderException | SignatureException e) {
-            throw new CertificateException("Failed to assert self signed root certificate", e);
-        }
+            // we require short-lived certificates in our protocol!
+            if (certificate.getNotAfter().getTime() - currentMillis > HostKeyCertificate.NOT_AFTER_THRESHOLD) {
+                throw new CertificateException("Provided certificate is considered to have a too long not-after date: " + certificate.getSubjectX500Principal().getName() + "!");
+            }
 
-        KeyStore keyStore;
-        try {
-            keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
-            keyStore.load(null);
-        } catch (KeyStoreException | NoSuchAlgorithmException | IOException e) {
-            throw new CertificateException("Failed to get KeyStore", e);
+            notAfter = Math.min(notAfter, certificate.getNotAfter().getTime());
         }
 
-        try {
-            // root certificate will always be the gossip issue, irrelevant of the type!
-            keyStore.setCertificateEntry(HostKeySelfSignedX509Certificates.GOSSIP_ISSUER, rootCertificate);
-        } catch (KeyStoreException e) {
-            throw new CertificateException("Failed to add root certificate", e);
+        var key = new VerifiedChain(fingerprint(certificates), authType, origin);
+        if (verifiedChains.getIfPresent(key) != null) {
+            cacheHits.increment();
+            return;
         }
 
-        X509TrustManager trustManager;
-        try {
-            var factory = TrustManagerFactory.getInstance("PKIX");
-            factory.init(keyStore);
-            trustManager = (X509TrustManager) factory.getTrustManagers()[0];
-        } catch (Exception e) {
-            throw new CertificateException("Failed to init TrustManagerFactory", e);
+        cacheMisses.increment();
+        verifyChain(certificates);
+        verifiedChains.put(key, notAfter);
+    }
+
+    private static HashCode fingerprint(X509Certificate[] certificates) throws CertificateException {
+        var hasher = Hashing.sha256().newHasher();
+        for (var certificate: certificates) {
+            hasher.putBytes(certificate.getEncoded());
         }
+        return hasher.hash();
+    }
+
+    private void verifyChain(X509Certificate[] certificates) throws CertificateException {
+        var rootCertificate = certificates[certificates.length - 1];
 
-        switch (origin) {
-            case CLIENT -> trustManager.checkClientTrusted(certificates, authType);
-            case SERVER -> trustManager.checkServerTrusted(certificates, authType);
+        try {
+            rootCertificate.verify(rootCertificate.getPublicKey(), BouncyCastleProvider.PROVIDER_NAME);
+        } catch (NoSuchAlgorithmException | InvalidKeyException | NoSuchProviderException | SignatureException e) {
+            throw new CertificateException("Failed to assert self signed root certificate", e);
         }
 
-        long currentMillis = System.currentTimeMillis();
-        for (var certificate: certificates) {
-            // check general time validity
-            certificate.checkValidity();
+        // root certificate will always be the gossip issuer, irrelevant of the type!
+        // The path to validate excludes the trust anchor itself.
+        try {
+            var parameters = new PKIXParameters(Set.of(new TrustAnchor(rootCertificate, null)));
+            parameters.setRevocationEnabled(false);
 
-            // we require short-lived certificates in our protocol!
-            if (certificate.getNotAfter().getTime() - currentMillis > HostKeyCertificate.NOT_AFTER_THRESHOLD) {
-                throw new CertificateException("Provided certificate is considered to have a too long not-after date: " + certificate.getSubjectX500Principal().getName() + "!");
-            }
+            var path = CERTIFICATE_FACTORY.get().generateCertPath(List.of(Arrays.copyOf(certificates, certificates.length - 1)));
+            PKIX_VALIDATOR.get().validate(path, parameters);
+        } catch (InvalidAlgorithmParameterException | CertPathValidatorException e) {
+            throw new CertificateException("Failed to validate certificate path", e);
         }
 
         if (expectedIdentity != null) {
@@ -0,0 +1,158 @@
+package de.tum.gossip.crypto;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dedicated pool of worker threads running signature operations, keeping expensive RSA operations
+ * off the I/O and packet processing threads.
+ * <p>
+ * Submitted operations are queued and drained by the workers in batches of up to {@link #BATCH_SIZE} operations.
+ * A worker keeps draining while operations are queued, therefore a burst of operations is handed to the
+ * pool with a single thread wake-up. Results are delivered through promises of the submitting executor,
+ * such that their listeners continue the processing pipeline on that executor.
+ */
+public class SignatureWorkerPool {
+    /**
+     * The maximum amount of operations a worker takes from the queue at once.
+     */
+    public static final int BATCH_SIZE = 32;
+
+    private record Operation<T>(Callable<T> callable, Promise<T> promise) {
+        void run() {
+            try {
+                promise.trySuccess(callable.call());
+            } catch (Throwable e) {
+                promise.tryFailure(e);
+            }
+        }
+    }
+
+    private final int threads;
+    private final ExecutorService workers;
+    private final Queue<Operation<?>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder operations = new LongAdder();
+
+    public SignatureWorkerPool() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * @param threads - The amount of worker threads.
+     */
+    public SignatureWorkerPool(int threads) {
+        Preconditions.checkArgument(threads > 0, "Signature worker pool requires at least one thread!");
+        this.threads = threads;
+        this.workers = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setNameFormat("Gossip Signatures #%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * Queues an operation for one of the workers.
+     * @param executor - The executor notifying the listeners of the returned future.
+     * @param callable - The operation.
+     * @return The future completing with the result of the operation.
+     */
+    public <T> Future<T> submit(EventExecutor executor, Callable<T> callable) {
+        Promise<T> promise = executor.newPromise();
+        if (workers.isShutdown()) {
+            promise.setFailure(new RejectedExecutionException("Signature worker pool was shut down!"));
+            return promise;
+        }
+
+        pending.add(new Operation<>(callable, promise));
+        startWorkerIfNeeded();
+        return promise;
+    }
+
+    /**
+     * @return The amount of batches drained by the workers.
+     */
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * @return The amount of operations run by the workers.
+     */
+    public long operationCount() {
+        return operations.sum();
+    }
+
+    /**
+     * Stops all workers. Queued operations fail with a {@link RejectedExecutionException}.
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+        failPending();
+    }
+
+    private void startWorkerIfNeeded() {
+        while (!pending.isEmpty()) {
+            int active = activeWorkers.get();
+            if (active >= threads) {
+                return; // the active workers continue draining the queue
+            }
+
+            if (activeWorkers.compareAndSet(active, active + 1)) {
+                try {
+                    workers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    activeWorkers.decrementAndGet();
+                    failPending();
+                }
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            int count;
+            do {
+                count = 0;
+                Operation<?> operation;
+                while (count < BATCH_SIZE && (operation = pending.poll()) != null) {
+                    // counted before the promise completes, listeners observe their own operation
+                    operations.increment();
+                    operation.run();
+                    count++;
+                }
+
+                if (count > 0) {
+                    batches.increment();
+                }
+            } while (count > 0 && !Thread.currentThread().isInterrupted());
+        } finally {
+            activeWorkers.decrementAndGet();
+            // an operation might have been queued after our last poll, but before we marked ourselves inactive
+            if (!workers.isShutdown()) {
+                startWorkerIfNeeded();
+            }
+        }
+    }
+
+    private void failPending() {
+        Operation<?> operation;
+        while ((operation = pending.poll()) != null) {
+            operation.promise.tryFailure(new RejectedExecutionException("Signature worker pool was shut down!"));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package de.tum.gossip.crypto;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import javax.net.ssl.SSLEngine;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks whether TLS handshakes performed a full certificate verification or resumed a previous session.
+ * <p>
+ * The {@link SelfSignedCertifyingTrustManager} marks every engine it verified a certificate chain for.
+ * Resumed handshakes skip the trust manager, therefore an engine which wasn't marked once its handshake
+ * completed resumed a previous session.
+ */
+public class TlsSessionTracker {
+    /**
+     * The lifetime of TLS sessions (and session tickets) in seconds. Kept below the lifetime of our
+     * short-lived certificates (see {@link de.tum.gossip.crypto.certificates.HostKeyCertificate}),
+     * whose validity is checked again when resuming a session.
+     */
+    public static final long SESSION_TIMEOUT_SECONDS = 5 * 60;
+    /**
+     * The maximum amount of sessions cached per {@link io.netty.handler.ssl.SslContext}.
+     */
+    public static final long SESSION_CACHE_SIZE = 4096;
+
+    private final Cache<SSLEngine, Boolean> verifiedEngines = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+
+    private final LongAdder fullHandshakes = new LongAdder();
+    private final LongAdder resumedHandshakes = new LongAdder();
+
+    /**
+     * Called by the trust manager once it verified the certificate chain within the handshake of the provided engine.
+     */
+    void markVerified(SSLEngine engine) {
+        verifiedEngines.put(engine, Boolean.TRUE);
+    }
+
+    /**
+     * Records a completed handshake.
+     * @param engine - The engine which completed its handshake.
+     * @return True if the handshake resumed a previous session, without verifying the certificate chain.
+     */
+    public boolean recordHandshake(SSLEngine engine) {
+        boolean resumed = verifiedEngines.asMap().remove(engine) == null;
+        if (resumed) {
+            resumedHandshakes.increment();
+        } else {
+            fullHandshakes.increment();
+        }
+        return resumed;
+    }
+
+    public long fullHandshakeCount() {
+        return fullHandshakes.sum();
+    }
+
+    public long resumedHandshakeCount() {
+        return resumedHandshakes.sum();
+    }
+
+    /**
+     * @return The share of handshakes which resumed a previous session, or 0 if no handshake was recorded yet.
+     */
+    public double resumptionHitRate() {
+        long resumed = resumedHandshakeCount();
+        long total = resumed + fullHandshakeCount();
+        return total == 0 ? 0 : (double) resumed / total;
+    }
+
+    @Override
+    public String toString() {
+        return "TlsSessionTracker{" +
+                "fullHandshakes=" + fullHandshakeCount() +
+                ", resumedHandshakes=" + resumedHandshakeCount() +
+                '}';
+    }
+}
@@ -5,48 +5,112 @@ import com.google.common.collect.Queues;
 import de.tum.gossip.net.packets.InboundPacket;
 import de.tum.gossip.net.packets.InboundPacketHandler;
 import de.tum.gossip.net.packets.OutboundPacket;
+import de.tum.gossip.net.packets.PreEncodedPacket;
+import de.tum.gossip.net.packets.RecyclablePacket;
 import de.tum.gossip.net.util.ChannelCloseReason;
+import de.tum.gossip.net.util.OutboundQueueConfiguration;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.timeout.TimeoutException;
 import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.PlatformDependent;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 /**
  * Handle managing the state of an established channel.
  * <p>
+ * Outbound packets are written in batches. Packets sent from outside the event loop are placed into a
+ * multi-producer single-consumer queue which is drained once per event-loop turn, and a single flush
+ * covers all packets written within that turn. See {@link #sendPacket(OutboundPacket, GenericFutureListener[])}
+ * and {@link #sendPacketAndFlush(OutboundPacket, GenericFutureListener[])}.
+ * <p>
+ * The outbound path applies backpressure according to the {@link OutboundQueueConfiguration} of the protocol.
+ * While the channel isn't active or its outbound buffer exceeds the high water mark, droppable packets
+ * (see {@link OutboundPacket#isDroppable()}) are held back in a bounded queue, which is drained once the channel
+ * becomes writable again. If the queue is full, the configured overflow policy is applied.
+ * Control packets are never dropped and are written regardless of the writability of the channel.
+ * <p>
+ * All handler methods, including the dispatch of inbound packets, run on the executor the handler was added with
+ * (see {@link ProtocolDescription#withHandlerExecutor(EventExecutorGroup)}), which defaults to the event loop of the channel.
+ * Within this class "the event loop" refers to that executor. If it isn't the event loop of the channel, Netty would
+ * wrap every single write and flush into its own task. Therefore, packets written within a turn are collected and
+ * handed to the event loop of the channel in a single task on flush.
+ * <p>
  * Created by Andi on 21.06.22.
  */
 public class ChannelInboundHandler extends SimpleChannelInboundHandler<InboundPacket<?>> {
     public static final AttributeKey<ProtocolDescription> PROTOCOL_DESCRIPTION_KEY = AttributeKey.valueOf("protocol-description");
 
+    private enum CloseState {
+        OPEN,
+        /** The close routine was triggered, but the disconnect handlers didn't complete yet. */
+        CLOSING,
+        CLOSED,
+        ;
+    }
+
     private record QueuedPacket(
             OutboundPacket packet,
             GenericFutureListener<? extends Future<? super Void>>[] futureListeners
     ) {}
 
     private final AtomicReference<InboundPacketHandler> packetHandler;
+    private final OutboundQueueConfiguration outboundQueue;
 
-    // non-blocking queue to stored queued packets before the channel is open
+    // non-blocking queue to stored queued packets before the handler was added to a channel
     private final Queue<QueuedPacket> packetQueue = Queues.newConcurrentLinkedQueue();
-
-    private Channel channel;
+    // bounded queue of packets held back while the channel is inactive or unwritable. Only accessed by the event loop.
+    private final ArrayDeque<QueuedPacket> pendingQueue = new ArrayDeque<>();
+    // the amount of droppable packets in the `pendingQueue`. Written by the event loop only.
+    private final AtomicInteger pendingDroppablePackets = new AtomicInteger();
+
+    // non-blocking queue for packets sent from outside the event loop. Drained by the event loop via `drainTask`.
+    private final Queue<QueuedPacket> writeQueue = PlatformDependent.newMpscQueue();
+    // set if the `drainTask` was submitted to the event loop and didn't run yet.
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Runnable drainTask = this::drainWriteQueue;
+    // set if packets were written within the current event loop turn, but weren't flushed yet. Only accessed by the event loop.
+    private boolean flushPending = false;
+    // packets written within the current turn of a handler executor, handed to the channel's event loop on flush. Only accessed by the event loop.
+    private final ArrayList<QueuedPacket> channelBatch = new ArrayList<>();
+
+    private volatile Channel channel;
+    // the executor all handler methods run on. This is the event loop of the channel, unless a handler executor is configured.
+    private volatile EventExecutor executor;
+    private volatile boolean active = false;
     private final Promise<ChannelInboundHandler> handshakePromise;
     private volatile boolean disconnected = false;
-
-    public ChannelInboundHandler(InboundPacketHandler initialHandler, Promise<ChannelInboundHandler> handshakePromise) {
+    // guards the close routine to only run once. `disconnected` is set once the routine called all handlers.
+    private final AtomicReference<CloseState> closeState = new AtomicReference<>(CloseState.OPEN);
+
+    public ChannelInboundHandler(
+            InboundPacketHandler initialHandler,
+            Promise<ChannelInboundHandler> handshakePromise,
+            OutboundQueueConfiguration outboundQueue
+    ) {
         this.packetHandler = new AtomicReference<>(initialHandler);
         this.handshakePromise = handshakePromise;
+        this.outboundQueue = outboundQueue;
     }
 
     /**
@@ -73,26 +137,98 @@ public class ChannelInboundHandler extends SimpleChannelInboundHandler<InboundPa
     }
 
     public boolean isConnected() {
-        return this.channel != null && this.channel.isOpen() && !disconnected;
+        return this.active && this.channel.isOpen() && !disconnected;
+    }
+
+    /**
+     * @return The amount of droppable packets currently held back in the outbound queue of this channel.
+     */
+    public int outboundQueueDepth() {
+        return pendingDroppablePackets.get();
+    }
+
+    /**
+     * Enables the compression of outbound frames. Packets already handed to the pipeline might be compressed as well,
+     * therefore the remote peer must accept compressed frames at the time this is called.
+     * @return False if the protocol doesn't support frame compression (see {@link ProtocolDescription#withFrameCompression(boolean)}).
+     */
+    public boolean enableFrameCompression() {
+        var codec = channel.pipeline().get(FrameCompressionCodec.class);
+        if (codec == null) {
+            return false;
+        }
+        codec.enableCompression();
+        return true;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        super.handlerAdded(ctx);
+        this.channel = ctx.channel();
+        this.executor = ctx.executor();
+
+        QueuedPacket queuedPacket;
+        while ((queuedPacket = packetQueue.poll()) != null) {
+            if (executor.inEventLoop()) {
+                handlePacket(queuedPacket);
+            } else {
+                writeQueue.add(queuedPacket);
+                scheduleDrain();
+            }
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        releasePendingPackets();
     }
 
     @Override
     public void channelActive(@NotNull ChannelHandlerContext ctx) throws Exception {
         super.channelActive(ctx);
 
-        this.channel = ctx.channel();
+        this.active = true;
 
         var handler = this.packetHandler.get();
 
         handler.logger().trace("Channel became active!");
         handler.onConnect(this);
-        this.sendQueuedPackets();
+        this.writePendingPackets();
+        if (flushPending) {
+            this.flush();
+        }
     }
 
     @Override
     public void channelInactive(@NotNull ChannelHandlerContext ctx) throws Exception {
         super.channelInactive(ctx);
         this.close(new ChannelCloseReason.ChannelInactive());
+        releasePendingPackets();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        super.channelWritabilityChanged(ctx);
+
+        if (active && ctx.channel().isWritable()) {
+            writePendingPackets();
+            if (flushPending) {
+                flush();
+            }
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        try {
+            // dispatches the packet via `channelRead0` and releases it afterwards
+            super.channelRead(ctx, msg);
+        } finally {
+            if (msg instanceof RecyclablePacket packet) {
+                packet.recycle();
+            }
+        }
     }
 
     @Override
@@ -161,45 +297,266 @@ public class ChannelInboundHandler extends SimpleChannelInboundHandler<InboundPa
 
     /**
      * Use this method to send a {@link OutboundPacket} instance to the remote peer. The packet will be queued if the channel
-     * isn't connected at the moment.
+     * isn't connected at the moment or, if it is droppable, if the channel isn't writable.
+     * <p>
+     * The packet is not flushed immediately. All packets sent within the same event-loop turn are flushed
+     * together once the turn completes. Use {@link #sendPacketAndFlush(OutboundPacket, GenericFutureListener[])}
+     * if the packet needs to hit the socket right away.
      * @param packet - The packet instance.
-     * @param genericFutureListeners - Future listeners, executed once the packet is sent and flushed.
+     * @param genericFutureListeners - Future listeners, executed once the packet is sent and flushed
+     *                               or failed if the packet was dropped.
      */
     @SafeVarargs
     public final void sendPacket(OutboundPacket packet, GenericFutureListener<? extends Future<? super Void>>... genericFutureListeners) {
-        if (!this.isConnected()) {
-            packetQueue.add(new QueuedPacket(packet, genericFutureListeners));
+        enqueuePacket(packet, false, genericFutureListeners);
+    }
+
+    /**
+     * Use this method to send a {@link OutboundPacket} instance to the remote peer. The packet will be queued if the channel
+     * isn't connected at the moment.
+     * <p>
+     * In contrast to {@link #sendPacket(OutboundPacket, GenericFutureListener[])} the channel is flushed right after the
+     * packet was written (including every other packet still pending in the current batch).
+     * @param packet - The packet instance.
+     * @param genericFutureListeners - Future listeners, executed once the packet is sent and flushed
+     *                               or failed if the packet was dropped.
+     */
+    @SafeVarargs
+    public final void sendPacketAndFlush(OutboundPacket packet, GenericFutureListener<? extends Future<? super Void>>... genericFutureListeners) {
+        enqueuePacket(packet, true, genericFutureListeners);
+    }
+
+    private void enqueuePacket(OutboundPacket packet, boolean flush, GenericFutureListener<? extends Future<? super Void>>[] genericFutureListeners) {
+        if (disconnected) {
+            // the packet will never reach the channel, make sure reference counted packets are freed.
+            ReferenceCountUtil.release(packet);
             return;
         }
 
-        this.sendQueuedPackets();
-        this.flushPacket(packet, genericFutureListeners);
+        var queuedPacket = new QueuedPacket(packet, genericFutureListeners);
+
+        var executor = this.executor;
+        if (executor == null) {
+            packetQueue.add(queuedPacket);
+            return;
+        }
+
+        if (!executor.inEventLoop()) {
+            if (packet.isDroppable()
+                    && outboundQueue.overflowPolicy() == OutboundQueueConfiguration.OverflowPolicy.DROP_NEWEST
+                    && pendingDroppablePackets.get() >= outboundQueue.capacity()) {
+                // save the hop to the event loop, the packet would be dropped anyway
+                outboundQueue.metrics().droppedNewest();
+                dropPacket(queuedPacket);
+                return;
+            }
+
+            // the drain task always flushes, so there is no difference between `flush` and non-`flush` packets here.
+            writeQueue.add(queuedPacket);
+            scheduleDrain();
+            return;
+        }
+
+        this.handlePacket(queuedPacket);
+
+        if (!flushPending) {
+            return;
+        }
+
+        if (flush) {
+            this.flush();
+        } else {
+            // flush once the current event loop turn completed
+            scheduleDrain();
+        }
     }
 
-    private void sendQueuedPackets() {
+    /**
+     * Writes the packet or places it into the `pendingQueue`, applying the overflow policy if necessary.
+     * Must be called from the event loop.
+     */
+    private void handlePacket(QueuedPacket queuedPacket) {
+        boolean droppable = queuedPacket.packet.isDroppable();
+
+        if (active) {
+            if (!droppable) {
+                // control packets bypass the queue
+                writePacket(queuedPacket);
+                return;
+            }
+
+            writePendingPackets();
+            if (pendingQueue.isEmpty() && channel.isWritable()) {
+                writePacket(queuedPacket);
+                return;
+            }
+        }
+
+        if (droppable && pendingDroppablePackets.get() >= outboundQueue.capacity()) {
+            switch (outboundQueue.overflowPolicy()) {
+                case DROP_OLDEST -> {
+                    var iterator = pendingQueue.iterator();
+                    while (iterator.hasNext()) {
+                        var oldest = iterator.next();
+                        if (oldest.packet.isDroppable()) {
+                            iterator.remove();
+                            pendingDroppablePackets.decrementAndGet();
+                            outboundQueue.metrics().packetsDequeued(1);
+                            outboundQueue.metrics().droppedOldest();
+                            dropPacket(oldest);
+                            break;
+                        }
+                    }
+                }
+                case DROP_NEWEST -> {
+                    outboundQueue.metrics().droppedNewest();
+                    dropPacket(queuedPacket);
+                    return;
+                }
+                case DISCONNECT -> {
+                    dropPacket(queuedPacket);
+                    if (!disconnected) {
+                        outboundQueue.metrics().overflowDisconnect();
+                        close(new ChannelCloseReason.Busy(outboundQueue.capacity()));
+                    }
+                    return;
+                }
+            }
+        }
+
+        pendingQueue.add(queuedPacket);
+        if (droppable) {
+            pendingDroppablePackets.incrementAndGet();
+        }
+        outboundQueue.metrics().packetQueued();
+    }
+
+    /**
+     * Writes packets of the `pendingQueue` while the channel is writable. Must be called from the event loop.
+     */
+    private void writePendingPackets() {
         QueuedPacket queuedPacket;
-        while ((queuedPacket = packetQueue.poll()) != null) {
-            flushPacket(queuedPacket.packet, queuedPacket.futureListeners);
+        while (channel.isWritable() && (queuedPacket = pendingQueue.poll()) != null) {
+            if (queuedPacket.packet.isDroppable()) {
+                pendingDroppablePackets.decrementAndGet();
+            }
+            outboundQueue.metrics().packetsDequeued(1);
+            writePacket(queuedPacket);
         }
     }
 
-    @SafeVarargs
-    private void flushPacket(OutboundPacket packet, GenericFutureListener<? extends Future<? super Void>>... genericFutureListeners) {
-        Runnable runnable = () -> {
-            this.packetHandler.get().logger().trace("Flushing packet {}", packet);
-            var future = channel.writeAndFlush(packet);
+    /**
+     * Releases all packets of the `pendingQueue`. Must be called from the event loop.
+     */
+    private void releasePendingPackets() {
+        if (pendingQueue.isEmpty()) {
+            return;
+        }
 
-            if (genericFutureListeners.length > 0) {
-                future.addListeners(genericFutureListeners);
-            }
+        outboundQueue.metrics().packetsDequeued(pendingQueue.size());
+        pendingDroppablePackets.set(0);
+
+        QueuedPacket queuedPacket;
+        while ((queuedPacket = pendingQueue.poll()) != null) {
+            dropPacket(queuedPacket);
+        }
+    }
 
-            future.addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
-        };
+    private void dropPacket(QueuedPacket queuedPacket) {
+        this.packetHandler.get().logger().trace("Dropping packet {}", queuedPacket.packet);
+        ReferenceCountUtil.release(queuedPacket.packet);
 
-        if (channel.eventLoop().inEventLoop()) {
-            runnable.run();
+        if (queuedPacket.futureListeners.length > 0) {
+            channel.newFailedFuture(new ChannelException("Packet was dropped from the outbound queue!"))
+                    .addListeners(queuedPacket.futureListeners);
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            executor.execute(drainTask);
+        }
+    }
+
+    /**
+     * Writes all packets queued from outside the event loop and flushes the channel once. Must be called from the event loop.
+     */
+    private void drainWriteQueue() {
+        drainScheduled.set(false);
+
+        QueuedPacket queuedPacket;
+        while ((queuedPacket = writeQueue.poll()) != null) {
+            handlePacket(queuedPacket);
+        }
+
+        if (flushPending) {
+            flush();
+        }
+    }
+
+    private void writePacket(QueuedPacket queuedPacket) {
+        this.packetHandler.get().logger().trace("Writing packet {}", queuedPacket.packet);
+        flushPending = true;
+
+        if (!channel.eventLoop().inEventLoop()) {
+            // running on a handler executor, the batch is written by the event loop of the channel on flush
+            channelBatch.add(queuedPacket);
+            return;
+        }
+        writeToChannel(queuedPacket);
+    }
+
+    /**
+     * Writes the packet to the pipeline. Must be called from the event loop of the channel.
+     */
+    private void writeToChannel(QueuedPacket queuedPacket) {
+        ChannelFuture future;
+        if (queuedPacket.packet instanceof PreEncodedPacket encodedPacket) {
+            // the frame is already encoded, therefore we skip the packet encoder of the pipeline.
+            var encoderContext = channel.pipeline().context(ConnectionInitializer.Ids.ENCODER);
+            Preconditions.checkState(encoderContext != null, "Cannot write pre-encoded packets without a packet encoder!");
+
+            var header = encodedPacket.header();
+            if (header != null) {
+                // the header and the remainder of the frame are written back to back, as part of the same flush.
+                // the compression codec expects complete frames, therefore the split frame is sent uncompressed.
+                var compressionContext = channel.pipeline().context(ConnectionInitializer.Ids.COMPRESSION);
+                var context = compressionContext != null ? compressionContext : encoderContext;
+                context.write(header); // failures are reported by the write of the remainder
+                future = context.write(encodedPacket.frame());
+            } else {
+                future = encoderContext.write(encodedPacket.frame());
+            }
         } else {
-            channel.eventLoop().execute(runnable);
+            future = channel.write(queuedPacket.packet);
+        }
+
+        if (queuedPacket.futureListeners.length > 0) {
+            future.addListeners(queuedPacket.futureListeners);
+        }
+
+        future.addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
+    }
+
+    private void flush() {
+        flushPending = false;
+        if (channelBatch.isEmpty()) {
+            channel.flush();
+            return;
+        }
+
+        var batch = new ArrayList<>(channelBatch);
+        channelBatch.clear();
+        try {
+            channel.eventLoop().execute(() -> {
+                for (QueuedPacket queuedPacket: batch) {
+                    writeToChannel(queuedPacket);
+                }
+                channel.flush();
+            });
+        } catch (RejectedExecutionException e) {
+            // the event loop was shut down, the batch will never reach the channel
+            batch.forEach(this::dropPacket);
         }
     }
 
@@ -210,25 +567,56 @@ public class ChannelInboundHandler extends SimpleChannelInboundHandler<InboundPa
      * After that, {@link InboundPacketHandler#onDisconnect(ChannelCloseReason)} will be called to
      * inform the current {@link InboundPacket} about the closing channel.
      * Lastly, the underlying netty channel handle will be closed.
+     * <p>
+     * The close routine always runs on the event loop of the handler and only once, for the first supplied reason.
+     * This method never blocks. If called from outside the event loop, the routine is executed asynchronously.
      *
      * @param reason - An instance of a {@link ChannelCloseReason}.
+     * @return The close future of the underlying netty channel.
      */
-    public synchronized void close(ChannelCloseReason reason) {
+    public Future<Void> close(ChannelCloseReason reason) {
+        var channel = this.channel;
+        var executor = this.executor;
+        Preconditions.checkState(channel != null && executor != null, "Tried to close a handler which wasn't added to a channel!");
+
+        if (closeState.compareAndSet(CloseState.OPEN, CloseState.CLOSING)) {
+            if (executor.inEventLoop()) {
+                closeOnEventLoop(reason);
+            } else {
+                try {
+                    executor.execute(() -> closeOnEventLoop(reason));
+                } catch (RejectedExecutionException e) {
+                    // the event loop was shut down, nobody else can access the channel state anymore
+                    closeOnEventLoop(reason);
+                }
+            }
+        }
+
+        return channel.closeFuture();
+    }
+
+    private void closeOnEventLoop(ChannelCloseReason reason) {
         var handler = this.packetHandler.get();
 
-        if (!this.disconnected) {
+        try {
             handler.logger().debug("Calling disconnect handler due to {}", reason);
             reason.handleBeforeClose(this, handler.logger());
             handler.onDisconnect(reason);
-
+        } finally {
             // onDisconnect or the handleBeforeClose might still send packets,
-            // therefore, we can only set `disconnected` after those are called successfully!
+            // therefore, we can only set `disconnected` after those were called!
             this.disconnected = true;
-        }
+            closeState.set(CloseState.CLOSED);
 
-        if (this.channel.isOpen()) {
-            handler.logger().trace("Closing the netty channel!");
-            this.channel.close().awaitUninterruptibly();
+            // make sure packets sent in the current batch (e.g. by the close reason) are written before closing.
+            drainWriteQueue();
+            // packets held back due to backpressure won't be written anymore
+            releasePendingPackets();
+
+            if (channel.isOpen()) {
+                handler.logger().trace("Closing the netty channel!");
+                channel.close();
+            }
         }
     }
-}
\ No newline at end of file
+}
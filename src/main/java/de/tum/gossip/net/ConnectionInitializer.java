@@ -4,13 +4,11 @@ import de.tum.gossip.net.packets.InboundPacketHandler;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
-import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
-import io.netty.handler.codec.LengthFieldPrepender;
 import io.netty.handler.ssl.SslContext;
 import io.netty.util.concurrent.Promise;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.nio.ByteOrder;
+import java.net.InetSocketAddress;
 import java.util.function.Supplier;
 
 /**
@@ -27,12 +25,13 @@ public class ConnectionInitializer extends ChannelInitializer<Channel> {
     @Nullable
     private final Promise<ChannelInboundHandler> handshakePromise;
     private final boolean registerInboundHandler;
+    @Nullable
+    private final InetSocketAddress remoteAddress;
 
     public static class Ids {
         public static final String TLS_HANDLER = "tlsHandler";
-        public static final String FRAME_DECODER = "frameDecoder";
+        public static final String COMPRESSION = "compression";
         public static final String DECODER = "decoder";
-        public static final String FRAME_ENCODER = "frameEncoder";
         public static final String ENCODER = "encoder";
         public static final String TIMEOUT = "timeout";
     }
@@ -52,11 +51,26 @@ public class ConnectionInitializer extends ChannelInitializer<Channel> {
             Supplier<Handler> defaultHandlerSupplier,
             @Nullable Promise<ChannelInboundHandler> handshakePromise,
             boolean registerInboundHandler
+    ) {
+        this(protocol, defaultHandlerSupplier, handshakePromise, registerInboundHandler, null);
+    }
+
+    /**
+     * @param remoteAddress - The (unresolved) address of the remote peer, if known upfront (client side).
+     *                      It identifies cached TLS sessions, which is required for session resumption.
+     */
+    public <Handler extends InboundPacketHandler> ConnectionInitializer(
+            ProtocolDescription protocol,
+            Supplier<Handler> defaultHandlerSupplier,
+            @Nullable Promise<ChannelInboundHandler> handshakePromise,
+            boolean registerInboundHandler,
+            @Nullable InetSocketAddress remoteAddress
     ) {
         this.protocol = protocol;
         this.defaultHandlerSupplier = defaultHandlerSupplier;
         this.handshakePromise = handshakePromise;
         this.registerInboundHandler = registerInboundHandler;
+        this.remoteAddress = remoteAddress;
 
         this.sslContext = protocol.getSslContext();
     }
@@ -64,6 +78,7 @@ public class ConnectionInitializer extends ChannelInitializer<Channel> {
     @Override
     public void initChannel(Channel channel) {
         channel.attr(ChannelInboundHandler.PROTOCOL_DESCRIPTION_KEY).set(protocol);
+        channel.config().setWriteBufferWaterMark(protocol.getOutboundQueue().waterMark());
 
         var handshakePromise = this.handshakePromise;
         if (handshakePromise == null) {
@@ -75,32 +90,26 @@ public class ConnectionInitializer extends ChannelInitializer<Channel> {
         InboundPacketHandler defaultHandler = this.defaultHandlerSupplier.get();
 
         if (sslContext != null) {
-            pipeline.addLast(Ids.TLS_HANDLER, sslContext.newHandler(channel.alloc()));
+            var sslHandler = remoteAddress != null
+                    ? sslContext.newHandler(channel.alloc(), remoteAddress.getHostString(), remoteAddress.getPort())
+                    : sslContext.newHandler(channel.alloc());
+            pipeline.addLast(Ids.TLS_HANDLER, sslHandler);
+        }
+
+        if (protocol.isFrameCompression()) {
+            // compresses outbound frames below the packet encoder. Inbound frames are inflated by the packet decoder.
+            pipeline.addLast(Ids.COMPRESSION, new FrameCompressionCodec());
         }
 
-        // inbound channel pipeline
-        pipeline.addLast(Ids.FRAME_DECODER, new LengthFieldBasedFrameDecoder(
-                ByteOrder.BIG_ENDIAN, // API messages use BIG endian representation
-                65535, // API messages have a max size of UINT8_MAX
-                0, // size field is located at offset 0
-                2, // size field consists of two bytes
-                -2, // the size field is included in the length calculation, therefore we subtract it.
-                2, // amount of bytes stripped when forwarding message to the next handler! We remove the size field!
-                true
-        ));
+        // inbound channel pipeline. The packet decoder reads the length field as well.
         pipeline.addLast(Ids.DECODER, new PacketDecoder());
 
-        // outbound channel pipeline
-        pipeline.addLast(Ids.FRAME_ENCODER, new LengthFieldPrepender(
-                ByteOrder.BIG_ENDIAN,
-                2, // length of the length field
-                0, // zero length adjustments
-                true // size includes the length field itself!
-        ));
+        // outbound channel pipeline. The packet encoder writes the length field as well.
         pipeline.addLast(Ids.ENCODER, new PacketEncoder());
 
         if (this.registerInboundHandler) {
-            pipeline.addLast(new ChannelInboundHandler(defaultHandler, handshakePromise));
+            // a null executor group runs the handler on the event loop of the channel
+            pipeline.addLast(protocol.getHandlerExecutor(), null, new ChannelInboundHandler(defaultHandler, handshakePromise, protocol.getOutboundQueue()));
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package de.tum.gossip.net;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+
+import java.util.zip.Deflater;
+
+/**
+ * Compresses the contents of individual outbound frames using raw deflate. Sits between the TLS handler and the
+ * {@link PacketEncoder}, therefore the encoder always writes uncompressed frames.
+ * <p>
+ * A compressed frame is marked by the most significant bit of its packet id ({@link #COMPRESSED_FLAG})
+ * and carries the uncompressed length of the packet contents in front of the deflated contents:
+ * 2 byte length field, 2 byte packet id (flagged), 2 byte uncompressed content length and the deflated contents.
+ * Frames with small or incompressible contents are sent as is.
+ * <p>
+ * Inbound frames are inflated by the {@link PacketDecoder}, which always accepts compressed frames if the protocol
+ * supports frame compression. This way, uncompressed inbound frames are parsed in a single pass.
+ * Outbound compression must be enabled explicitly through {@link #enableCompression()}, once the remote peer
+ * negotiated the support for compressed frames.
+ */
+public class FrameCompressionCodec extends ChannelOutboundHandlerAdapter {
+    /**
+     * The flag within the packet id, marking a compressed frame.
+     */
+    public static final int COMPRESSED_FLAG = 0x8000;
+    /**
+     * Frames with less content bytes are never compressed.
+     */
+    public static final int MIN_COMPRESSION_SIZE = 256;
+
+    private static final int LENGTH_FIELD_SIZE = 2;
+    private static final int COMPRESSED_HEADER_SIZE = PacketEncoder.HEADER_SIZE + 2;
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+
+    private volatile boolean compressionEnabled;
+
+    /**
+     * Enables the compression of outbound frames.
+     */
+    public void enableCompression() {
+        this.compressionEnabled = true;
+    }
+
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (!compressionEnabled || !(msg instanceof ByteBuf frame)) {
+            ctx.write(msg, promise);
+            return;
+        }
+
+        int frameStart = frame.readerIndex();
+        int frameLength = frame.readableBytes();
+        int contentLength = frameLength - PacketEncoder.HEADER_SIZE;
+        // outbound buffers are expected to contain a single frame, anything else is passed on as is
+        if (contentLength < MIN_COMPRESSION_SIZE || frame.getUnsignedShort(frameStart) != frameLength) {
+            ctx.write(frame, promise);
+            return;
+        }
+
+        // incompressible contents are detected by running out of space before deflating the whole content
+        int maxCompressedLength = contentLength - 2 - 1;
+        ByteBuf compressed = ctx.alloc().directBuffer(COMPRESSED_HEADER_SIZE + maxCompressedLength);
+        boolean success = false;
+        try {
+            deflater.reset();
+            deflater.setInput(frame.nioBuffer(frameStart + PacketEncoder.HEADER_SIZE, contentLength));
+            deflater.finish();
+            int deflated = deflater.deflate(compressed.nioBuffer(COMPRESSED_HEADER_SIZE, maxCompressedLength));
+
+            if (!deflater.finished()) {
+                // doesn't benefit from compression, send the frame as is
+                ctx.write(frame, promise);
+                return;
+            }
+
+            int compressedFrameLength = COMPRESSED_HEADER_SIZE + deflated;
+            compressed.writeShort(compressedFrameLength);
+            compressed.writeShort(frame.getUnsignedShort(frameStart + LENGTH_FIELD_SIZE) | COMPRESSED_FLAG);
+            compressed.writeShort(contentLength);
+            compressed.writerIndex(compressedFrameLength);
+
+            frame.release();
+            success = true;
+            ctx.write(compressed, promise);
+        } finally {
+            if (!success) {
+                compressed.release();
+            }
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        deflater.end();
+    }
+}
@@ -3,35 +3,141 @@ package de.tum.gossip.net;
 import com.google.common.base.Preconditions;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.DecoderException;
+import io.netty.util.ReferenceCountUtil;
 
 import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 /**
+ * Decodes incoming frames into packets within a single pass: reads the 2 byte length field (including itself),
+ * the 2 byte packet id and deserializes the packet contents directly from the cumulation buffer.
+ * <p>
+ * While a packet is deserialized, the writer index of the cumulation is limited to the end of the frame,
+ * such that packets can consume "all readable bytes" without reading into the next frame.
+ * Retained slices taken by packets (see {@link de.tum.gossip.net.packets.PayloadPacket}) stay valid,
+ * as the cumulation is never modified in place while it is referenced elsewhere.
+ * <p>
+ * If the protocol supports frame compression (see {@link ProtocolDescription#withFrameCompression(boolean)}), frames
+ * flagged with {@link FrameCompressionCodec#COMPRESSED_FLAG} are inflated into a separate buffer and the packet is
+ * deserialized from there. Uncompressed frames are still deserialized directly from the cumulation.
+ * <p>
  * Created by Andi on 21.06.22.
  */
-public class PacketDecoder extends MessageToMessageDecoder<ByteBuf> {
+public class PacketDecoder extends ByteToMessageDecoder {
+    private static final int LENGTH_FIELD_SIZE = 2;
+
+    // created once the first compressed frame arrives. Only accessed by the event loop.
+    private Inflater inflater;
+
     @Override
-    protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
         ProtocolDescription protocol = ctx.channel().attr(ChannelInboundHandler.PROTOCOL_DESCRIPTION_KEY).get();
 
         Preconditions.checkState(protocol != null, "ProtocolDescription wasn't set for channel!");
 
-        if (msg.readableBytes() < 2) {
-            throw new Exception("Incoming packet has not enough bytes to hold the packet type!");
+        if (in.readableBytes() < LENGTH_FIELD_SIZE) {
+            return;
+        }
+
+        int frameStart = in.readerIndex();
+        // the size field is included in the length calculation. Being an unsigned short,
+        // frames are implicitly limited to PacketEncoder.MAX_FRAME_LENGTH bytes.
+        int frameLength = in.getUnsignedShort(frameStart);
+        if (frameLength < LENGTH_FIELD_SIZE) {
+            in.skipBytes(LENGTH_FIELD_SIZE);
+            throw new CorruptedFrameException("Adjusted frame length (" + frameLength + ") is less than lengthFieldEndOffset: " + LENGTH_FIELD_SIZE);
         }
 
-        int packetId = msg.readUnsignedShort();
+        if (in.readableBytes() < frameLength) {
+            return; // wait for the rest of the frame
+        }
+
+        int frameEnd = frameStart + frameLength;
+        int writerIndex = in.writerIndex();
+
+        in.skipBytes(LENGTH_FIELD_SIZE);
+        in.writerIndex(frameEnd);
+        try {
+            if (in.readableBytes() < 2) {
+                throw new Exception("Incoming packet has not enough bytes to hold the packet type!");
+            }
+
+            int packetId = in.readUnsignedShort();
+            if ((packetId & FrameCompressionCodec.COMPRESSED_FLAG) != 0 && protocol.isFrameCompression()) {
+                out.add(decodeCompressed(ctx, protocol, packetId & ~FrameCompressionCodec.COMPRESSED_FLAG, in));
+                return;
+            }
+
+            out.add(decodePacket(protocol, packetId, in));
+        } finally {
+            // the frame is always consumed, even if it couldn't be decoded.
+            in.writerIndex(writerIndex);
+            in.readerIndex(frameEnd);
+        }
+    }
+
+    /**
+     * Deserializes the packet from the provided contents, which must be consumed entirely.
+     */
+    private static Object decodePacket(ProtocolDescription protocol, int packetId, ByteBuf contents) throws Exception {
         var packet = protocol.newPacketInstanceFromInbound(packetId);
-        if (packet.isEmpty()) {
+        if (packet == null) {
             throw new Exception("Received unknown packet type: " + packetId);
         }
 
-        packet.get().deserialize(msg);
-        if (msg.readableBytes() > 0) {
-            throw new Exception("Incoming packet of type " + packet.get().getClass().getSimpleName() + " is not exhausted. Found additional " + msg.readableBytes() + " bytes!");
+        packet.deserialize(contents);
+        if (contents.readableBytes() > 0) {
+            ReferenceCountUtil.release(packet);
+            throw new Exception("Incoming packet of type " + packet.getClass().getSimpleName() + " is not exhausted. Found additional " + contents.readableBytes() + " bytes!");
         }
+        return packet;
+    }
 
-        out.add(packet.get());
+    /**
+     * Inflates the contents of a compressed frame and deserializes the packet from them.
+     * @param in - The frame, positioned after the packet id and limited to the end of the frame.
+     */
+    private Object decodeCompressed(ChannelHandlerContext ctx, ProtocolDescription protocol, int packetId, ByteBuf in) throws Exception {
+        if (in.readableBytes() < 2) {
+            throw new CorruptedFrameException("Compressed frame is too short to hold the uncompressed length!");
+        }
+
+        int contentLength = in.readUnsignedShort();
+        if (PacketEncoder.HEADER_SIZE + contentLength > PacketEncoder.MAX_FRAME_LENGTH) {
+            throw new CorruptedFrameException("Uncompressed frame length exceeds the maximum frame length: " + (PacketEncoder.HEADER_SIZE + contentLength));
+        }
+
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+
+        ByteBuf contents = ctx.alloc().directBuffer(contentLength, contentLength);
+        try {
+            inflater.reset();
+            inflater.setInput(in.nioBuffer());
+            int inflated = inflater.inflate(contents.nioBuffer(0, contentLength));
+            if (inflated != contentLength || !inflater.finished()) {
+                throw new CorruptedFrameException("Compressed frame didn't match its announced length of " + contentLength + " bytes!");
+            }
+            contents.writerIndex(contentLength);
+
+            return decodePacket(protocol, packetId, contents);
+        } catch (DataFormatException e) {
+            throw new DecoderException("Failed to decompress frame!", e);
+        } finally {
+            // packets retain the parts of the contents they hold on to
+            contents.release();
+        }
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) {
+        if (inflater != null) {
+            inflater.end();
+        }
     }
-}
\ No newline at end of file
+}
@@ -5,29 +5,88 @@ import de.tum.gossip.net.packets.OutboundPacket;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
-
-import java.util.Optional;
+import io.netty.util.ReferenceCountUtil;
 
 /**
+ * Encodes an {@link OutboundPacket} into a complete frame: the 2 byte length field (including itself),
+ * the 2 byte packet id and the packet contents.
+ * <p>
+ * The frame is written into a single, exactly sized direct buffer (see {@link OutboundPacket#serializedSize()}),
+ * so neither reallocations nor a separate buffer for the length field are required.
+ * <p>
  * Created by Andi on 21.06.22.
  */
 public class PacketEncoder extends MessageToByteEncoder<OutboundPacket> {
+    /**
+     * The size of the frame header: length field and packet id.
+     */
+    public static final int HEADER_SIZE = 4;
+    /**
+     * The maximum size of a frame (including the header), as the length field consists of two bytes.
+     */
+    public static final int MAX_FRAME_LENGTH = 65535;
+
+    /**
+     * @param packet - The packet to encode.
+     * @return The length of the frame containing the packet.
+     * @throws IllegalArgumentException If the packet doesn't fit into a single frame.
+     */
+    public static int frameLength(OutboundPacket packet) {
+        int frameLength = HEADER_SIZE + packet.serializedSize();
+        Preconditions.checkArgument(frameLength <= MAX_FRAME_LENGTH,
+                "Length of encoded packet %s exceeds the maximum frame length: %s", packet, frameLength);
+        return frameLength;
+    }
+
+    /**
+     * Writes the frame of the provided packet into the buffer.
+     * @param packetId - The packet id of the packet.
+     * @param packet - The packet to encode.
+     * @param frameLength - The frame length as returned by {@link #frameLength(OutboundPacket)}.
+     * @param out - The buffer to write to.
+     * @throws IllegalStateException If the packet wrote more or less bytes than it announced through {@link OutboundPacket#serializedSize()}.
+     */
+    public static void encodeFrame(int packetId, OutboundPacket packet, int frameLength, ByteBuf out) {
+        int start = out.writerIndex();
+
+        out.writeShort(frameLength); // size includes the length field itself!
+        out.writeShort(packetId);
+        packet.serialize(out);
+
+        int written = out.writerIndex() - start;
+        Preconditions.checkState(written == frameLength,
+                "Packet of type %s wrote %s bytes, but announced a frame length of %s bytes!", packet.getClass().getSimpleName(), written, frameLength);
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, OutboundPacket msg, boolean preferDirect) {
+        try {
+            int frameLength = frameLength(msg);
+            // the max capacity is fixed, so a packet writing more than it announced fails instead of growing the buffer.
+            return ctx.alloc().directBuffer(frameLength, frameLength);
+        } catch (Throwable e) {
+            // the encoder only takes care of the message once the buffer was allocated
+            ReferenceCountUtil.release(msg);
+            throw e;
+        }
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, OutboundPacket msg, ByteBuf out) throws Exception {
         ProtocolDescription protocol = ctx.channel().attr(ChannelInboundHandler.PROTOCOL_DESCRIPTION_KEY).get();
 
         Preconditions.checkState(protocol != null, "ProtocolDescription wasn't set for channel!");
 
-        Optional<Integer> packetId = protocol.packetIdFromPacket(msg);
-        if (packetId.isEmpty()) {
+        int packetId = protocol.packetIdFromPacket(msg);
+        if (packetId == ProtocolDescription.UNKNOWN_PACKET_ID) {
             throw new Exception("Tried to encode unregistered message type for packet: " + msg);
         }
 
-        out.writeShort(packetId.get());
         try {
-            msg.serialize(out);
+            // the buffer was allocated with the frame length as its max capacity, see `allocateBuffer`
+            encodeFrame(packetId, msg, out.maxCapacity(), out);
         } catch (Exception e) {
             throw new Exception("Error writing packet contents of type " + msg.getClass().getSimpleName() + " to buffer", e);
         }
     }
-}
\ No newline at end of file
+}
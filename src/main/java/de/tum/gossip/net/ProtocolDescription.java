@@ -4,38 +4,105 @@ import com.google.common.base.Preconditions;
 import de.tum.gossip.net.packets.InboundPacket;
 import de.tum.gossip.net.packets.InboundPacketHandler;
 import de.tum.gossip.net.packets.OutboundPacket;
+import de.tum.gossip.net.util.OutboundQueueConfiguration;
 import io.netty.channel.EventLoopGroup;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.util.concurrent.EventExecutorGroup;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.net.ssl.SSLException;
 import java.util.HashMap;
-import java.util.Optional;
+import java.util.Map;
 import java.util.function.Supplier;
 
 /**
  * The description of packets supported by a specific protocol.
  * <p>
+ * Packets are registered using the builder-style {@code register*} methods. On the first packet lookup
+ * the registrations are compiled into an immutable {@link PacketTable}, which serves all lookups
+ * without boxing or allocations. The protocol is frozen from that point on and doesn't accept any further registrations.
+ * Clones of a frozen protocol share the same table.
+ * <p>
  * Created by Andi on 21.06.22.
  */
 public class ProtocolDescription implements Cloneable {
+    /**
+     * Returned by {@link #packetIdFromPacket(OutboundPacket)} if the packet type isn't registered.
+     */
+    public static final int UNKNOWN_PACKET_ID = -1;
+
+    /**
+     * The compiled, read-only form of the packet registrations.
+     */
+    private static final class PacketTable {
+        // indexed by the packet id and sized by the largest registered id. Ids are limited to the unsigned short range
+        // of the packet id field, therefore the array holds at most 65536 references.
+        private final Supplier<? extends InboundPacket<? extends InboundPacketHandler>>[] inboundPacketSuppliers;
+        private final ClassValue<Integer> outboundPacketIds;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        PacketTable(
+                Map<Integer, Supplier<? extends InboundPacket<? extends InboundPacketHandler>>> inboundPacketSuppliers,
+                Map<Class<? extends OutboundPacket>, Integer> outboundPacketIds
+        ) {
+            int maxPacketId = inboundPacketSuppliers.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1);
+
+            this.inboundPacketSuppliers = new Supplier[maxPacketId + 1];
+            for (var entry: inboundPacketSuppliers.entrySet()) {
+                this.inboundPacketSuppliers[entry.getKey()] = entry.getValue();
+            }
+
+            var outboundIds = Map.copyOf(outboundPacketIds);
+            this.outboundPacketIds = new ClassValue<>() {
+                @Override
+                protected Integer computeValue(Class<?> type) {
+                    return outboundIds.getOrDefault(type, UNKNOWN_PACKET_ID);
+                }
+            };
+        }
+
+        @Nullable
+        InboundPacket<? extends InboundPacketHandler> newInboundPacket(int packetId) {
+            if (packetId < 0 || packetId >= inboundPacketSuppliers.length) {
+                return null;
+            }
+
+            var supplier = inboundPacketSuppliers[packetId];
+            return supplier != null ? supplier.get() : null;
+        }
+
+        int outboundPacketId(Class<? extends OutboundPacket> type) {
+            return outboundPacketIds.get(type);
+        }
+    }
+
     private HashMap<Integer, Supplier<? extends InboundPacket<? extends InboundPacketHandler>>> inboundPacketSuppliers = new HashMap<>();
     private HashMap<Class<? extends OutboundPacket>, Integer> outboundPacketIds = new HashMap<>();
+    @Nullable
+    private volatile PacketTable packetTable;
 
     @Nullable
     private SslContext sslContext;
+    private OutboundQueueConfiguration outboundQueue = OutboundQueueConfiguration.defaults();
+    @Nullable
+    private EventExecutorGroup handlerExecutor;
+    private boolean frameCompression;
 
     public ProtocolDescription() {}
 
     public <P extends InboundPacket<? extends InboundPacketHandler>> ProtocolDescription registerInbound(Integer packetId, Supplier<P> packetConstructor) {
+        checkNotFrozen();
+        Preconditions.checkArgument(packetId >= 0 && packetId <= 0xFFFF, "Packet id %s isn't an unsigned short!", packetId);
         var previous = inboundPacketSuppliers.put(packetId, packetConstructor);
         Preconditions.checkState(previous == null, "Tried overwriting existing inbound packet for packetId %d!", packetId);
         return this;
     }
 
     public <P extends OutboundPacket> ProtocolDescription registerOutbound(Integer packetId, Supplier<P> packetConstructor) {
+        checkNotFrozen();
+        Preconditions.checkArgument(packetId >= 0 && packetId <= 0xFFFF, "Packet id %s isn't an unsigned short!", packetId);
         // Java doesn't provide a way to access/use the generic type `P`. Therefore, we
         // do this workaround below, where we instantiate a single packet to derive its class type!
         // This is okay, as the provided Supplier shouldn't create any side effects.
@@ -54,23 +121,53 @@ public class ProtocolDescription implements Cloneable {
         return this;
     }
 
-    public Optional<InboundPacket<? extends InboundPacketHandler>> newPacketInstanceFromInbound(Integer packetId) {
-        Supplier<? extends InboundPacket<? extends InboundPacketHandler>> packetSupplier;
+    /**
+     * Compiles the current registrations into the {@link PacketTable}. No registrations are accepted afterwards.
+     * This is done automatically on the first packet lookup.
+     * @return Returns this instance.
+     */
+    public ProtocolDescription freeze() {
+        packetTable();
+        return this;
+    }
 
-        packetSupplier = inboundPacketSuppliers.get(packetId);
+    public boolean isFrozen() {
+        return packetTable != null;
+    }
 
-        if (packetSupplier == null) {
-            return Optional.empty();
-        }
+    /**
+     * @param packetId - The packet id of an inbound packet.
+     * @return Returns a new, empty instance of the registered packet. Returns null if the packet id is unknown.
+     */
+    public @Nullable InboundPacket<? extends InboundPacketHandler> newPacketInstanceFromInbound(int packetId) {
+        return packetTable().newInboundPacket(packetId);
+    }
 
-        InboundPacket<? extends InboundPacketHandler> packet = packetSupplier.get();
+    /**
+     * @param packet - The outbound packet.
+     * @return Returns the packet id registered for the type of the provided packet.
+     *  Returns {@link #UNKNOWN_PACKET_ID} if the type isn't registered.
+     */
+    public int packetIdFromPacket(OutboundPacket packet) {
+        return packetTable().outboundPacketId(packet.getClass());
+    }
 
-        return Optional.of(packet);
+    private PacketTable packetTable() {
+        var table = packetTable;
+        if (table == null) {
+            synchronized (this) {
+                table = packetTable;
+                if (table == null) {
+                    table = new PacketTable(inboundPacketSuppliers, outboundPacketIds);
+                    packetTable = table;
+                }
+            }
+        }
+        return table;
     }
 
-    public <P extends OutboundPacket> Optional<Integer> packetIdFromPacket(P packet) {
-        Integer packetId = outboundPacketIds.get(packet.getClass());
-        return Optional.ofNullable(packetId);
+    private void checkNotFrozen() {
+        Preconditions.checkState(packetTable == null, "Tried to register a packet after the protocol was frozen!");
     }
 
     public ProtocolDescription withSslContext(SslContextBuilder builder) {
@@ -90,12 +187,71 @@ public class ProtocolDescription implements Cloneable {
         return sslContext;
     }
 
+    /**
+     * @param outboundQueue - The backpressure configuration applied to every channel of this protocol.
+     * @return Returns this instance.
+     */
+    public ProtocolDescription withOutboundQueue(@NonNull OutboundQueueConfiguration outboundQueue) {
+        this.outboundQueue = Preconditions.checkNotNull(outboundQueue);
+        return this;
+    }
+
+    public OutboundQueueConfiguration getOutboundQueue() {
+        return outboundQueue;
+    }
+
+    /**
+     * Moves the {@link ChannelInboundHandler}, and therefore all protocol logic, off the I/O threads.
+     * Every channel is pinned to a single executor of the group, so events of a channel are still handled in order.
+     * @param handlerExecutor - The executor group running the packet handlers, or null to run them on the channel's event loop.
+     * @return Returns this instance.
+     */
+    public ProtocolDescription withHandlerExecutor(@Nullable EventExecutorGroup handlerExecutor) {
+        this.handlerExecutor = handlerExecutor;
+        return this;
+    }
+
+    public @Nullable EventExecutorGroup getHandlerExecutor() {
+        return handlerExecutor;
+    }
+
+    /**
+     * Installs the {@link FrameCompressionCodec} into the pipeline of every channel and lets the {@link PacketDecoder}
+     * accept compressed frames. Outbound compression is only enabled through
+     * {@link ChannelInboundHandler#enableFrameCompression()}, once negotiated with the remote peer.
+     * Packet ids must not use the {@link FrameCompressionCodec#COMPRESSED_FLAG} bit.
+     * @param frameCompression - True to support compressed frames.
+     * @return Returns this instance.
+     */
+    public ProtocolDescription withFrameCompression(boolean frameCompression) {
+        this.frameCompression = frameCompression;
+        return this;
+    }
+
+    public boolean isFrameCompression() {
+        return frameCompression;
+    }
+
     public <Handler extends InboundPacketHandler> TCPServer makeServer(int port, EventLoopGroup eventLoopGroup, Supplier<Handler> defaultHandler) {
         return this.makeServer(null, port, eventLoopGroup, defaultHandler);
     }
 
     public <Handler extends InboundPacketHandler> TCPServer makeServer(@Nullable String hostname, int port, EventLoopGroup eventLoopGroup, Supplier<Handler> defaultHandler) {
-        return new TCPServer(hostname, port, eventLoopGroup, this, defaultHandler);
+        return this.makeServer(hostname, port, eventLoopGroup, eventLoopGroup, defaultHandler);
+    }
+
+    /**
+     * @param bossGroup - The event loop group accepting incoming connections.
+     * @param workerGroup - The event loop group serving the I/O of accepted connections.
+     */
+    public <Handler extends InboundPacketHandler> TCPServer makeServer(
+            @Nullable String hostname,
+            int port,
+            EventLoopGroup bossGroup,
+            EventLoopGroup workerGroup,
+            Supplier<Handler> defaultHandler
+    ) {
+        return new TCPServer(hostname, port, bossGroup, workerGroup, this, defaultHandler);
     }
 
     public <Handler extends InboundPacketHandler> TCPClient makeClient(String hostname, int port, EventLoopGroup eventLoopGroup, Supplier<Handler> defaultHandler) {
@@ -3,15 +3,16 @@ package de.tum.gossip.net;
 import com.google.common.base.Preconditions;
 import de.tum.gossip.net.packets.InboundPacketHandler;
 import de.tum.gossip.net.util.ChannelState;
+import de.tum.gossip.net.util.NetworkTransport;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.Promise;
 
+import java.net.InetSocketAddress;
 import java.util.function.Supplier;
 
 /**
@@ -62,14 +63,17 @@ public class TCPClient {
             this.handshakePromise = eventLoopGroup.next().newPromise();
         }
 
+        NetworkTransport transport = NetworkTransport.of(eventLoopGroup);
+
         Bootstrap bootstrap = new Bootstrap();
         bootstrap
                 .group(eventLoopGroup)
-                .channel(NioSocketChannel.class)
+                .channel(transport.socketChannelClass())
                 .option(ChannelOption.TCP_NODELAY, true)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000)
                 .option(ChannelOption.SO_KEEPALIVE, true)
-                .handler(new ConnectionInitializer(protocol, defaultHandlerSupplier, handshakePromise));
+                .handler(new ConnectionInitializer(protocol, defaultHandlerSupplier, handshakePromise, true, InetSocketAddress.createUnresolved(hostname, port)));
+        transport.applyOptions(bootstrap);
 
         return bootstrap.connect(hostname, port)
                 .addListener(future -> {
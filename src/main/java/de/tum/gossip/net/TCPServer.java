@@ -3,12 +3,12 @@ package de.tum.gossip.net;
 import com.google.common.base.Preconditions;
 import de.tum.gossip.net.packets.InboundPacketHandler;
 import de.tum.gossip.net.util.ChannelState;
+import de.tum.gossip.net.util.NetworkTransport;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.util.concurrent.Future;
 import org.jetbrains.annotations.Nullable;
 
@@ -20,7 +20,8 @@ import java.util.function.Supplier;
 public class TCPServer {
     public final String hostname;
     public final int port;
-    private final EventLoopGroup eventLoopGroup;
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workerGroup;
 
     private final ProtocolDescription protocol;
     private final Supplier<? extends InboundPacketHandler> defaultHandlerSupplier;
@@ -31,11 +32,14 @@ public class TCPServer {
     TCPServer(
             @Nullable String hostname,
             int port,
-            EventLoopGroup eventLoopGroup,
+            EventLoopGroup bossGroup,
+            EventLoopGroup workerGroup,
             ProtocolDescription protocol, Supplier<? extends InboundPacketHandler> defaultHandlerSupplier) {
+        Preconditions.checkArgument(NetworkTransport.of(bossGroup) == NetworkTransport.of(workerGroup), "Boss and worker group must use the same transport!");
         this.hostname = hostname;
         this.port = port;
-        this.eventLoopGroup = eventLoopGroup;
+        this.bossGroup = bossGroup;
+        this.workerGroup = workerGroup;
         this.protocol = protocol;
         this.defaultHandlerSupplier = defaultHandlerSupplier;
     }
@@ -47,14 +51,17 @@ public class TCPServer {
 
         state = ChannelState.CONNECTING;
 
+        NetworkTransport transport = NetworkTransport.of(workerGroup);
+
         ServerBootstrap bootstrap = new ServerBootstrap();
         bootstrap
-                .group(eventLoopGroup)
-                .channel(NioServerSocketChannel.class)
+                .group(bossGroup, workerGroup)
+                .channel(transport.serverChannelClass())
                 .childOption(ChannelOption.TCP_NODELAY, true)
                 .childOption(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000)
                 .childOption(ChannelOption.SO_KEEPALIVE, true)
                 .childHandler(new ConnectionInitializer(protocol, defaultHandlerSupplier, null));
+        transport.applyOptions(bootstrap);
 
         return (hostname != null && !hostname.isEmpty() ? bootstrap.bind(hostname, port) : bootstrap.bind(port))
                 .addListener(future -> {
@@ -80,7 +87,7 @@ public class TCPServer {
      */
     public synchronized Future<Void> stop() {
         if (state == ChannelState.FREE) {
-            return eventLoopGroup.next().newSucceededFuture(null);
+            return bossGroup.next().newSucceededFuture(null);
         }
 
         if (state != ChannelState.CONNECTED) {
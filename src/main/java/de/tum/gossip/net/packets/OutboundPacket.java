@@ -9,4 +9,20 @@ import io.netty.buffer.ByteBuf;
  */
 public interface OutboundPacket extends SomePacket {
     void serialize(ByteBuf byteBuf);
+
+    /**
+     * The exact amount of bytes written by {@link #serialize(ByteBuf)} (excluding the frame header).
+     * Used to allocate exactly sized buffers when encoding the packet.
+     * @return The serialized size of the packet contents in bytes.
+     */
+    int serializedSize();
+
+    /**
+     * Droppable packets may be discarded if the outbound queue of a channel overflows
+     * (see {@link de.tum.gossip.net.util.OutboundQueueConfiguration}). Control packets must never be droppable.
+     * @return True if the packet may be dropped under backpressure.
+     */
+    default boolean isDroppable() {
+        return false;
+    }
 }
\ No newline at end of file
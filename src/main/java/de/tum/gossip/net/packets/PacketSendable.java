@@ -12,12 +12,28 @@ public interface PacketSendable {
     default <P extends OutboundPacket> void sendPacket(
             P packet
     ) {
-        // noinspection unchecked
-        sendPacket(packet, new GenericFutureListener[] {});
+        sendPacket(packet, listeners());
+    }
+
+    /**
+     * Sends the packet and notifies the provided listener once the packet was sent or failed.
+     */
+    default <P extends OutboundPacket> void sendPacket(
+            P packet,
+            GenericFutureListener<? extends Future<? super Void>> genericFutureListener
+    ) {
+        sendPacket(packet, listeners(genericFutureListener));
     }
 
     <P extends OutboundPacket> void sendPacket(
             P packet,
             GenericFutureListener<? extends Future<? super Void>>[] genericFutureListeners
     );
+
+    @SafeVarargs
+    private static GenericFutureListener<? extends Future<? super Void>>[] listeners(
+            GenericFutureListener<? extends Future<? super Void>>... genericFutureListeners
+    ) {
+        return genericFutureListeners;
+    }
 }
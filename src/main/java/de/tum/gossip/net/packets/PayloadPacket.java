@@ -0,0 +1,58 @@
+package de.tum.gossip.net.packets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCounted;
+
+/**
+ * A packet which carries a reference counted {@link ByteBuf} payload. All {@link ReferenceCounted} operations
+ * are delegated to the payload.
+ * <p>
+ * Inbound instances are released once they were dispatched by the {@link de.tum.gossip.net.ChannelInboundHandler}.
+ * Outbound instances are released once they were encoded into the channel. Therefore, when sending the same
+ * instance to multiple channels, every send must be supplied with its own reference (see {@link #retain()}).
+ */
+public interface PayloadPacket extends ReferenceCounted {
+    /**
+     * @return The reference counted payload of the packet.
+     */
+    ByteBuf payload();
+
+    @Override
+    default int refCnt() {
+        return payload().refCnt();
+    }
+
+    @Override
+    default PayloadPacket retain() {
+        payload().retain();
+        return this;
+    }
+
+    @Override
+    default PayloadPacket retain(int increment) {
+        payload().retain(increment);
+        return this;
+    }
+
+    @Override
+    default PayloadPacket touch() {
+        payload().touch();
+        return this;
+    }
+
+    @Override
+    default PayloadPacket touch(Object hint) {
+        payload().touch(hint);
+        return this;
+    }
+
+    @Override
+    default boolean release() {
+        return payload().release();
+    }
+
+    @Override
+    default boolean release(int decrement) {
+        return payload().release(decrement);
+    }
+}
@@ -0,0 +1,164 @@
+package de.tum.gossip.net.packets;
+
+import com.google.common.base.Preconditions;
+import de.tum.gossip.net.PacketEncoder;
+import de.tum.gossip.net.ProtocolDescription;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCountUtil;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An {@link OutboundPacket} which was already encoded into its wire format (length field, packet id and packet contents).
+ * <p>
+ * This is used when sending the same packet to many channels (e.g. spreading knowledge into the network).
+ * The packet is encoded once via {@link #encode(ProtocolDescription, OutboundPacket, ByteBufAllocator)}
+ * and every channel receives its own {@link #retainedDuplicate()}. The {@link de.tum.gossip.net.ChannelInboundHandler}
+ * writes the frame as is, bypassing the packet and frame encoders of the pipeline.
+ * <p>
+ * Duplicates differing in a few bytes (see {@link #retainedDuplicate(int, byte[])}) carry a copy of the start of the frame
+ * as a separate {@link #header()}. The header and the shared remainder of the frame are written back to back.
+ * <p>
+ * Like any other {@link PayloadPacket}, every instance passed to a send operation is released once it was written.
+ */
+public class PreEncodedPacket implements OutboundPacket, PayloadPacket {
+    @Nullable
+    private final byte[] header;
+    private final ByteBuf frame;
+    private final Class<? extends OutboundPacket> packetType;
+    private final boolean droppable;
+
+    private PreEncodedPacket(@Nullable byte[] header, ByteBuf frame, Class<? extends OutboundPacket> packetType, boolean droppable) {
+        this.header = header;
+        this.frame = frame;
+        this.packetType = packetType;
+        this.droppable = droppable;
+    }
+
+    /**
+     * Encodes the provided packet into a new frame.
+     * @param protocol - The protocol used to derive the packet id. Every channel the packet is sent to must use the same packet ids.
+     * @param packet - The packet to encode. Reference counted packets are released once encoded, same as being written to a channel.
+     * @param allocator - The allocator used to allocate the frame buffer.
+     * @return The encoded packet, owning a single reference to the frame.
+     */
+    public static PreEncodedPacket encode(ProtocolDescription protocol, OutboundPacket packet, ByteBufAllocator allocator) {
+        try {
+            int packetId = protocol.packetIdFromPacket(packet);
+            Preconditions.checkArgument(packetId != ProtocolDescription.UNKNOWN_PACKET_ID,
+                    "Tried to encode unregistered message type for packet: %s", packet);
+
+            int frameLength = PacketEncoder.frameLength(packet);
+            ByteBuf frame = allocator.directBuffer(frameLength, frameLength);
+            try {
+                PacketEncoder.encodeFrame(packetId, packet, frameLength, frame);
+            } catch (RuntimeException e) {
+                frame.release();
+                throw e;
+            }
+
+            return new PreEncodedPacket(null, frame, packet.getClass(), packet.isDroppable());
+        } finally {
+            ReferenceCountUtil.release(packet);
+        }
+    }
+
+    /**
+     * @return The start of the frame, to be written ahead of the {@link #frame()}.
+     * Null, unless the packet was created through {@link #retainedDuplicate(int, byte[])}.
+     */
+    public @Nullable ByteBuf header() {
+        return header == null ? null : Unpooled.wrappedBuffer(header);
+    }
+
+    /**
+     * @return The encoded frame, including the length field. If the packet has a {@link #header()}, only the remainder of the frame.
+     */
+    public ByteBuf frame() {
+        return frame;
+    }
+
+    /**
+     * @return The type of the packet contained in the frame.
+     */
+    public Class<? extends OutboundPacket> packetType() {
+        return packetType;
+    }
+
+    /**
+     * @param type - Some packet type or interface.
+     * @return True if the packet contained in the frame is an instance of the provided type.
+     */
+    public boolean isOf(Class<?> type) {
+        return type.isAssignableFrom(packetType);
+    }
+
+    /**
+     * Creates a new instance sharing the same frame, but owning a separate reference and reader index.
+     * @return The duplicate, which must be sent or released by the caller.
+     */
+    public PreEncodedPacket retainedDuplicate() {
+        return new PreEncodedPacket(header, frame.retainedDuplicate(), packetType, droppable);
+    }
+
+    /**
+     * Creates a new instance whose frame differs in a few bytes (e.g. an id specific to the receiving channel).
+     * The frame up to the end of the patched region (at least the frame header) is copied into the {@link #header()},
+     * the remainder of the frame is shared.
+     * @param offset - The offset of the patched region, relative to the start of the frame.
+     * @param patch - The bytes replacing the frame contents at the offset.
+     * @return The duplicate, which must be sent or released by the caller.
+     */
+    public PreEncodedPacket retainedDuplicate(int offset, byte[] patch) {
+        Preconditions.checkState(header == null, "Cannot patch an already patched packet!");
+        int end = Math.max(offset + patch.length, PacketEncoder.HEADER_SIZE);
+        Preconditions.checkArgument(offset >= 0 && end <= frame.readableBytes(), "Patch exceeds the frame!");
+
+        byte[] patchedHeader = new byte[end];
+        frame.getBytes(frame.readerIndex(), patchedHeader);
+        System.arraycopy(patch, 0, patchedHeader, offset, patch.length);
+
+        ByteBuf remainder = frame.retainedSlice(frame.readerIndex() + end, frame.readableBytes() - end);
+        return new PreEncodedPacket(patchedHeader, remainder, packetType, droppable);
+    }
+
+    /**
+     * Copies the packet contents (the frame without its header) into the provided buffer.
+     * Typically, the frame is written as is, this is only used if the packet passes through a regular encoder.
+     */
+    @Override
+    public void serialize(ByteBuf byteBuf) {
+        if (header == null) {
+            byteBuf.writeBytes(frame, frame.readerIndex() + PacketEncoder.HEADER_SIZE, serializedSize());
+            return;
+        }
+
+        byteBuf.writeBytes(header, PacketEncoder.HEADER_SIZE, header.length - PacketEncoder.HEADER_SIZE);
+        byteBuf.writeBytes(frame, frame.readerIndex(), frame.readableBytes());
+    }
+
+    @Override
+    public int serializedSize() {
+        return frameLength() - PacketEncoder.HEADER_SIZE;
+    }
+
+    private int frameLength() {
+        return (header == null ? 0 : header.length) + frame.readableBytes();
+    }
+
+    @Override
+    public boolean isDroppable() {
+        return droppable;
+    }
+
+    @Override
+    public ByteBuf payload() {
+        return frame;
+    }
+
+    @Override
+    public String toString() {
+        return "PreEncodedPacket{" + packetType.getSimpleName() + ", " + frameLength() + " bytes}";
+    }
+}
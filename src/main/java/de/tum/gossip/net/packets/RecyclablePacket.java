@@ -0,0 +1,21 @@
+package de.tum.gossip.net.packets;
+
+/**
+ * An {@link InboundPacket} whose instances are pooled (e.g. using netty's {@link io.netty.util.Recycler}).
+ * This is an opt-in for packets received at high rates. Such packets register a {@code newInstance}
+ * factory with the {@link de.tum.gossip.net.ProtocolDescription} which takes instances from the pool.
+ * <p>
+ * The {@link de.tum.gossip.net.ChannelInboundHandler} recycles the packet once it was dispatched
+ * (and released, see {@link PayloadPacket}). Therefore, packet handlers must not keep a reference to the
+ * packet instance beyond the call of the handler method. Instances created through the public constructor
+ * aren't backed by the pool and recycling them has no effect.
+ * <p>
+ * Pooling can be disabled globally using {@code -Dio.netty.recycler.maxCapacityPerThread=0}.
+ */
+public interface RecyclablePacket {
+    /**
+     * Resets the packet state and returns the instance to its pool.
+     * The instance must not be accessed afterwards.
+     */
+    void recycle();
+}
@@ -3,6 +3,7 @@ package de.tum.gossip.net.util;
 import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 
 /**
  * Created by Andi on 27.06.22.
@@ -22,6 +23,18 @@ public class ByteBufUtils {
         } while (value != 0);
     }
 
+    /**
+     * @param value - The value to encode.
+     * @return The amount of bytes written by {@link #writeVarInt(ByteBuf, int)} for the given value.
+     */
+    public static int varIntSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
     public static int readVarInt(ByteBuf buf) {
         int out = 0;
         int bytes = 0;
@@ -47,6 +60,15 @@ public class ByteBufUtils {
         buf.writeBytes(bytes);
     }
 
+    /**
+     * @param value - The string to encode.
+     * @return The amount of bytes written by {@link #writeString(ByteBuf, String)} for the given string.
+     */
+    public static int stringSize(String value) {
+        int length = ByteBufUtil.utf8Bytes(value);
+        return varIntSize(length) + length;
+    }
+
     public static String readString(ByteBuf buf) {
         int length = ByteBufUtils.readVarInt(buf);
         Preconditions.checkArgument(length <= Short.MAX_VALUE, "Cannot receive string longer than Short.MAX_VALUE (got %s characters)", length);
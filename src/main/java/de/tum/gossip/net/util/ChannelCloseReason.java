@@ -103,6 +103,16 @@ public abstract class ChannelCloseReason {
         }
     }
 
+    /**
+     * A {@link ChannelCloseReason} signalling that the outbound queue of the channel overflowed
+     * (see {@link OutboundQueueConfiguration.OverflowPolicy#DISCONNECT}).
+     */
+    public static class Busy extends LocationCapturing {
+        public Busy(int capacity) {
+            super("Outbound queue exceeded its capacity of " + capacity + " packets!");
+        }
+    }
+
     protected ChannelCloseReason() {}
 
     public void handleBeforeClose(ChannelInboundHandler channel, Logger logger) {
@@ -0,0 +1,112 @@
+package de.tum.gossip.net.util;
+
+import com.google.common.base.Preconditions;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Incrementally reassembles chunked messages received over a single connection.
+ * Chunks of a message must arrive in order, while chunks of different messages may interleave.
+ * <p>
+ * Memory is bounded twofold: a single message may not exceed {@link #maxMessageSize()} bytes
+ * and all incomplete messages together may not exceed {@link #maxPendingBytes()} bytes.
+ * <p>
+ * Instances are not thread safe and are expected to be used from the executor of the connection.
+ * @param <K> - The type identifying the message a chunk belongs to.
+ */
+public class ChunkReassembler<K> {
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = 1024 * 1024;
+    public static final int DEFAULT_MAX_PENDING_BYTES = 4 * DEFAULT_MAX_MESSAGE_SIZE;
+
+    public static class InvalidChunkException extends Exception {
+        public InvalidChunkException(String message) {
+            super(message);
+        }
+    }
+
+    private final int maxMessageSize;
+    private final int maxPendingBytes;
+    private final Map<K, ByteBuf> pending = new HashMap<>();
+    private int pendingBytes;
+
+    public ChunkReassembler() {
+        this(DEFAULT_MAX_MESSAGE_SIZE, DEFAULT_MAX_PENDING_BYTES);
+    }
+
+    public ChunkReassembler(int maxMessageSize, int maxPendingBytes) {
+        Preconditions.checkArgument(maxMessageSize > 0 && maxMessageSize <= maxPendingBytes);
+        this.maxMessageSize = maxMessageSize;
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
+    public int maxMessageSize() {
+        return maxMessageSize;
+    }
+
+    public int maxPendingBytes() {
+        return maxPendingBytes;
+    }
+
+    /**
+     * @return The amount of bytes reserved for incomplete messages.
+     */
+    public int pendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * Appends a chunk to its message.
+     * @param key - The key of the message.
+     * @param totalLength - The total length of the message. Must be the same for every chunk of a message.
+     * @param offset - The offset of the chunk within the message. Must directly follow the previous chunk.
+     * @param chunk - The chunk contents. It is copied, the caller keeps ownership.
+     * @return The complete message, once the last chunk arrived. The caller owns the returned reference.
+     * @throws InvalidChunkException If the chunk doesn't match the message or the memory bounds are exceeded.
+     */
+    public @Nullable ByteBuf append(K key, int totalLength, int offset, ByteBuf chunk) throws InvalidChunkException {
+        ByteBuf message = pending.get(key);
+        if (message == null) {
+            if (offset != 0) {
+                throw new InvalidChunkException("Received chunk at offset " + offset + " of an unknown message!");
+            }
+            if (totalLength <= 0 || totalLength > maxMessageSize) {
+                throw new InvalidChunkException("Chunked message length " + totalLength + " exceeds the maximum of " + maxMessageSize + " bytes!");
+            }
+            if (pendingBytes + totalLength > maxPendingBytes) {
+                throw new InvalidChunkException("Exceeded the maximum of " + maxPendingBytes + " bytes of incomplete chunked messages!");
+            }
+
+            message = ByteBufAllocator.DEFAULT.directBuffer(totalLength, totalLength);
+            pending.put(key, message);
+            pendingBytes += totalLength;
+        } else if (message.capacity() != totalLength || message.writerIndex() != offset) {
+            throw new InvalidChunkException("Received chunk at offset " + offset + " which doesn't continue the message!");
+        }
+
+        if (chunk.readableBytes() > totalLength - offset) {
+            throw new InvalidChunkException("Received chunk exceeding the message length of " + totalLength + " bytes!");
+        }
+
+        message.writeBytes(chunk, chunk.readerIndex(), chunk.readableBytes());
+        if (message.isWritable()) {
+            return null;
+        }
+
+        pending.remove(key);
+        pendingBytes -= totalLength;
+        return message;
+    }
+
+    /**
+     * Releases all incomplete messages.
+     */
+    public void release() {
+        pending.values().forEach(ByteBuf::release);
+        pending.clear();
+        pendingBytes = 0;
+    }
+}
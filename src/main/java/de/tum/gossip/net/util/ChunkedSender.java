@@ -0,0 +1,120 @@
+package de.tum.gossip.net.util;
+
+import com.google.common.base.Preconditions;
+import de.tum.gossip.net.packets.OutboundPacket;
+import de.tum.gossip.net.packets.PacketSendable;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+
+/**
+ * Sends a message exceeding a single frame as a sequence of chunks, to be reassembled by a {@link ChunkReassembler}.
+ * <p>
+ * Chunks are pipelined: at most {@link #WINDOW} chunks are in flight and the next chunk is only handed to the
+ * channel once a previous one was written. Therefore, packets of other messages interleave with the chunks
+ * and a single large message can't block a connection. Sending stops with the first failed chunk.
+ */
+public class ChunkedSender implements GenericFutureListener<Future<? super Void>> {
+    /**
+     * The maximum amount of message bytes contained within a single chunk.
+     */
+    public static final int CHUNK_SIZE = 32 * 1024;
+    /**
+     * The maximum amount of chunks written concurrently.
+     */
+    public static final int WINDOW = 2;
+
+    /**
+     * Creates the packet carrying a single chunk.
+     */
+    @FunctionalInterface
+    public interface ChunkFactory {
+        /**
+         * @param totalLength - The total length of the message.
+         * @param offset - The offset of the chunk within the message.
+         * @param chunk - The chunk contents. The packet takes ownership of the provided reference.
+         * @return The packet carrying the chunk.
+         */
+        OutboundPacket newChunk(int totalLength, int offset, ByteBuf chunk);
+    }
+
+    private final PacketSendable target;
+    private final ByteBuf data;
+    private final ChunkFactory factory;
+    private final int totalLength;
+
+    // below fields are guarded by `this`
+    private int nextOffset;
+    private boolean done;
+
+    private ChunkedSender(PacketSendable target, ByteBuf data, ChunkFactory factory) {
+        this.target = target;
+        this.data = data;
+        this.factory = factory;
+        this.totalLength = data.readableBytes();
+    }
+
+    /**
+     * Starts sending the message in chunks.
+     * @param target - The target to send the chunks to.
+     * @param data - The message. The sender takes ownership of the provided reference.
+     * @param factory - Creates the packet for every chunk.
+     */
+    public static void send(PacketSendable target, ByteBuf data, ChunkFactory factory) {
+        Preconditions.checkArgument(data.isReadable(), "Cannot send an empty message in chunks!");
+        var sender = new ChunkedSender(target, data, factory);
+        for (int i = 0; i < WINDOW; i++) {
+            if (!sender.sendNextChunk()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @param totalLength - The total length of a message.
+     * @return The amount of chunks the message is split into.
+     */
+    public static int chunkCount(int totalLength) {
+        return (totalLength + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    private boolean sendNextChunk() {
+        OutboundPacket packet;
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+
+            int offset = nextOffset;
+            int length = Math.min(CHUNK_SIZE, totalLength - offset);
+            nextOffset += length;
+
+            packet = factory.newChunk(totalLength, offset, data.retainedSlice(data.readerIndex() + offset, length));
+            if (nextOffset == totalLength) {
+                finish();
+            }
+        }
+
+        target.sendPacket(packet, this);
+        return true;
+    }
+
+    private void finish() {
+        done = true;
+        data.release();
+    }
+
+    @Override
+    public void operationComplete(Future<? super Void> future) {
+        if (future.isSuccess()) {
+            sendNextChunk();
+            return;
+        }
+
+        synchronized (this) {
+            if (!done) {
+                finish();
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package de.tum.gossip.net.util;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Describes the netty transport implementation used by a {@link de.tum.gossip.net.TCPServer}
+ * or a {@link de.tum.gossip.net.TCPClient}.
+ * <p>
+ * On linux based machines we prefer the native epoll transport (edge-triggered I/O, fewer syscalls and access
+ * to epoll-only socket options). On every other platform we fall back to the java NIO transport.
+ * The transport of a channel is always derived from the {@link EventLoopGroup} it is registered to,
+ * see {@link #of(EventLoopGroup)}.
+ */
+public enum NetworkTransport {
+    EPOLL,
+    NIO,
+    ;
+
+    /**
+     * @return Returns the best transport available on the current machine.
+     */
+    public static NetworkTransport preferred() {
+        return EPOLL.isAvailable() ? EPOLL : NIO;
+    }
+
+    /**
+     * @param eventLoopGroup - The event loop group channels are going to be registered to.
+     * @return Returns the transport matching the provided {@link EventLoopGroup}.
+     */
+    public static NetworkTransport of(EventLoopGroup eventLoopGroup) {
+        if (eventLoopGroup instanceof EpollEventLoopGroup) {
+            return EPOLL;
+        }
+        return NIO;
+    }
+
+    public boolean isAvailable() {
+        return switch (this) {
+            case EPOLL -> Epoll.isAvailable();
+            case NIO -> true;
+        };
+    }
+
+    public EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory) {
+        return switch (this) {
+            case EPOLL -> new EpollEventLoopGroup(threads, threadFactory);
+            case NIO -> new NioEventLoopGroup(threads, threadFactory);
+        };
+    }
+
+    public Class<? extends ServerChannel> serverChannelClass() {
+        return switch (this) {
+            case EPOLL -> EpollServerSocketChannel.class;
+            case NIO -> NioServerSocketChannel.class;
+        };
+    }
+
+    public Class<? extends Channel> socketChannelClass() {
+        return switch (this) {
+            case EPOLL -> EpollSocketChannel.class;
+            case NIO -> NioSocketChannel.class;
+        };
+    }
+
+    /**
+     * Applies transport specific options to a server bootstrap (e.g. epoll-only socket options).
+     * @param bootstrap - The {@link ServerBootstrap} which has the channel class set to {@link #serverChannelClass()}.
+     */
+    public void applyOptions(ServerBootstrap bootstrap) {
+        if (this == EPOLL) {
+            // edge-triggered is already netty's default, it is only set to state the mode explicitly.
+            bootstrap
+                    .option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED)
+                    .childOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+        }
+    }
+
+    /**
+     * Applies transport specific options to a client bootstrap (e.g. epoll-only socket options).
+     * @param bootstrap - The {@link Bootstrap} which has the channel class set to {@link #socketChannelClass()}.
+     */
+    public void applyOptions(Bootstrap bootstrap) {
+        if (this == EPOLL) {
+            bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+        }
+    }
+}
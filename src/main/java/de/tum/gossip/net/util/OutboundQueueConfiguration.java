@@ -0,0 +1,66 @@
+package de.tum.gossip.net.util;
+
+import com.google.common.base.Preconditions;
+import io.netty.channel.WriteBufferWaterMark;
+
+/**
+ * Configures the backpressure behaviour of the outbound path of a {@link de.tum.gossip.net.ChannelInboundHandler}.
+ * <p>
+ * Once the netty outbound buffer of a channel exceeds the high water mark, the channel becomes unwritable
+ * and packets are held back in a bounded per-channel queue, until the buffer drains below the low water mark.
+ * If the queue is full, the {@link OverflowPolicy} decides what happens to droppable packets
+ * (see {@link de.tum.gossip.net.packets.OutboundPacket#isDroppable()}). Non-droppable (control) packets are always queued.
+ *
+ * @param lowWaterMark - The low water mark of the netty outbound buffer in bytes.
+ * @param highWaterMark - The high water mark of the netty outbound buffer in bytes.
+ * @param capacity - The maximum amount of droppable packets held back per channel.
+ * @param overflowPolicy - The policy applied once the queue is full.
+ * @param metrics - The metrics instance shared by all channels using this configuration.
+ */
+public record OutboundQueueConfiguration(
+        int lowWaterMark,
+        int highWaterMark,
+        int capacity,
+        OverflowPolicy overflowPolicy,
+        OutboundQueueMetrics metrics
+) {
+    public enum OverflowPolicy {
+        /** Drop the oldest queued droppable packet to make room for the new one. */
+        DROP_OLDEST,
+        /** Drop the new packet. */
+        DROP_NEWEST,
+        /** Disconnect the channel (see {@link ChannelCloseReason.Busy}). */
+        DISCONNECT,
+        ;
+    }
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    public OutboundQueueConfiguration {
+        Preconditions.checkArgument(lowWaterMark >= 0 && lowWaterMark <= highWaterMark, "Illegal write buffer water marks!");
+        Preconditions.checkArgument(capacity > 0, "Outbound queue capacity must be positive!");
+        Preconditions.checkNotNull(overflowPolicy);
+        Preconditions.checkNotNull(metrics);
+    }
+
+    public OutboundQueueConfiguration(int lowWaterMark, int highWaterMark, int capacity, OverflowPolicy overflowPolicy) {
+        this(lowWaterMark, highWaterMark, capacity, overflowPolicy, new OutboundQueueMetrics());
+    }
+
+    /**
+     * @return A new configuration using the netty default water marks, a capacity
+     *  of {@link #DEFAULT_CAPACITY} and the {@link OverflowPolicy#DROP_OLDEST} policy.
+     */
+    public static OutboundQueueConfiguration defaults() {
+        return new OutboundQueueConfiguration(
+                WriteBufferWaterMark.DEFAULT.low(),
+                WriteBufferWaterMark.DEFAULT.high(),
+                DEFAULT_CAPACITY,
+                OverflowPolicy.DROP_OLDEST
+        );
+    }
+
+    public WriteBufferWaterMark waterMark() {
+        return new WriteBufferWaterMark(lowWaterMark, highWaterMark);
+    }
+}
@@ -0,0 +1,71 @@
+package de.tum.gossip.net.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of the outbound queues of all channels sharing the same {@link OutboundQueueConfiguration}.
+ */
+public class OutboundQueueMetrics {
+    private final LongAdder queuedPackets = new LongAdder();
+    private final LongAdder droppedOldest = new LongAdder();
+    private final LongAdder droppedNewest = new LongAdder();
+    private final LongAdder overflowDisconnects = new LongAdder();
+
+    public void packetQueued() {
+        queuedPackets.increment();
+    }
+
+    public void packetsDequeued(int count) {
+        queuedPackets.add(-count);
+    }
+
+    public void droppedOldest() {
+        droppedOldest.increment();
+    }
+
+    public void droppedNewest() {
+        droppedNewest.increment();
+    }
+
+    public void overflowDisconnect() {
+        overflowDisconnects.increment();
+    }
+
+    /**
+     * @return The total amount of packets currently held back in outbound queues.
+     */
+    public long queueDepth() {
+        return queuedPackets.sum();
+    }
+
+    /**
+     * @return The amount of queued packets dropped by the {@link OutboundQueueConfiguration.OverflowPolicy#DROP_OLDEST} policy.
+     */
+    public long droppedOldestCount() {
+        return droppedOldest.sum();
+    }
+
+    /**
+     * @return The amount of packets dropped by the {@link OutboundQueueConfiguration.OverflowPolicy#DROP_NEWEST} policy.
+     */
+    public long droppedNewestCount() {
+        return droppedNewest.sum();
+    }
+
+    /**
+     * @return The amount of channels disconnected by the {@link OutboundQueueConfiguration.OverflowPolicy#DISCONNECT} policy.
+     */
+    public long overflowDisconnectCount() {
+        return overflowDisconnects.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "OutboundQueueMetrics{" +
+                "queueDepth=" + queueDepth() +
+                ", droppedOldest=" + droppedOldestCount() +
+                ", droppedNewest=" + droppedNewestCount() +
+                ", overflowDisconnects=" + overflowDisconnectCount() +
+                '}';
+    }
+}
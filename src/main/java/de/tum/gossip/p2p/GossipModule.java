@@ -9,19 +9,29 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import de.tum.gossip.ConfigurationFile;
 import de.tum.gossip.api.APIConnection;
+import de.tum.gossip.api.GossipAPILayer;
 import de.tum.gossip.api.packets.APIPacketGossipNotification;
+import de.tum.gossip.api.packets.APIPacketGossipNotificationChunk;
 import de.tum.gossip.crypto.GossipCrypto;
 import de.tum.gossip.crypto.HostKey;
 import de.tum.gossip.crypto.PeerIdentity;
+import de.tum.gossip.crypto.RotatingHostKeyManager;
 import de.tum.gossip.crypto.SelfSignedCertifyingTrustManager;
+import de.tum.gossip.crypto.SignatureWorkerPool;
+import de.tum.gossip.crypto.TlsSessionTracker;
 import de.tum.gossip.crypto.certificates.HostKeyCertificate;
-import de.tum.gossip.crypto.certificates.HostKeySelfSignedX509Certificates;
+import de.tum.gossip.net.PacketEncoder;
 import de.tum.gossip.net.ProtocolDescription;
 import de.tum.gossip.net.TCPServer;
+import de.tum.gossip.net.packets.PreEncodedPacket;
 import de.tum.gossip.net.util.ChannelCloseReason;
+import de.tum.gossip.net.util.ChunkedSender;
+import de.tum.gossip.net.util.OutboundQueueConfiguration;
+import de.tum.gossip.net.util.OutboundQueueMetrics;
 import de.tum.gossip.p2p.clients.GossipClientContext;
 import de.tum.gossip.p2p.clients.GossipConnectionDispatcher;
 import de.tum.gossip.p2p.packets.*;
+import de.tum.gossip.p2p.packets.GossipPacketHandshakeHello.Feature;
 import de.tum.gossip.p2p.protocol.EstablishedSession;
 import de.tum.gossip.p2p.protocol.GossipClientHandshakeListener;
 import de.tum.gossip.p2p.protocol.GossipServerHandshakeListener;
@@ -30,29 +40,49 @@ import de.tum.gossip.p2p.storage.StoredIdentity;
 import de.tum.gossip.p2p.util.DataType;
 import de.tum.gossip.p2p.util.GossipMessage;
 import de.tum.gossip.p2p.util.GossipMessageId;
+import de.tum.gossip.p2p.util.KnowledgeArena;
 import de.tum.gossip.p2p.util.MessageNotificationId;
+import de.tum.gossip.p2p.util.NotificationIdSpace;
+import de.tum.gossip.p2p.util.RateLimiter;
+import de.tum.gossip.p2p.util.SeenMessageFilter;
+import de.tum.gossip.p2p.util.SignedKnowledge;
+import de.tum.gossip.p2p.util.SlotEpochs;
+import de.tum.gossip.p2p.util.SpreadingConfiguration;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.EventLoopGroup;
 import io.netty.handler.ssl.ClientAuth;
 import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.util.concurrent.DefaultEventExecutor;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.concurrent.Future;
-import io.netty.util.concurrent.GenericFutureListener;
 import io.netty.util.concurrent.Promise;
-import org.apache.commons.lang3.concurrent.TimedSemaphore;
+import io.netty.util.concurrent.PromiseCombiner;
+import io.netty.util.concurrent.ScheduledFuture;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.io.File;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -67,15 +97,71 @@ public class GossipModule {
     private static final ProtocolDescription PROTOCOL = new ProtocolDescription()
             .registerInboundAndOutbound(1, GossipPacketHandshakeHello::new)
             .registerInboundAndOutbound(15, GossipHandshakeComplete::new)
-            .registerInboundAndOutbound(16, GossipPacketSpreadKnowledge::new)
-            .registerInboundAndOutbound(126, GossipPacketDisconnect::new);
+            .registerInboundAndOutbound(16, GossipPacketSpreadKnowledge::newInstance)
+            .registerInboundAndOutbound(17, GossipPacketSpreadKnowledgeBatch::new)
+            .registerInboundAndOutbound(18, GossipPacketSpreadKnowledgeChunk::new)
+            .registerInboundAndOutbound(19, GossipPacketKnowledgeAnnouncement::new)
+            .registerInboundAndOutbound(20, GossipPacketKnowledgeRequest::new)
+            .registerInboundAndOutbound(126, GossipPacketDisconnect::new)
+            .freeze(); // every session protocol is a clone, frozen upfront so that all clones share the packet table
+
+    /**
+     * The maximum amount of announced messages we await concurrently, see {@link #handleKnowledgeAnnouncement(EstablishedSession, GossipMessageId)}.
+     */
+    private static final int MAX_PENDING_FETCHES = 4096;
 
     private final Logger logger = LogManager.getLogger(GossipModule.class);
+    /**
+     * The event loop group serving the I/O of sessions and clients.
+     */
     private final EventLoopGroup eventLoopGroup;
+    /**
+     * The executor group running the gossip logic (packet handlers, cache maintenance and rate limiting timers).
+     * Equals the {@link #eventLoopGroup} if no dedicated handler executor was provided.
+     */
+    private final EventExecutorGroup processingGroup;
+    @Nullable
+    private final EventExecutorGroup handlerExecutor;
 
 
     public final HostKey hostKey;
+    /**
+     * Serves our certificate chain to the server and all clients, rotating it before it expires.
+     */
+    private final RotatingHostKeyManager keyManager;
+    /**
+     * Runs the (blocking) certificate chain generation of the {@link #keyManager}, off the I/O threads and the gossip logic.
+     */
+    private final EventExecutor rotationExecutor = new DefaultEventExecutor(new DefaultThreadFactory("Gossip Host Key Rotation", true));
+    @Nullable
+    private ScheduledFuture<?> certificateRotation;
+    /**
+     * Periodically reclaims notification ids which weren't validated in time, see {@link NotificationIdSpace#expire()}.
+     */
+    @Nullable
+    private ScheduledFuture<?> notificationIdSweep;
     private final TCPServer server;
+    /**
+     * The protocol (including the {@link io.netty.handler.ssl.SslContext}) shared by all clients.
+     */
+    private final ProtocolDescription clientProtocol;
+    /**
+     * The backpressure configuration shared by all sessions, including its metrics.
+     */
+    private final OutboundQueueConfiguration outboundQueue;
+    /**
+     * Tracks the TLS session resumption rate of all sessions.
+     */
+    private final TlsSessionTracker tlsSessionTracker = new TlsSessionTracker();
+    /**
+     * The protocol features we announce to, and accept from, remote peers.
+     */
+    private final EnumSet<Feature> supportedFeatures;
+    /**
+     * Signs and verifies knowledge, if configured for signed knowledge (see {@link SignedKnowledge}). Otherwise, null.
+     */
+    @Nullable
+    private final SignatureWorkerPool signaturePool;
 
     public final PeerIdentityStorage identityStorage;
     /**
@@ -94,6 +180,22 @@ public class GossipModule {
      * The list of established sessions with other peers in the network.
      */
     private final Set<EstablishedSession> sessionList;
+    /**
+     * The established sessions, indexed by the slot assigned in {@link #adoptSession(EstablishedSession)}.
+     * Messages in our knowledge base track their transmissions by slot (see {@link GossipMessage#markTransmitted(int)}).
+     */
+    private final EstablishedSession[] sessionSlots;
+    /**
+     * Tags freed session slots, such that messages drop the transmission bits of former sessions lazily.
+     */
+    private final SlotEpochs slotEpochs;
+    /**
+     * The slot of every established session, for lookups without holding the {@link #sessionListLock}.
+     */
+    private final Map<EstablishedSession, Integer> sessionSlotIndex = Maps.newConcurrentMap();
+    /**
+     * RW lock, synchronizing access to the session list and the session slots.
+     */
     private final ReadWriteLock sessionListLock = new ReentrantReadWriteLock();
 
     /**
@@ -112,74 +214,182 @@ public class GossipModule {
     /**
      * For messages, we await validation for, we need to maintain a translation from notification id (used within the API-layer protocol)
      * to the message id (used withing the P2P-layer protocol).
+     * Every API connection has its own space of notification ids, created once it registers for a data type.
      */
-    private final ConcurrentMap<MessageNotificationId, GossipMessageId> messageIdTranslation;
+    private final Map<APIConnection, NotificationIdSpace> notificationIdSpaces = Maps.newConcurrentMap();
     /**
      * Current knowledge propagating within the system!
      * May contain not yet validated messages!
      */
     private final Cache<GossipMessageId, GossipMessage> gossipKnowledgeBase;
+    /**
+     * Off-heap storage of the payloads held by the {@link #gossipKnowledgeBase}.
+     */
+    private final KnowledgeArena knowledgeArena = new KnowledgeArena();
+    /**
+     * Ids of the messages seen recently, remembered well beyond their eviction from the {@link #gossipKnowledgeBase}.
+     */
+    private final SeenMessageFilter seenMessages = new SeenMessageFilter();
+    private final LongAdder suppressedDuplicates = new LongAdder();
 
-    private final LoadingCache<String, RateLimiting> connectRateLimiting;
-    private final LoadingCache<PeerIdentity, RateLimiting> knowledgeSpreadRateLimiting;
-
-    private class RateLimiting {
-        private final TimedSemaphore operationsPerSecond;
-        private final TimedSemaphore operationsPerMinute;
-
-        public RateLimiting(int ops, int opm) {
-            this.operationsPerSecond = new TimedSemaphore(eventLoopGroup, 1, TimeUnit.SECONDS, ops);
-            this.operationsPerMinute = new TimedSemaphore(eventLoopGroup, 1, TimeUnit.MINUTES, opm);
-        }
+    /**
+     * Selects the sessions receiving knowledge eagerly, and the sessions receiving announcements.
+     */
+    private final SpreadingConfiguration spreading;
+    /**
+     * Messages announced to us, which we neither received nor requested successfully yet.
+     * For every message, we keep the sessions which announced it and weren't asked for it yet.
+     */
+    private final Map<GossipMessageId, Queue<EstablishedSession>> pendingFetches = Maps.newConcurrentMap();
+    private final LongAdder knowledgeRequests = new LongAdder();
 
-        public boolean isAllowed() {
-            return operationsPerSecond.tryAcquire() && operationsPerMinute.tryAcquire();
-        }
-    }
+    private final LoadingCache<String, RateLimiter> connectRateLimiting;
+    private final LoadingCache<PeerIdentity, RateLimiter> knowledgeSpreadRateLimiting;
 
     public GossipModule(ConfigurationFile configuration, EventLoopGroup eventLoopGroup) {
         this(configuration, eventLoopGroup, new PeerIdentityStorage());
     }
 
     public GossipModule(ConfigurationFile configuration, EventLoopGroup eventLoopGroup, PeerIdentityStorage storage) {
+        this(configuration, eventLoopGroup, eventLoopGroup, null, storage);
+    }
+
+    /**
+     * @param configuration - The configuration file.
+     * @param bossGroup - The event loop group accepting incoming P2P connections.
+     * @param workerGroup - The event loop group serving the I/O of sessions and clients.
+     * @param handlerExecutor - The executor group running the gossip logic. If null, the logic runs on the {@code workerGroup}.
+     * @param storage - The identity storage.
+     */
+    public GossipModule(
+            ConfigurationFile configuration,
+            EventLoopGroup bossGroup,
+            EventLoopGroup workerGroup,
+            @Nullable EventExecutorGroup handlerExecutor,
+            PeerIdentityStorage storage
+    ) {
         File file = new File(configuration.hostkey());
         Preconditions.checkArgument(file.exists(), "Hostkey located at " + file.getAbsolutePath() + " doesn't exist!");
 
-        this.eventLoopGroup = eventLoopGroup;
+        this.eventLoopGroup = workerGroup;
+        this.handlerExecutor = handlerExecutor;
+        this.processingGroup = handlerExecutor != null ? handlerExecutor : workerGroup;
         this.identityStorage = storage;
         this.hostKey = GossipCrypto.readHostKey(file);
-        this.server = newServerProtocol().makeServer(configuration.p2p_address(), configuration.p2p_port(), eventLoopGroup, () -> new GossipServerHandshakeListener(this));
+        this.outboundQueue = configuration.outboundQueueConfiguration();
+        this.keyManager = new RotatingHostKeyManager(hostKey);
+        this.supportedFeatures = EnumSet.copyOf(Feature.SUPPORTED);
+        if (configuration.signed_knowledge()) {
+            this.signaturePool = new SignatureWorkerPool();
+        } else {
+            this.signaturePool = null;
+            this.supportedFeatures.remove(Feature.SIGNED_KNOWLEDGE);
+        }
+        this.clientProtocol = newClientProtocol();
+        this.server = newServerProtocol().makeServer(configuration.p2p_address(), configuration.p2p_port(), bossGroup, workerGroup, () -> new GossipServerHandshakeListener(this));
 
         this.connectionDispatcher = new GossipConnectionDispatcher(this);
 
         this.networkDegree = configuration.degree();
+        this.spreading = configuration.spreadingConfiguration();
 
         this.clients = Maps.newConcurrentMap();
         this.sessionList = Sets.newHashSetWithExpectedSize(configuration.degree());
+        this.sessionSlots = new EstablishedSession[configuration.degree()];
+        this.slotEpochs = new SlotEpochs(configuration.degree());
+
+        var knowledgeBaseBuilder = Caffeine.newBuilder()
+                .executor(this.processingGroup);
+        if (configuration.cache_bytes() > 0) {
+            // a byte budget weighs every message by its payload, a large payload displaces many small ones
+            knowledgeBaseBuilder
+                    .maximumWeight(configuration.cache_bytes())
+                    .weigher((key, value) -> ((GossipMessage) value).weight());
+        } else {
+            knowledgeBaseBuilder.maximumSize(configuration.cache_size());
+        }
 
-        this.messageIdTranslation = Maps.newConcurrentMap();
-        this.gossipKnowledgeBase = Caffeine.newBuilder()
-                .maximumSize(configuration.cache_size())
-                .executor(this.eventLoopGroup)
-                .evictionListener((key, value, cause) -> {
+        this.gossipKnowledgeBase = knowledgeBaseBuilder
+                .removalListener((key, value, cause) -> {
+                    // covers evictions as well as explicit invalidations. Frees the payload buffer and the notification ids.
                     Preconditions.checkState(cause != RemovalCause.COLLECTED, "Encountered unexpected COLLECTED cause");
                     Preconditions.checkNotNull(value); // can't be null, as removal cause will never be COLLECTED
-                    var notificationId = ((GossipMessage) value).notificationId.get();
-                    if (notificationId != null) {
-                        messageIdTranslation.remove(notificationId);
-                    }
+                    var message = (GossipMessage) value;
+                    message.releaseNotificationIds();
+                    message.release();
                 })
                 .build();
 
+        // an idle limiter is as good as a new one. Expired limiters are removed during regular cache maintenance, without a timer.
+        var connectRateLimit = configuration.connectRateLimit();
         this.connectRateLimiting = Caffeine.newBuilder()
                 .maximumSize(65535)
-                .executor(this.eventLoopGroup)
-                .build(key -> new RateLimiting(10, 100));
+                .expireAfterAccess(RateLimiter.IDLE_NANOS, TimeUnit.NANOSECONDS)
+                .executor(this.processingGroup)
+                .build(key -> new RateLimiter(connectRateLimit));
 
+        var knowledgeRateLimit = configuration.knowledgeRateLimit();
         this.knowledgeSpreadRateLimiting = Caffeine.newBuilder()
                 .maximumSize(65535)
-                .executor(this.eventLoopGroup)
-                .build(key -> new RateLimiting(100, 2000));
+                .expireAfterAccess(RateLimiter.IDLE_NANOS, TimeUnit.NANOSECONDS)
+                .executor(this.processingGroup)
+                .build(key -> new RateLimiter(knowledgeRateLimit));
+    }
+
+    /**
+     * @return The metrics of the outbound queues of all sessions.
+     */
+    public OutboundQueueMetrics outboundQueueMetrics() {
+        return outboundQueue.metrics();
+    }
+
+    /**
+     * @return The tracker of full and resumed TLS handshakes of all sessions.
+     */
+    public TlsSessionTracker tlsSessionTracker() {
+        return tlsSessionTracker;
+    }
+
+    /**
+     * @return The key manager serving our certificate chain.
+     */
+    public RotatingHostKeyManager keyManager() {
+        return keyManager;
+    }
+
+    /**
+     * @return The protocol features we announce to, and accept from, remote peers.
+     */
+    public Set<Feature> supportedFeatures() {
+        return supportedFeatures;
+    }
+
+    /**
+     * @return The off-heap storage of the knowledge payloads.
+     */
+    public KnowledgeArena knowledgeArena() {
+        return knowledgeArena;
+    }
+
+    /**
+     * @return The amount of incoming knowledge packets dropped, as their message was seen before.
+     */
+    public long suppressedDuplicates() {
+        return suppressedDuplicates.sum();
+    }
+
+    /**
+     * @return The amount of requests sent for announced knowledge, which didn't arrive otherwise.
+     */
+    public long knowledgeRequests() {
+        return knowledgeRequests.sum();
+    }
+
+    /**
+     * @return The pool signing and verifying knowledge, or null if not configured for signed knowledge.
+     */
+    public @Nullable SignatureWorkerPool signaturePool() {
+        return signaturePool;
     }
 
     public ConcurrentMap<PeerIdentity, GossipClientContext> clients() {
@@ -199,6 +409,15 @@ public class GossipModule {
     private void bindSuccess() {
         logger.info("Gossip server listening on {}:{}", server.hostname, server.port);
 
+        this.certificateRotation = keyManager.scheduleRotation(rotationExecutor);
+        this.notificationIdSweep = processingGroup.scheduleAtFixedRate(
+                () -> notificationIdSpaces.values().forEach(NotificationIdSpace::expire),
+                NotificationIdSpace.SWEEP_INTERVAL_NANOS,
+                NotificationIdSpace.SWEEP_INTERVAL_NANOS,
+                TimeUnit.NANOSECONDS
+        );
+        long startTime = System.nanoTime();
+
         // call `newClientContext` always acquires a lock. We have a reentrant lock though,
         // so calling lock multiple times isn't a problem, and this way we avoid acquiring the lock
         // multiple times!
@@ -215,6 +434,8 @@ public class GossipModule {
                 newClientContext(peerInfo, identity.getValue().lastSeenHostname(), identity.getValue().lastSeenPort());
             }
 
+            logger.info("Created {} client contexts in {} ms", clients.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+
             Preconditions.checkState(this.connectionDispatcher != null);
             this.connectionDispatcher = new GossipConnectionDispatcher(this);
             this.connectionDispatcher.start();
@@ -223,15 +444,12 @@ public class GossipModule {
         }
     }
 
+    /**
+     * Shuts down the gossip module without blocking.
+     * @return A future completing once the server, all sessions and all clients are closed.
+     */
     public Future<Void> shutdown() {
-        Promise<Void> promise = eventLoopGroup.next().newPromise();
-        AtomicInteger integer = new AtomicInteger(0);
-        GenericFutureListener<? extends Future<? super Void>> decrement = future -> {
-            int result = integer.decrementAndGet();
-            if (result <= 0) {
-                promise.setSuccess(null);
-            }
-        };
+        List<Future<?>> futures = new ArrayList<>();
 
         clientsLock.lock();
         sessionListLock.writeLock().lock();
@@ -240,51 +458,77 @@ public class GossipModule {
                 this.connectionDispatcher.stopDispatcher();
                 this.connectionDispatcher = null;
             }
-
-            integer.addAndGet(1); // server listener
-            integer.addAndGet(clients.size());
+            if (this.certificateRotation != null) {
+                this.certificateRotation.cancel(false);
+                this.certificateRotation = null;
+            }
+            rotationExecutor.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+            if (this.notificationIdSweep != null) {
+                this.notificationIdSweep.cancel(false);
+                this.notificationIdSweep = null;
+            }
 
             for (var entry: sessionList) {
                 entry.sendPacket(new GossipPacketDisconnect(GossipPacketDisconnect.Reason.NORMAL));
-                // they get disconnected anyway with the server.stop below!
+                futures.add(entry.close(new ChannelCloseReason.Message("Gossip module is shutting down!")));
             }
             sessionList.clear();
+            sessionSlotIndex.clear();
+            for (int slot = 0; slot < sessionSlots.length; slot++) {
+                if (sessionSlots[slot] != null) {
+                    slotEpochs.free(slot);
+                    sessionSlots[slot] = null;
+                }
+            }
 
-            server.stop().addListener(decrement);
+            futures.add(server.stop());
 
             for (var entry: clients.entrySet()) {
-                entry.getValue().disconnect()
-                        .addListener(decrement);
+                futures.add(entry.getValue().disconnect());
             }
         } finally {
             sessionListLock.writeLock().unlock();
             clientsLock.unlock();
         }
 
+        if (signaturePool != null) {
+            signaturePool.shutdown();
+        }
+
+        // releases all payload buffers held by our knowledge base
+        gossipKnowledgeBase.invalidateAll();
+
+        // the PromiseCombiner must be used from within its executor
+        EventExecutor executor = processingGroup.next();
+        Promise<Void> promise = executor.newPromise();
+        executor.execute(() -> {
+            var combiner = new PromiseCombiner(executor);
+            futures.forEach(combiner::add);
+            combiner.finish(promise);
+        });
+
         return promise;
     }
 
     public GossipClientContext newClientContext(GossipPeerInfo remotePeerInfo, String hostname, int port) {
         clientsLock.lock();
-        var existing = clients.get(remotePeerInfo.identity());
-        if (existing != null) {
-            return existing;
-        }
-
-        logger.trace("Creating new client context for {}:{}", hostname, port);
+        try {
+            var existing = clients.get(remotePeerInfo.identity());
+            if (existing != null) {
+                return existing;
+            }
 
-        var client = newClientProtocol(remotePeerInfo)
-                .makeClient(hostname, port, eventLoopGroup, () -> new GossipClientHandshakeListener(this, remotePeerInfo));
+            logger.trace("Creating new client context for {}:{}", hostname, port);
 
-        var context = new GossipClientContext(client);
+            var client = clientProtocol
+                    .makeClient(hostname, port, eventLoopGroup, () -> new GossipClientHandshakeListener(this, remotePeerInfo));
 
-        try {
+            var context = new GossipClientContext(client);
             clients.put(remotePeerInfo.identity(), context);
+            return context;
         } finally {
             clientsLock.unlock();
         }
-
-        return context;
     }
 
     /**
@@ -297,7 +541,7 @@ public class GossipModule {
         // We impose connect rate limiting based on ip address. This weakens the potential ob Sybill attacks
         // as an attacker cannot run multiple identities on the same ip address.
         var rateLimiting = connectRateLimiting.get(session.ipAddress());
-        if (!rateLimiting.isAllowed()) {
+        if (!rateLimiting.tryAcquire()) {
             return Optional.of(new GossipPacketDisconnect.OutboundCloseReason(
                     GossipPacketDisconnect.Reason.NOT_ALLOWED,
                     "Reached rate limit for session adoption!"
@@ -326,7 +570,17 @@ public class GossipModule {
                 ));
             }
 
+            int slot = freeSessionSlot();
+            if (slot < 0) {
+                return Optional.of(new GossipPacketDisconnect.OutboundCloseReason(
+                        GossipPacketDisconnect.Reason.BUSY,
+                        "Reached maximum network degree of " + networkDegree + "!"
+                ));
+            }
+
             sessionList.add(session);
+            sessionSlots[slot] = session;
+            sessionSlotIndex.put(session, slot);
 
             if (sessionList.size() >= networkDegree && connectionDispatcher != null) {
                 connectionDispatcher.pause();
@@ -338,6 +592,18 @@ public class GossipModule {
         return Optional.empty();
     }
 
+    /**
+     * @return The lowest free session slot, or -1 if all slots are taken. Requires the {@link #sessionListLock}.
+     */
+    private int freeSessionSlot() {
+        for (int slot = 0; slot < sessionSlots.length; slot++) {
+            if (sessionSlots[slot] == null) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Called to handle a channel closed of an established session.
      * @param session - The established session that disconnected.
@@ -347,6 +613,16 @@ public class GossipModule {
         try {
             sessionList.remove(session);
 
+            Integer slot = sessionSlotIndex.get(session);
+            // compares by identity, as sessions to the same peer are equal. Only the adopted session holds the slot
+            if (slot != null && sessionSlots[slot] == session) {
+                sessionSlotIndex.remove(session);
+                sessionSlots[slot] = null;
+                // the slot is reused by the next session, which didn't receive any of the messages yet.
+                // messages drop the bit of the former session once they are accessed the next time.
+                slotEpochs.free(slot);
+            }
+
             if (session.isServerBound()) {
                 // the session originated from a remotes client connection.
                 // meaning our local client instance, might be set to 'disabled'. We need to queue it
@@ -384,6 +660,8 @@ public class GossipModule {
             Set<DataType> dataTypes = dataTypeRegistrations
                     .computeIfAbsent(connection, key -> Sets.newHashSet());
             dataTypes.add(dataType);
+
+            notificationIdSpaces.computeIfAbsent(connection, key -> new NotificationIdSpace(key, this::handleExpiredValidation));
         } finally {
             registrationLock.writeLock().unlock();
         }
@@ -399,6 +677,7 @@ public class GossipModule {
         registrationLock.writeLock().lock();
         try {
             Set<DataType> dataTypes = dataTypeRegistrations.remove(connection);
+            notificationIdSpaces.remove(connection);
             if (dataTypes == null) {
                 return;
             }
@@ -425,8 +704,18 @@ public class GossipModule {
      * @throws GossipException Thrown if the API connection tries to announce data for a connection it isn't subscribed to.
      */
     public void spreadInformation(APIConnection originator, int ttl, DataType dataType, byte[] data) throws GossipException {
-        GossipMessage gossipMessage;
+        spreadInformation(originator, ttl, dataType, Unpooled.wrappedBuffer(data));
+    }
 
+    /**
+     * Called by an VoidPhone module through the API layer to announce knowledge into the gossip p2p network.
+     * @param originator - The API connection from which the request originated.
+     * @param ttl - The ttl the knowledge should spread to.
+     * @param dataType - The data type of the contained data.
+     * @param data - The data to spread. The reference is borrowed, the caller remains responsible to release it.
+     * @throws GossipException Thrown if the API connection tries to announce data for a connection it isn't subscribed to.
+     */
+    public void spreadInformation(APIConnection originator, int ttl, DataType dataType, ByteBuf data) throws GossipException {
         registrationLock.readLock().lock();
         try {
             var registeredClients = messageNotificationRegistrations.get(dataType);
@@ -437,30 +726,77 @@ public class GossipModule {
                 logger.warn("[{}] API connected module tried to spread knowledge of type {} while it itself wasn't subscribed to it!", originator, dataType);
                 throw new GossipException(GossipException.Type.UNSUBSCRIBED_SPREAD);
             }
+        } finally {
+            registrationLock.readLock().unlock();
+        }
+
+        if (signaturePool == null) {
+            publishLocalKnowledge(originator, allocateGossipMessage(ttl, dataType, data), data);
+            return;
+        }
+
+        // the message id is part of the signature, therefore it is chosen upfront.
+        // The message is published once the signature was created by the signature pool.
+        var messageId = nextGossipMessageId();
+        var payload = data.retainedDuplicate();
+        signaturePool.submit(processingGroup.next(), () -> SignedKnowledge.sign(hostKey, messageId, dataType, payload))
+                .addListener(future -> {
+                    try {
+                        if (!future.isSuccess()) {
+                            logger.error("[{}] Failed to sign knowledge {}", originator.name(), messageId, future.cause());
+                            return;
+                        }
+
+                        var envelope = (ByteBuf) future.getNow();
+                        try {
+                            var gossipMessage = insertGossipMessage(messageId, ttl, dataType, envelope);
+                            if (gossipMessage == null) {
+                                logger.warn("[{}] Message id {} was taken while signing the knowledge. Dropping it!", originator.name(), messageId);
+                                return;
+                            }
+
+                            publishLocalKnowledge(originator, gossipMessage, payload);
+                        } finally {
+                            envelope.release();
+                        }
+                    } finally {
+                        payload.release();
+                    }
+                });
+    }
 
-            gossipMessage = allocateGossipMessage(ttl, dataType, data);
+    /**
+     * Notifies other local modules about knowledge announced by an API connection, or spreads it into the network
+     * if there aren't any others registered for the data type.
+     * @param data - The knowledge data (without any envelope). The reference is borrowed.
+     */
+    private void publishLocalKnowledge(APIConnection originator, GossipMessage gossipMessage, ByteBuf data) {
+        registrationLock.readLock().lock();
+        try {
+            var registeredClients = messageNotificationRegistrations.getOrDefault(gossipMessage.dataType, Set.of());
+            int otherClients = registeredClients.size() - (registeredClients.contains(originator) ? 1 : 0);
 
             logger.debug("[{}] API connected module requested to spread {} bytes of type {} with a reach of {} hops. Identified by {}.",
-                    originator.name(), data.length, dataType, ttl, gossipMessage.messageId);
+                    originator.name(), data.readableBytes(), gossipMessage.dataType, gossipMessage.nextTTL, gossipMessage.messageId);
 
-            if (registeredClients.size() > 1) {
+            if (otherClients > 0) {
                 // we have other clients locally which are registered for this message.
                 // we spread information to them first and then continue to spread the data in the network
                 // once they report data validity.
 
-                MessageNotificationId notificationId = nextMessageNotificationId();
-                markAwaitingValidation(gossipMessage, notificationId, registeredClients.size() - 1);
+                var notificationIds = allocateNotificationIds(gossipMessage, registeredClients, originator);
+                if (notificationIds.isEmpty()) {
+                    logger.warn("[{}] Dropping message {}, as no locally connected module has a free notification id!",
+                            originator.name(), gossipMessage.messageId);
+                    gossipKnowledgeBase.invalidate(gossipMessage.messageId);
+                    return;
+                }
 
-                var notification = new APIPacketGossipNotification(notificationId, dataType, data);
-                for (var connection : registeredClients) {
-                    if (connection.equals(originator)) {
-                        continue;
-                    }
+                gossipMessage.initPendingValidations(notificationIds);
 
-                    connection.sendPacket(notification);
-                }
+                sendNotification(notificationIds, gossipMessage.dataType, data);
                 logger.debug("[{}] Message from API connected module sent to {} locally connected modules for validation!",
-                        originator.name(), registeredClients.size() - 1);
+                        originator.name(), notificationIds.size());
 
                 return;
             }
@@ -480,21 +816,96 @@ public class GossipModule {
      */
     public void handleIncomingKnowledgeSpread(EstablishedSession session, GossipPacketSpreadKnowledge packet) throws GossipException {
         var rateLimiting = knowledgeSpreadRateLimiting.get(session.peerInfo().identity());
-        if (!rateLimiting.isAllowed()) {
+        if (!rateLimiting.tryAcquire()) {
             throw new GossipException(GossipException.Type.RATE_LIMIT);
         }
 
+        if (signaturePool == null) {
+            adoptIncomingKnowledge(session, packet.messageId, packet.ttl, packet.dataType, packet.data, packet.data);
+            return;
+        }
+
+        if (seenMessages.mightContain(packet.messageId)) {
+            suppressedDuplicates.increment();
+            return; // already known, there is no need to verify the signature again
+        }
+
+        // the packet is recycled once we return, therefore we capture its contents
+        var messageId = packet.messageId;
+        var ttl = packet.ttl;
+        var dataType = packet.dataType;
+        var envelope = packet.data.retainedDuplicate();
+
+        signaturePool.submit(processingGroup.next(), () -> {
+            var knowledge = SignedKnowledge.parse(envelope);
+            knowledge.verify(messageId, dataType, this::originatorKey);
+            return knowledge;
+        }).addListener(future -> {
+            try {
+                if (!future.isSuccess()) {
+                    if (future.cause() instanceof SignedKnowledge.UnknownOriginatorException) {
+                        // the forwarding peer isn't to blame, we just can't attribute the knowledge to anyone we know
+                        logger.debug("[{}] {}", session, future.cause().getMessage());
+                    } else if (future.cause() instanceof SignedKnowledge.InvalidSignatureException) {
+                        logger.warn("[{}] {}", session, future.cause().getMessage());
+                        session.close(new GossipPacketDisconnect.OutboundCloseReason(GossipPacketDisconnect.Reason.AUTHENTICATION, future.cause().getMessage()));
+                    } else {
+                        logger.debug("[{}] Failed to verify knowledge {}", session, messageId, future.cause());
+                    }
+                    return;
+                }
+
+                var knowledge = (SignedKnowledge) future.getNow();
+                adoptIncomingKnowledge(session, messageId, ttl, dataType, envelope, knowledge.data);
+            } finally {
+                envelope.release();
+            }
+        });
+    }
+
+    /**
+     * Resolves the public key signed knowledge of the provided originator is verified against.
+     * Might load the identity from the storage, don't call on I/O threads.
+     * @return The known key of the identity, or null if the identity is unknown.
+     */
+    private @Nullable RSAPublicKey originatorKey(PeerIdentity originator) {
+        if (originator.equals(hostKey.identity)) {
+            return hostKey.publicKey;
+        }
+
+        var stored = identityStorage.retrieveKey(originator);
+        return stored != null ? stored.publicKey() : null;
+    }
+
+    /**
+     * Stores knowledge received from the network and notifies registered local modules.
+     * @param data - The data as received and forwarded (the envelope in case of signed knowledge). The reference is borrowed.
+     * @param payload - The knowledge payload, as delivered to local modules. The reference is borrowed.
+     */
+    private void adoptIncomingKnowledge(EstablishedSession session, GossipMessageId messageId, int ttl, DataType dataType, ByteBuf data, ByteBuf payload) {
+        if (seenMessages.mightContain(messageId)) {
+            // covers messages already evicted from our knowledge base. Otherwise, they would be delivered and spread again.
+            suppressedDuplicates.increment();
+            return;
+        }
+
+        // the session might have disconnected in the meantime, then there is no need to exclude it from spreading.
+        // If its slot is freed after the lookup, the message observes the newer epoch and drops the bit.
+        long epoch = slotEpochs.current();
+        int receivedFrom = sessionSlotIndex.getOrDefault(session, GossipMessage.LOCAL_SLOT);
+
         AtomicBoolean didExist = new AtomicBoolean(true);
-        var gossipMessage = gossipKnowledgeBase.get(packet.messageId, (id) -> {
+        var gossipMessage = gossipKnowledgeBase.get(messageId, (id) -> {
             // we use this supplier based creation to be thread safe. The add method of the `Cache` class
             // as no way to determine if a given record was already present!
             didExist.set(false);
+            seenMessages.add(messageId);
 
             // 0 signals unlimited hops
-            int nextTTL = packet.ttl != 1
-                    ? Math.max(0, packet.ttl - 1) // either it stays 0 or is decremented by one
+            int nextTTL = ttl != 1
+                    ? Math.max(0, ttl - 1) // either it stays 0 or is decremented by one
                     : -1; // -1 signals, that packet reached end of life at this hop
-            return new GossipMessage(packet.messageId, session, nextTTL, packet.dataType, packet.data);
+            return new GossipMessage(messageId, slotEpochs, receivedFrom, epoch, nextTTL, dataType, knowledgeArena.copyOf(data));
         });
 
         if (didExist.get()) {
@@ -506,30 +917,37 @@ public class GossipModule {
             return;
         }
 
+        var announcers = pendingFetches.remove(messageId);
+        if (announcers != null) {
+            // peers which announced the message already hold it, there is no need to spread it to them
+            for (var announcer : announcers) {
+                markTransmitted(gossipMessage, announcer);
+            }
+        }
+
         registrationLock.readLock().lock();
         try {
-            Set<APIConnection> connections = messageNotificationRegistrations.get(packet.dataType);
+            Set<APIConnection> connections = messageNotificationRegistrations.get(dataType);
             if (connections == null) {
                 return; // no registrations for this data type
             }
 
             // we continue to hold the lock, as we iterate over the `connections` set below!
 
-            MessageNotificationId notificationId = nextMessageNotificationId();
+            var notificationIds = allocateNotificationIds(gossipMessage, connections, null);
+            if (notificationIds.isEmpty()) {
+                logger.warn("[{}] Dropping message {}, as no locally connected module has a free notification id!",
+                        session, gossipMessage.messageId);
+                return;
+            }
 
             logger.debug("[{}] Message {} from network sent to {} locally connected modules for validation!",
-                    session, gossipMessage.messageId, connections.size());
+                    session, gossipMessage.messageId, notificationIds.size());
 
             // if ttl hasn't expired, queue it for spreading further into the network (mark it to await validations)
-            if (gossipMessage.shouldForward()) {
-                // we only need the translation if we await for validation!
-                markAwaitingValidation(gossipMessage, notificationId, connections.size());
-            }
+            gossipMessage.initPendingValidations(notificationIds);
 
-            var notification = new APIPacketGossipNotification(notificationId, packet.dataType, packet.data);
-            for (var connection : connections) {
-                connection.sendPacket(notification);
-            }
+            sendNotification(notificationIds, dataType, payload);
         } finally {
             registrationLock.readLock().unlock();
         }
@@ -537,12 +955,15 @@ public class GossipModule {
 
     /**
      * Called by an VoidPhone module through the API layer when receiving a {@link de.tum.gossip.api.packets.APIPacketGossipValidation}.
+     * @param connection - The API connection that sent the validation.
      * @param notificationId - The {@link MessageNotificationId} of the gossip notification the client wants to validate.
      * @param valid - Flag indicating if the provided data was valid.
      * @throws GossipException Either if we didn't find the notification id or the message.
      */
-    public void receiveMessageValidation(MessageNotificationId notificationId, boolean valid) throws GossipException {
-        var messageId = messageIdTranslation.get(notificationId);
+    public void receiveMessageValidation(APIConnection connection, MessageNotificationId notificationId, boolean valid) throws GossipException {
+        var notificationIdSpace = notificationIdSpaces.get(connection);
+        // the id is released with its validation, a repeated validation won't find it anymore
+        var messageId = notificationIdSpace != null ? notificationIdSpace.release(notificationId) : null;
         if (messageId == null) {
             // we didn't expect validation packets for this message!
             logger.debug("[{}] Message id translation not found! Potentially not expecting validation!", notificationId);
@@ -576,89 +997,375 @@ public class GossipModule {
     }
 
     private void spreadDataIntoNetwork(GossipMessage gossipMessage) {
-        var packet = new GossipPacketSpreadKnowledge(gossipMessage.messageId, gossipMessage.nextTTL, gossipMessage.dataType, gossipMessage.data);
+        var data = gossipMessage.retainedData();
+        if (data == null) {
+            logger.debug("[{}] Message was evicted from our knowledge base before it could be spread!", gossipMessage.messageId);
+            return;
+        }
+        gossipMessage.markSpread();
+
+        // payloads exceeding a single frame can only be sent to sessions supporting chunks
+        boolean chunked = data.readableBytes() > GossipPacketSpreadKnowledge.MAX_PAYLOAD_SIZE;
+
+        // for sessions not supporting batches, the packet is encoded once (on demand)
+        // and every session writes its own duplicate of the encoded frame. Same applies to the announcement.
+        PreEncodedPacket packet = null;
+        PreEncodedPacket announcement = null;
 
         int count = 0;
+        int announced = 0;
         sessionListLock.readLock().lock();
         try {
-            for (EstablishedSession session : sessionList) {
-                boolean didChange = gossipMessage.completedTransmissions.add(session);
+            int[] targets = new int[sessionSlots.length];
+            int targetCount = 0;
+            for (int slot = 0; slot < sessionSlots.length; slot++) {
+                EstablishedSession session = sessionSlots[slot];
+                if (session == null || (chunked && !session.supportsChunkedKnowledge()) || gossipMessage.isTransmitted(slot)) {
+                    continue; // we already sent it to this session, or received it from this session.
+                }
+                targets[targetCount++] = slot;
+            }
+
+            int eagerCount = spreading.strategy() == SpreadingConfiguration.Strategy.FLOOD
+                    ? targetCount
+                    : Math.min(targetCount, spreading.fanout());
+            if (eagerCount < targetCount) {
+                // moves a random selection of targets to the front, which receive the payload eagerly
+                var random = ThreadLocalRandom.current();
+                for (int i = 0; i < eagerCount; i++) {
+                    int j = i + random.nextInt(targetCount - i);
+                    int target = targets[j];
+                    targets[j] = targets[i];
+                    targets[i] = target;
+                }
+            }
+
+            for (int i = 0; i < targetCount; i++) {
+                int slot = targets[i];
+                EstablishedSession session = sessionSlots[slot];
+
+                boolean eager = i < eagerCount;
+                if (!eager && spreading.strategy() != SpreadingConfiguration.Strategy.LAZY_PUSH) {
+                    break; // the remaining sessions aren't contacted
+                }
+                // sessions not supporting announcements receive the payload eagerly
+                eager |= !session.supportsLazyPush();
+
+                boolean didChange = gossipMessage.markTransmitted(slot);
                 if (!didChange) {
-                    continue; // if set didn't change, it was already on the list.
+                    continue; // the message was sent to this session concurrently.
+                }
+
+                if (!eager) {
+                    announced += 1;
+                    if (announcement == null) {
+                        announcement = PreEncodedPacket.encode(PROTOCOL, new GossipPacketKnowledgeAnnouncement(gossipMessage.messageId), ByteBufAllocator.DEFAULT);
+                    }
+                    session.sendPacket(announcement.retainedDuplicate());
+                    continue;
                 }
 
                 count += 1;
 
-                session.sendPacket(packet);
+                if (chunked) {
+                    session.spreadChunkedKnowledge(gossipMessage.messageId, gossipMessage.nextTTL, gossipMessage.dataType, data);
+                    continue;
+                }
+
+                if (session.supportsBatchedKnowledge()) {
+                    session.spreadBatchedKnowledge(gossipMessage.messageId, gossipMessage.nextTTL, gossipMessage.dataType, data);
+                    continue;
+                }
+
+                if (packet == null) {
+                    packet = PreEncodedPacket.encode(
+                            PROTOCOL,
+                            new GossipPacketSpreadKnowledge(gossipMessage.messageId, gossipMessage.nextTTL, gossipMessage.dataType, data.retainedDuplicate()),
+                            ByteBufAllocator.DEFAULT
+                    );
+                }
+                session.sendPacket(packet.retainedDuplicate());
             }
         } finally {
             sessionListLock.readLock().unlock();
+            if (packet != null) {
+                packet.release();
+            }
+            if (announcement != null) {
+                announcement.release();
+            }
+            data.release();
         }
 
-        logger.debug("[{}] Knowledge spread to {} peers!", gossipMessage.messageId, count);
+        logger.debug("[{}] Knowledge spread to {} peers and announced to {} peers!", gossipMessage.messageId, count, announced);
     }
 
-    private MessageNotificationId nextMessageNotificationId() {
-        MessageNotificationId id = MessageNotificationId.createEmpty();
-        do {
-            ThreadLocalRandom.current().nextBytes(id.messageId());
-        } while (messageIdTranslation.containsKey(id));
-        return id;
+    /**
+     * Called to signal an incoming {@link GossipPacketKnowledgeAnnouncement} received from one of our gossip peers.
+     * Unless the announced message arrives otherwise within the fetch timeout, it is requested from the announcing peers,
+     * one at a time (see {@link SpreadingConfiguration#fetchTimeoutMillis()}).
+     * @param session - The established session from which the announcement was received.
+     * @param messageId - The announced message id.
+     * @throws GossipException When encountering rate limiting.
+     */
+    public void handleKnowledgeAnnouncement(EstablishedSession session, GossipMessageId messageId) throws GossipException {
+        var rateLimiting = knowledgeSpreadRateLimiting.get(session.peerInfo().identity());
+        if (!rateLimiting.tryAcquire()) {
+            throw new GossipException(GossipException.Type.RATE_LIMIT);
+        }
+
+        var gossipMessage = gossipKnowledgeBase.getIfPresent(messageId);
+        if (gossipMessage != null) {
+            // the peer already holds the message, there is no need to spread it to them
+            markTransmitted(gossipMessage, session);
+            return;
+        }
+
+        while (!seenMessages.mightContain(messageId)) {
+            if (pendingFetches.size() >= MAX_PENDING_FETCHES && !pendingFetches.containsKey(messageId)) {
+                logger.debug("[{}] Ignoring announcement of {}, too many announced messages are pending!", session, messageId);
+                return;
+            }
+
+            AtomicBoolean created = new AtomicBoolean(false);
+            var announcers = pendingFetches.computeIfAbsent(messageId, id -> {
+                created.set(true);
+                return new ConcurrentLinkedQueue<>();
+            });
+            announcers.add(session);
+
+            if (created.get()) {
+                scheduleKnowledgeFetch(messageId, announcers);
+            }
+
+            if (pendingFetches.get(messageId) == announcers) {
+                return;
+            }
+            // the fetch concluded concurrently, before it could consider this session.
+        }
     }
 
-    private GossipMessage allocateGossipMessage(int ttl, DataType dataType, byte[] data) {
-        GossipMessageId id = GossipMessageId.createEmpty();
-        GossipMessage message;
+    /**
+     * Marks the message as transmitted to the provided session, if it is still established.
+     */
+    private void markTransmitted(GossipMessage gossipMessage, EstablishedSession session) {
+        // the read lock keeps the slot from being freed and reused, while we set its bit
+        sessionListLock.readLock().lock();
+        try {
+            Integer slot = sessionSlotIndex.get(session);
+            if (slot != null && sessionSlots[slot] == session) {
+                gossipMessage.markTransmitted(slot);
+            }
+        } finally {
+            sessionListLock.readLock().unlock();
+        }
+    }
 
-        AtomicBoolean created = new AtomicBoolean();
+    private void scheduleKnowledgeFetch(GossipMessageId messageId, Queue<EstablishedSession> announcers) {
+        processingGroup.schedule(() -> fetchAnnouncedKnowledge(messageId, announcers), spreading.fetchTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
 
+    private void fetchAnnouncedKnowledge(GossipMessageId messageId, Queue<EstablishedSession> announcers) {
+        if (seenMessages.mightContain(messageId)) {
+            pendingFetches.remove(messageId, announcers);
+            return; // received it in the meantime
+        }
+
+        EstablishedSession session;
         do {
-            ThreadLocalRandom.current().nextBytes(id.messageId());
+            session = announcers.poll();
+        } while (session != null && !sessionSlotIndex.containsKey(session));
 
-            // we can't guarantee it to be globally unique, but at least we don't try our best to avoid local conflicts.
-            message = gossipKnowledgeBase.get(id, messageId -> {
-                created.set(true);
-                return new GossipMessage(messageId, ttl, dataType, data);
-            });
-        } while (!created.get());
+        if (session == null) {
+            logger.debug("[{}] None of the peers announcing the message delivered it!", messageId);
+            pendingFetches.remove(messageId, announcers);
+            return;
+        }
+
+        knowledgeRequests.increment();
+        session.sendPacket(new GossipPacketKnowledgeRequest(messageId));
+
+        // if the peer doesn't respond in time, we continue with the next peer that announced the message
+        scheduleKnowledgeFetch(messageId, announcers);
+    }
+
+    /**
+     * Called to signal an incoming {@link GossipPacketKnowledgeRequest} received from one of our gossip peers.
+     * Only messages we spread into the network are handed out, requests for any other messages are ignored.
+     * @param session - The established session from which the request was received.
+     * @param messageId - The requested message id.
+     * @throws GossipException When encountering rate limiting.
+     */
+    public void handleKnowledgeRequest(EstablishedSession session, GossipMessageId messageId) throws GossipException {
+        var rateLimiting = knowledgeSpreadRateLimiting.get(session.peerInfo().identity());
+        if (!rateLimiting.tryAcquire()) {
+            throw new GossipException(GossipException.Type.RATE_LIMIT);
+        }
+
+        var gossipMessage = gossipKnowledgeBase.getIfPresent(messageId);
+        // messages awaiting validation were never announced
+        var data = gossipMessage != null && gossipMessage.isSpread() ? gossipMessage.retainedData() : null;
+        if (data == null) {
+            logger.debug("[{}] Requested message {} isn't available!", session, messageId);
+            return;
+        }
+
+        try {
+            if (data.readableBytes() > GossipPacketSpreadKnowledge.MAX_PAYLOAD_SIZE) {
+                if (session.supportsChunkedKnowledge()) {
+                    session.spreadChunkedKnowledge(messageId, gossipMessage.nextTTL, gossipMessage.dataType, data);
+                }
+            } else if (session.supportsBatchedKnowledge()) {
+                session.spreadBatchedKnowledge(messageId, gossipMessage.nextTTL, gossipMessage.dataType, data);
+            } else {
+                session.sendPacket(new GossipPacketSpreadKnowledge(messageId, gossipMessage.nextTTL, gossipMessage.dataType, data.retainedDuplicate()));
+            }
+        } finally {
+            data.release();
+        }
+    }
+
+    /**
+     * Called once a notification id was reclaimed without a validation. Counts as a failed validation,
+     * otherwise the message would await the validation forever.
+     */
+    private void handleExpiredValidation(NotificationIdSpace.Allocation allocation) {
+        logger.debug("[{}] Validation of message {} timed out! Dropping message!",
+                allocation.space().connection().name(), allocation.messageId());
+        gossipKnowledgeBase.invalidate(allocation.messageId());
+    }
+
+    /**
+     * Allocates a notification id for every connection, except the excluded one.
+     * Connections without a free notification id are left out.
+     */
+    private List<NotificationIdSpace.Allocation> allocateNotificationIds(
+            GossipMessage message,
+            Iterable<APIConnection> connections,
+            @Nullable APIConnection excluded
+    ) {
+        List<NotificationIdSpace.Allocation> result = new ArrayList<>();
+        for (var connection : connections) {
+            if (connection.equals(excluded)) {
+                continue;
+            }
+
+            var notificationIdSpace = notificationIdSpaces.get(connection);
+            var allocation = notificationIdSpace != null ? notificationIdSpace.allocate(message.messageId) : null;
+            if (allocation == null) {
+                logger.warn("[{}] Notification ids exhausted, skipping notification of message {}!", connection.name(), message.messageId);
+                continue;
+            }
+
+            result.add(allocation);
+        }
+        return result;
+    }
+
+    /**
+     * Sends a notification to the API connections of the provided notification ids. Data exceeding a single frame is sent in chunks.
+     * @param notificationIds - The notification ids, one for every connection to notify.
+     * @param data - The data. The reference is borrowed, the caller remains responsible to release it.
+     */
+    private void sendNotification(List<NotificationIdSpace.Allocation> notificationIds, DataType dataType, ByteBuf data) {
+        if (data.readableBytes() > APIPacketGossipNotification.MAX_DATA_SIZE) {
+            for (var allocation : notificationIds) {
+                ChunkedSender.send(allocation.space().connection(), data.retainedDuplicate(), (totalLength, offset, chunk) ->
+                        new APIPacketGossipNotificationChunk(allocation.notificationId(), dataType, totalLength, offset, chunk));
+            }
+            return;
+        }
+
+        // the notification is encoded once and shared by all connections, only the notification id differs
+        var notification = PreEncodedPacket.encode(
+                GossipAPILayer.PROTOCOL,
+                new APIPacketGossipNotification(notificationIds.get(0).notificationId(), dataType, data.retainedDuplicate()),
+                ByteBufAllocator.DEFAULT
+        );
+        try {
+            byte[] notificationId = new byte[Short.BYTES];
+            for (var allocation : notificationIds) {
+                notificationId[0] = (byte) (allocation.notificationId().messageId() >> 8);
+                notificationId[1] = (byte) allocation.notificationId().messageId();
+                allocation.space().connection().sendPacket(notification.retainedDuplicate(PacketEncoder.HEADER_SIZE, notificationId));
+            }
+        } finally {
+            notification.release();
+        }
+    }
+
+    private GossipMessage allocateGossipMessage(int ttl, DataType dataType, ByteBuf data) {
+        GossipMessage message;
+        do {
+            message = insertGossipMessage(nextGossipMessageId(), ttl, dataType, data);
+        } while (message == null);
 
         return message;
     }
 
-    private void markAwaitingValidation(GossipMessage message, MessageNotificationId notificationId, int pendingValidations) {
-        message.initPendingValidations(notificationId, pendingValidations);
-        messageIdTranslation.put(notificationId, message.messageId); // we only need the translation if we await for validation!
+    private GossipMessageId nextGossipMessageId() {
+        GossipMessageId id;
+        // we can't guarantee it to be globally unique, but at least we don't try our best to avoid local conflicts.
+        do {
+            id = new GossipMessageId(ThreadLocalRandom.current().nextLong());
+        } while (seenMessages.mightContain(id));
+        return id;
     }
 
-    public ProtocolDescription newServerProtocol() {
-        Preconditions.checkNotNull(hostKey);
+    /**
+     * Inserts a locally originated message into our knowledge base.
+     * @param data - The data stored in the message. The reference is borrowed.
+     * @return The inserted message, or null if the message id is already taken.
+     */
+    private @Nullable GossipMessage insertGossipMessage(GossipMessageId id, int ttl, DataType dataType, ByteBuf data) {
+        AtomicBoolean created = new AtomicBoolean();
+        var message = gossipKnowledgeBase.get(id, messageId -> {
+            created.set(true);
+            seenMessages.add(messageId);
+            return new GossipMessage(messageId, slotEpochs, ttl, dataType, knowledgeArena.copyOf(data));
+        });
+        return created.get() ? message : null;
+    }
 
-        HostKeyCertificate certificate = new HostKeySelfSignedX509Certificates(hostKey);
+    public ProtocolDescription newServerProtocol() {
+        HostKeyCertificate certificate = keyManager.certificate();
 
         return PROTOCOL
                 .clone()
+                .withOutboundQueue(outboundQueue)
+                .withHandlerExecutor(handlerExecutor)
+                .withFrameCompression(true)
                 .withSslContext(
-                        SslContextBuilder.forServer(certificate.privateKey(), certificate.certificates())
+                        SslContextBuilder.forServer(keyManager)
                                 .clientAuth(ClientAuth.REQUIRE)
-                                .trustManager(new SelfSignedCertifyingTrustManager(certificate.getClass()))
+                                .trustManager(new SelfSignedCertifyingTrustManager(certificate.getClass(), null, tlsSessionTracker))
                                 .protocols(certificate.tlsVersionString())
                                 .ciphers(certificate.tlsCipherSuites())
+                                .sessionTimeout(TlsSessionTracker.SESSION_TIMEOUT_SECONDS)
+                                .sessionCacheSize(TlsSessionTracker.SESSION_CACHE_SIZE)
                 );
     }
 
-    public ProtocolDescription newClientProtocol(GossipPeerInfo remotePeerInfo) {
-        Preconditions.checkNotNull(hostKey);
-
-        HostKeyCertificate certificate = new HostKeySelfSignedX509Certificates(hostKey);
+    /**
+     * Creates the protocol used by clients. A single instance is shared by all clients, therefore the trust manager
+     * doesn't check the identity of the remote peer. This is done by the {@link GossipClientHandshakeListener}.
+     */
+    public ProtocolDescription newClientProtocol() {
+        HostKeyCertificate certificate = keyManager.certificate();
 
         return PROTOCOL
                 .clone()
+                .withOutboundQueue(outboundQueue)
+                .withHandlerExecutor(handlerExecutor)
+                .withFrameCompression(true)
                 .withSslContext(
                         SslContextBuilder.forClient()
-                                .keyManager(certificate.privateKey(), certificate.certificates())
-                                .trustManager(new SelfSignedCertifyingTrustManager(certificate.getClass(), remotePeerInfo))
+                                .keyManager(keyManager)
+                                .trustManager(new SelfSignedCertifyingTrustManager(certificate.getClass(), null, tlsSessionTracker))
                                 .protocols(certificate.tlsVersionString())
                                 .ciphers(certificate.tlsCipherSuites())
+                                .sessionTimeout(TlsSessionTracker.SESSION_TIMEOUT_SECONDS)
+                                .sessionCacheSize(TlsSessionTracker.SESSION_CACHE_SIZE)
                 );
     }
-}
\ No newline at end of file
+}
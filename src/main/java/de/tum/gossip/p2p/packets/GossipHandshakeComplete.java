@@ -1,20 +1,49 @@
 package de.tum.gossip.p2p.packets;
 
 import de.tum.gossip.net.packets.Packet;
+import de.tum.gossip.p2p.packets.GossipPacketHandshakeHello.Feature;
 import de.tum.gossip.p2p.protocol.GossipClientHandshakeListener;
 import io.netty.buffer.ByteBuf;
 
+import java.util.EnumSet;
+
 /**
  * Created by Andi on 07.07.22.
  */
 public class GossipHandshakeComplete implements Packet<GossipClientHandshakeListener> {
-    public GossipHandshakeComplete() {}
+    /**
+     * The features accepted by the server (see {@link Feature}). Encoded as an optional 1 byte flags field,
+     * which is only present if any feature was accepted. Therefore, clients which didn't announce
+     * any features still receive an empty packet.
+     */
+    public EnumSet<Feature> features;
+
+    public GossipHandshakeComplete() {
+        this(EnumSet.noneOf(Feature.class));
+    }
+
+    public GossipHandshakeComplete(EnumSet<Feature> features) {
+        this.features = features;
+    }
 
     @Override
-    public void serialize(ByteBuf byteBuf) {}
+    public void serialize(ByteBuf byteBuf) {
+        if (!features.isEmpty()) {
+            byteBuf.writeByte(Feature.toFlags(features));
+        }
+    }
 
     @Override
-    public void deserialize(ByteBuf byteBuf) {}
+    public int serializedSize() {
+        return features.isEmpty() ? 0 : 1;
+    }
+
+    @Override
+    public void deserialize(ByteBuf byteBuf) {
+        features = byteBuf.isReadable()
+                ? Feature.fromFlags(byteBuf.readUnsignedByte())
+                : EnumSet.noneOf(Feature.class);
+    }
 
     @Override
     public void accept(GossipClientHandshakeListener handler) {
@@ -46,6 +46,8 @@ public class GossipPacketDisconnect implements Packet<GossipPacketHandler> {
         public static Optional<Reason> of(ChannelCloseReason reason) {
             if (reason instanceof ChannelCloseReason.Timeout) {
                 return Optional.of(TIMEOUT);
+            } else if (reason instanceof ChannelCloseReason.Busy) {
+                return Optional.of(BUSY);
             } else if (reason instanceof ChannelCloseReason.Exception exception) {
                 if (exception.cause instanceof GossipPacketHandshakeHello.UnsupportedVersionException) {
                     return Optional.of(UNSUPPORTED);
@@ -102,7 +104,8 @@ public class GossipPacketDisconnect implements Packet<GossipPacketHandler> {
         @Override
         public void handleBeforeClose(ChannelInboundHandler channel, Logger logger) {
             super.handleBeforeClose(channel, logger);
-            channel.sendPacket(new GossipPacketDisconnect(closeReason));
+            // the channel is closed right after, so we must not wait for the end of the current write batch.
+            channel.sendPacketAndFlush(new GossipPacketDisconnect(closeReason));
         }
     }
 
@@ -137,6 +140,11 @@ public class GossipPacketDisconnect implements Packet<GossipPacketHandler> {
         byteBuf.writeBytes(new byte[] {0, 0, 0});
     }
 
+    @Override
+    public int serializedSize() {
+        return 4;
+    }
+
     @Override
     public void deserialize(ByteBuf byteBuf) {
         reason = Reason.fromReason(byteBuf.readByte());
@@ -4,6 +4,11 @@ import de.tum.gossip.net.packets.Packet;
 import de.tum.gossip.p2p.protocol.GossipServerHandshakeListener;
 import io.netty.buffer.ByteBuf;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
 /**
  * Created by Andi on 06.07.22.
  */
@@ -15,19 +20,132 @@ public class GossipPacketHandshakeHello implements Packet<GossipServerHandshakeL
         public static final Version CURRENT = VERSION_1;
     }
 
+    /**
+     * Optional protocol features, negotiated during the handshake.
+     * The client announces the features it supports within the {@link GossipPacketHandshakeHello}, the server
+     * responds with the subset it accepted within the {@link GossipHandshakeComplete}.
+     * Peers not knowing about features send and ignore zero flags, therefore falling back to the base protocol.
+     */
+    public enum Feature {
+        /** Knowledge may be sent using the {@link GossipPacketSpreadKnowledgeBatch}. */
+        BATCHED_KNOWLEDGE(0x01),
+        /** Frames may be compressed, see {@link de.tum.gossip.net.FrameCompressionCodec}. */
+        COMPRESSION(0x02),
+        /** Knowledge exceeding a single frame may be sent using {@link GossipPacketSpreadKnowledgeChunk}s. */
+        CHUNKED_KNOWLEDGE(0x04),
+        /**
+         * Knowledge payloads are wrapped into a {@link de.tum.gossip.p2p.util.SignedKnowledge} envelope.
+         * Only announced by peers configured for signed knowledge. Both peers must agree on this feature,
+         * otherwise the session is rejected (see {@link #isMandatory()}).
+         */
+        SIGNED_KNOWLEDGE(0x08),
+        /**
+         * Knowledge may be announced by its message id using a {@link GossipPacketKnowledgeAnnouncement}
+         * and fetched on demand using a {@link GossipPacketKnowledgeRequest}.
+         */
+        LAZY_PUSH(0x10),
+        ;
+
+        public static final Set<Feature> SUPPORTED = Collections.unmodifiableSet(EnumSet.allOf(Feature.class));
+
+        private final int flag;
+
+        Feature(int flag) {
+            this.flag = flag;
+        }
+
+        /**
+         * @param flags - The feature flags byte.
+         * @return The set of known features contained in the flags. Unknown flags are ignored.
+         */
+        public static EnumSet<Feature> fromFlags(int flags) {
+            EnumSet<Feature> features = EnumSet.noneOf(Feature.class);
+            for (var feature: values()) {
+                if ((flags & feature.flag) != 0) {
+                    features.add(feature);
+                }
+            }
+            return features;
+        }
+
+        public static int toFlags(Set<Feature> features) {
+            int flags = 0;
+            for (var feature: features) {
+                flags |= feature.flag;
+            }
+            return flags;
+        }
+
+        /**
+         * @return True if peers disagreeing on this feature can't communicate with each other.
+         */
+        public boolean isMandatory() {
+            return this == SIGNED_KNOWLEDGE;
+        }
+
+        /**
+         * @param features - The features announced by the remote peer.
+         * @return The subset of features supported by both peers.
+         */
+        public static EnumSet<Feature> negotiate(Set<Feature> features) {
+            return negotiate(features, SUPPORTED);
+        }
+
+        /**
+         * @param features - The features announced by the remote peer.
+         * @param supported - The features supported by the local peer.
+         * @return The subset of features supported by both peers.
+         */
+        public static EnumSet<Feature> negotiate(Set<Feature> features, Set<Feature> supported) {
+            EnumSet<Feature> negotiated = EnumSet.noneOf(Feature.class);
+            negotiated.addAll(features);
+            negotiated.retainAll(supported);
+            return negotiated;
+        }
+
+        /**
+         * @param features - The features announced by the remote peer.
+         * @param supported - The features supported by the local peer.
+         * @return A mandatory feature only supported by one of both peers, if any.
+         */
+        public static Optional<Feature> mandatoryMismatch(Set<Feature> features, Set<Feature> supported) {
+            for (var feature: values()) {
+                if (feature.isMandatory() && features.contains(feature) != supported.contains(feature)) {
+                    return Optional.of(feature);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
     public static class UnsupportedVersionException extends RuntimeException {}
 
     public Version version; // 1 byte version field
-    // 3 bytes reserved (expected to be zero)
+    public EnumSet<Feature> features; // 1 byte feature flags (previously reserved)
+    // 2 bytes reserved (expected to be zero)
 
     public GossipPacketHandshakeHello() {
+        this(Feature.SUPPORTED);
+    }
+
+    /**
+     * @param features - The features announced to the remote peer.
+     */
+    public GossipPacketHandshakeHello(Set<Feature> features) {
         this.version = Version.CURRENT;
+        this.features = features.isEmpty() ? EnumSet.noneOf(Feature.class) : EnumSet.copyOf(features);
     }
 
     @Override
     public void serialize(ByteBuf byteBuf) {
         byteBuf.writeByte(version.ordinal() + 1);
-        byteBuf.writeBytes(new byte[3]); // 3 bytes reserved space.
+        byteBuf.writeByte(Feature.toFlags(features));
+        byteBuf.writeBytes(new byte[2]); // 2 bytes reserved space.
+    }
+
+    @Override
+    public int serializedSize() {
+        return 4;
     }
 
     @Override
@@ -38,8 +156,9 @@ public class GossipPacketHandshakeHello implements Packet<GossipServerHandshakeL
         }
 
         this.version = Version.values()[version - 1];
+        this.features = Feature.fromFlags(byteBuf.readUnsignedByte());
 
-        byteBuf.readBytes(new byte[3]);
+        byteBuf.skipBytes(2);
     }
 
     @Override
@@ -0,0 +1,49 @@
+package de.tum.gossip.p2p.packets;
+
+import de.tum.gossip.net.packets.Packet;
+import de.tum.gossip.p2p.protocol.GossipEstablishedSession;
+import de.tum.gossip.p2p.util.GossipMessageId;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Announces that the sender holds the knowledge of the given message id, without sending its payload (IHAVE).
+ * A receiver which doesn't learn about the message otherwise requests it using a {@link GossipPacketKnowledgeRequest}.
+ * Only sent to peers which negotiated the {@link GossipPacketHandshakeHello.Feature#LAZY_PUSH} feature.
+ * <p>
+ * The packet consists of the 8 byte message id.
+ */
+public class GossipPacketKnowledgeAnnouncement implements Packet<GossipEstablishedSession> {
+    public GossipMessageId messageId;
+
+    public GossipPacketKnowledgeAnnouncement() {}
+
+    public GossipPacketKnowledgeAnnouncement(GossipMessageId messageId) {
+        this.messageId = messageId;
+    }
+
+    @Override
+    public void serialize(ByteBuf byteBuf) {
+        byteBuf.writeLong(messageId.messageId());
+    }
+
+    @Override
+    public int serializedSize() {
+        return GossipMessageId.BYTES;
+    }
+
+    @Override
+    public void deserialize(ByteBuf byteBuf) {
+        messageId = new GossipMessageId(byteBuf.readLong());
+    }
+
+    @Override
+    public boolean isDroppable() {
+        // a lost announcement only removes a redundant path of the message
+        return true;
+    }
+
+    @Override
+    public void accept(GossipEstablishedSession handler) {
+        handler.handle(this);
+    }
+}
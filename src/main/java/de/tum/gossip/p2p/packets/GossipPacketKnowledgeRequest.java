@@ -0,0 +1,43 @@
+package de.tum.gossip.p2p.packets;
+
+import de.tum.gossip.net.packets.Packet;
+import de.tum.gossip.p2p.protocol.GossipEstablishedSession;
+import de.tum.gossip.p2p.util.GossipMessageId;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Requests the knowledge of a message id previously announced by the receiver using a
+ * {@link GossipPacketKnowledgeAnnouncement} (IWANT). The receiver responds with the knowledge,
+ * like it would have spread it eagerly. Requests for unknown messages are ignored.
+ * <p>
+ * The packet consists of the 8 byte message id.
+ */
+public class GossipPacketKnowledgeRequest implements Packet<GossipEstablishedSession> {
+    public GossipMessageId messageId;
+
+    public GossipPacketKnowledgeRequest() {}
+
+    public GossipPacketKnowledgeRequest(GossipMessageId messageId) {
+        this.messageId = messageId;
+    }
+
+    @Override
+    public void serialize(ByteBuf byteBuf) {
+        byteBuf.writeLong(messageId.messageId());
+    }
+
+    @Override
+    public int serializedSize() {
+        return GossipMessageId.BYTES;
+    }
+
+    @Override
+    public void deserialize(ByteBuf byteBuf) {
+        messageId = new GossipMessageId(byteBuf.readLong());
+    }
+
+    @Override
+    public void accept(GossipEstablishedSession handler) {
+        handler.handle(this);
+    }
+}
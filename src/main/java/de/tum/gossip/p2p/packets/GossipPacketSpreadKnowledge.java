@@ -1,16 +1,33 @@
 package de.tum.gossip.p2p.packets;
 
-import com.google.common.base.Preconditions;
+import de.tum.gossip.net.PacketEncoder;
 import de.tum.gossip.net.packets.Packet;
+import de.tum.gossip.net.packets.PayloadPacket;
+import de.tum.gossip.net.packets.RecyclablePacket;
 import de.tum.gossip.p2p.protocol.GossipEstablishedSession;
 import de.tum.gossip.p2p.util.DataType;
 import de.tum.gossip.p2p.util.GossipMessageId;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Created by Andi on 06.07.22.
  */
-public class GossipPacketSpreadKnowledge implements Packet<GossipEstablishedSession> {
+public class GossipPacketSpreadKnowledge implements Packet<GossipEstablishedSession>, PayloadPacket, RecyclablePacket {
+    private static final Recycler<GossipPacketSpreadKnowledge> RECYCLER = new Recycler<>() {
+        @Override
+        protected GossipPacketSpreadKnowledge newObject(Handle<GossipPacketSpreadKnowledge> handle) {
+            return new GossipPacketSpreadKnowledge(handle);
+        }
+    };
+
+    /**
+     * The maximum size of a payload fitting into a single frame.
+     * Larger payloads are sent using {@link GossipPacketSpreadKnowledgeChunk}s.
+     */
+    public static final int MAX_PAYLOAD_SIZE = PacketEncoder.MAX_FRAME_LENGTH - PacketEncoder.HEADER_SIZE - 16;
+
     /**
      * Random identifier for a routed packet. It is used to avoid cycles in packet routing.
      */
@@ -19,12 +36,34 @@ public class GossipPacketSpreadKnowledge implements Packet<GossipEstablishedSess
     public DataType dataType; // 2 bytes
     // There are 4 bytes of reserved within the header for future extensions and alignment reasons. Set to zero on transmission
 
-    public byte[] data;
+    /**
+     * The reference counted knowledge payload. For inbound packets, this is a retained slice of the received frame.
+     */
+    public ByteBuf data;
+
+    @Nullable
+    private final Recycler.Handle<GossipPacketSpreadKnowledge> handle;
+
+    public GossipPacketSpreadKnowledge() {
+        this.handle = null;
+    }
+
+    private GossipPacketSpreadKnowledge(Recycler.Handle<GossipPacketSpreadKnowledge> handle) {
+        this.handle = handle;
+    }
 
-    public GossipPacketSpreadKnowledge() {}
+    /**
+     * @return An empty instance taken from the pool, used for inbound packets.
+     */
+    public static GossipPacketSpreadKnowledge newInstance() {
+        return RECYCLER.get();
+    }
 
-    public GossipPacketSpreadKnowledge(GossipMessageId messageId, int ttl, DataType dataType, byte[] data) {
-        Preconditions.checkState(messageId.messageId().length == 8);
+    /**
+     * @param data - The payload. The packet takes ownership of the provided reference.
+     */
+    public GossipPacketSpreadKnowledge(GossipMessageId messageId, int ttl, DataType dataType, ByteBuf data) {
+        this.handle = null;
         this.messageId = messageId;
         this.ttl = ttl;
         this.dataType = dataType;
@@ -33,30 +72,60 @@ public class GossipPacketSpreadKnowledge implements Packet<GossipEstablishedSess
 
     @Override
     public void serialize(ByteBuf byteBuf) {
-        Preconditions.checkState(messageId.messageId().length == 8);
-        byteBuf.writeBytes(messageId.messageId());
+        byteBuf.writeLong(messageId.messageId());
         byteBuf.writeShort(ttl);
         byteBuf.writeShort(dataType.dataType());
         var reserved = new byte[4];
         byteBuf.writeBytes(reserved);
 
-        byteBuf.writeBytes(data);
+        byteBuf.writeBytes(data, data.readerIndex(), data.readableBytes());
+    }
+
+    @Override
+    public int serializedSize() {
+        return 8 + 2 + 2 + 4 + data.readableBytes();
     }
 
     @Override
     public void deserialize(ByteBuf byteBuf) {
-        messageId = GossipMessageId.createEmpty();
-        byteBuf.readBytes(messageId.messageId());
+        messageId = new GossipMessageId(byteBuf.readLong());
         ttl = byteBuf.readUnsignedShort();
         dataType = new DataType(byteBuf.readUnsignedShort());
-        byteBuf.readBytes(new byte[4]); // reading reserved header bytes
+        byteBuf.skipBytes(4); // reading reserved header bytes
+
+        data = byteBuf.readRetainedSlice(byteBuf.readableBytes());
+    }
+
+    @Override
+    public boolean isDroppable() {
+        return true;
+    }
 
-        data = new byte[byteBuf.readableBytes()];
-        byteBuf.readBytes(data);
+    @Override
+    public ByteBuf payload() {
+        return data;
+    }
+
+    @Override
+    public GossipPacketSpreadKnowledge retain() {
+        PayloadPacket.super.retain();
+        return this;
     }
 
     @Override
     public void accept(GossipEstablishedSession handler) {
         handler.handle(this);
     }
+
+    @Override
+    public void recycle() {
+        messageId = null;
+        ttl = 0;
+        dataType = null;
+        data = null;
+
+        if (handle != null) {
+            handle.recycle(this);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package de.tum.gossip.p2p.packets;
+
+import com.google.common.base.Preconditions;
+import de.tum.gossip.net.packets.Packet;
+import de.tum.gossip.net.packets.PayloadPacket;
+import de.tum.gossip.p2p.protocol.GossipEstablishedSession;
+import de.tum.gossip.p2p.util.DataType;
+import de.tum.gossip.p2p.util.GossipMessageId;
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Carries multiple knowledge entries within a single frame. Only sent to peers which negotiated
+ * the {@link GossipPacketHandshakeHello.Feature#BATCHED_KNOWLEDGE} feature.
+ * <p>
+ * The packet consists of a 2 byte entry count, 2 reserved bytes and the entries.
+ * Every entry mirrors the header of the {@link GossipPacketSpreadKnowledge}, where the 2 leading reserved
+ * bytes carry the length of the entry's payload: 8 byte message id, 2 byte ttl, 2 byte data type,
+ * 2 byte payload length, 2 bytes reserved and the payload.
+ */
+public class GossipPacketSpreadKnowledgeBatch implements Packet<GossipEstablishedSession>, PayloadPacket {
+    public static final int HEADER_SIZE = 4;
+    public static final int ENTRY_HEADER_SIZE = 16;
+
+    public int count;
+    /**
+     * The reference counted, encoded entries. For inbound packets, this is a retained slice of the received frame.
+     */
+    public ByteBuf entries;
+
+    public GossipPacketSpreadKnowledgeBatch() {}
+
+    /**
+     * @param count - The amount of entries.
+     * @param entries - The encoded entries, see {@link #writeEntry(ByteBuf, GossipMessageId, int, DataType, ByteBuf)}.
+     *                The packet takes ownership of the provided reference.
+     */
+    public GossipPacketSpreadKnowledgeBatch(int count, ByteBuf entries) {
+        Preconditions.checkArgument(count > 0 && count <= 0xFFFF);
+        this.count = count;
+        this.entries = entries;
+    }
+
+    /**
+     * Appends an encoded entry to the provided buffer.
+     * @param out - The buffer to write to.
+     * @param data - The payload. It is copied, the reader index isn't modified.
+     */
+    public static void writeEntry(ByteBuf out, GossipMessageId messageId, int ttl, DataType dataType, ByteBuf data) {
+        Preconditions.checkArgument(data.readableBytes() <= 0xFFFF);
+        out.writeLong(messageId.messageId());
+        out.writeShort(ttl);
+        out.writeShort(dataType.dataType());
+        out.writeShort(data.readableBytes());
+        out.writeShort(0); // reserved
+        out.writeBytes(data, data.readerIndex(), data.readableBytes());
+    }
+
+    /**
+     * @param data - The payload of an entry.
+     * @return The encoded size of an entry with the provided payload.
+     */
+    public static int entrySize(ByteBuf data) {
+        return ENTRY_HEADER_SIZE + data.readableBytes();
+    }
+
+    /**
+     * Unpacks the batch into its entries. The returned packets and their payloads are views into the
+     * entries buffer and only valid as long as this packet isn't released. They must not be released themselves.
+     * @return The entries of the batch.
+     */
+    public List<GossipPacketSpreadKnowledge> unpack() {
+        List<GossipPacketSpreadKnowledge> result = new ArrayList<>(count);
+        int index = entries.readerIndex();
+        for (int i = 0; i < count; i++) {
+            var messageId = new GossipMessageId(entries.getLong(index));
+            int ttl = entries.getUnsignedShort(index + 8);
+            var dataType = new DataType(entries.getUnsignedShort(index + 10));
+            int length = entries.getUnsignedShort(index + 12);
+
+            var data = entries.slice(index + ENTRY_HEADER_SIZE, length);
+            result.add(new GossipPacketSpreadKnowledge(messageId, ttl, dataType, data));
+
+            index += ENTRY_HEADER_SIZE + length;
+        }
+        return result;
+    }
+
+    @Override
+    public void serialize(ByteBuf byteBuf) {
+        byteBuf.writeShort(count);
+        byteBuf.writeShort(0); // reserved
+        byteBuf.writeBytes(entries, entries.readerIndex(), entries.readableBytes());
+    }
+
+    @Override
+    public int serializedSize() {
+        return HEADER_SIZE + entries.readableBytes();
+    }
+
+    @Override
+    public void deserialize(ByteBuf byteBuf) {
+        count = byteBuf.readUnsignedShort();
+        byteBuf.skipBytes(2); // reading reserved header bytes
+
+        // validate the entry structure upfront, such that malformed packets are rejected by the decoder
+        int index = byteBuf.readerIndex();
+        for (int i = 0; i < count; i++) {
+            if (byteBuf.writerIndex() - index < ENTRY_HEADER_SIZE) {
+                throw new IllegalArgumentException("Knowledge batch entry " + i + " exceeds the packet!");
+            }
+            index += ENTRY_HEADER_SIZE + byteBuf.getUnsignedShort(index + 12);
+        }
+        if (index != byteBuf.writerIndex()) {
+            throw new IllegalArgumentException("Knowledge batch entries don't match the packet length!");
+        }
+
+        entries = byteBuf.readRetainedSlice(byteBuf.readableBytes());
+    }
+
+    @Override
+    public boolean isDroppable() {
+        return true;
+    }
+
+    @Override
+    public ByteBuf payload() {
+        return entries;
+    }
+
+    @Override
+    public GossipPacketSpreadKnowledgeBatch retain() {
+        PayloadPacket.super.retain();
+        return this;
+    }
+
+    @Override
+    public void accept(GossipEstablishedSession handler) {
+        handler.handle(this);
+    }
+}
@@ -0,0 +1,85 @@
+package de.tum.gossip.p2p.packets;
+
+import de.tum.gossip.net.packets.Packet;
+import de.tum.gossip.net.packets.PayloadPacket;
+import de.tum.gossip.p2p.protocol.GossipEstablishedSession;
+import de.tum.gossip.p2p.util.DataType;
+import de.tum.gossip.p2p.util.GossipMessageId;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Carries a single chunk of knowledge whose payload exceeds {@link GossipPacketSpreadKnowledge#MAX_PAYLOAD_SIZE}.
+ * Only sent to peers which negotiated the {@link GossipPacketHandshakeHello.Feature#CHUNKED_KNOWLEDGE} feature.
+ * <p>
+ * The chunks of a message are sent in order and reassembled by the receiver into a single knowledge entry.
+ * Every chunk repeats the header of the {@link GossipPacketSpreadKnowledge}, where the 4 reserved bytes
+ * carry the total payload length, followed by the 4 byte offset of the chunk within the payload.
+ */
+public class GossipPacketSpreadKnowledgeChunk implements Packet<GossipEstablishedSession>, PayloadPacket {
+    public GossipMessageId messageId; // 8 bytes
+    public int ttl; // 2 bytes
+    public DataType dataType; // 2 bytes
+    public int totalLength; // 4 bytes
+    public int offset; // 4 bytes
+
+    /**
+     * The reference counted chunk contents. For inbound packets, this is a retained slice of the received frame.
+     */
+    public ByteBuf chunk;
+
+    public GossipPacketSpreadKnowledgeChunk() {}
+
+    /**
+     * @param chunk - The chunk contents. The packet takes ownership of the provided reference.
+     */
+    public GossipPacketSpreadKnowledgeChunk(GossipMessageId messageId, int ttl, DataType dataType, int totalLength, int offset, ByteBuf chunk) {
+        this.messageId = messageId;
+        this.ttl = ttl;
+        this.dataType = dataType;
+        this.totalLength = totalLength;
+        this.offset = offset;
+        this.chunk = chunk;
+    }
+
+    @Override
+    public void serialize(ByteBuf byteBuf) {
+        byteBuf.writeLong(messageId.messageId());
+        byteBuf.writeShort(ttl);
+        byteBuf.writeShort(dataType.dataType());
+        byteBuf.writeInt(totalLength);
+        byteBuf.writeInt(offset);
+        byteBuf.writeBytes(chunk, chunk.readerIndex(), chunk.readableBytes());
+    }
+
+    @Override
+    public int serializedSize() {
+        return 8 + 2 + 2 + 4 + 4 + chunk.readableBytes();
+    }
+
+    @Override
+    public void deserialize(ByteBuf byteBuf) {
+        messageId = new GossipMessageId(byteBuf.readLong());
+        ttl = byteBuf.readUnsignedShort();
+        dataType = new DataType(byteBuf.readUnsignedShort());
+        totalLength = byteBuf.readInt();
+        offset = byteBuf.readInt();
+
+        chunk = byteBuf.readRetainedSlice(byteBuf.readableBytes());
+    }
+
+    @Override
+    public ByteBuf payload() {
+        return chunk;
+    }
+
+    @Override
+    public GossipPacketSpreadKnowledgeChunk retain() {
+        PayloadPacket.super.retain();
+        return this;
+    }
+
+    @Override
+    public void accept(GossipEstablishedSession handler) {
+        handler.handle(this);
+    }
+}
@@ -1,7 +1,12 @@
 package de.tum.gossip.p2p.protocol;
 
 import de.tum.gossip.net.packets.PacketSendable;
+import de.tum.gossip.net.util.ChannelCloseReason;
 import de.tum.gossip.p2p.GossipPeerInfo;
+import de.tum.gossip.p2p.util.DataType;
+import de.tum.gossip.p2p.util.GossipMessageId;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.Future;
 
 /**
  * A generic instance of an established session with an remote gossip peer.
@@ -19,4 +24,51 @@ public interface EstablishedSession extends PacketSendable {
      * If this is {@code ture}, this session was established at the server side by an incoming connection from a remote peer.
      */
     boolean isServerBound();
+
+    /**
+     * Closes the session without blocking. See {@link de.tum.gossip.net.ChannelInboundHandler#close(ChannelCloseReason)}.
+     * @param reason - The close reason.
+     * @return A future completing once the session is closed.
+     */
+    Future<Void> close(ChannelCloseReason reason);
+
+    /**
+     * @return True if the remote peer negotiated the {@link de.tum.gossip.p2p.packets.GossipPacketHandshakeHello.Feature#BATCHED_KNOWLEDGE} feature.
+     */
+    default boolean supportsBatchedKnowledge() {
+        return false;
+    }
+
+    /**
+     * Queues knowledge to be sent within the next {@link de.tum.gossip.p2p.packets.GossipPacketSpreadKnowledgeBatch}.
+     * Only supported if {@link #supportsBatchedKnowledge()} returns true.
+     * @param data - The payload. It is copied, the caller keeps ownership.
+     */
+    default void spreadBatchedKnowledge(GossipMessageId messageId, int ttl, DataType dataType, ByteBuf data) {
+        throw new UnsupportedOperationException("Session doesn't support batched knowledge!");
+    }
+
+    /**
+     * @return True if the remote peer negotiated the {@link de.tum.gossip.p2p.packets.GossipPacketHandshakeHello.Feature#CHUNKED_KNOWLEDGE} feature.
+     */
+    default boolean supportsChunkedKnowledge() {
+        return false;
+    }
+
+    /**
+     * Sends knowledge exceeding a single frame in chunks.
+     * Only supported if {@link #supportsChunkedKnowledge()} returns true.
+     * @param data - The payload. The reference is borrowed, the caller keeps ownership.
+     */
+    default void spreadChunkedKnowledge(GossipMessageId messageId, int ttl, DataType dataType, ByteBuf data) {
+        throw new UnsupportedOperationException("Session doesn't support chunked knowledge!");
+    }
+
+    /**
+     * @return True if the remote peer negotiated the {@link de.tum.gossip.p2p.packets.GossipPacketHandshakeHello.Feature#LAZY_PUSH} feature,
+     *  therefore accepts {@link de.tum.gossip.p2p.packets.GossipPacketKnowledgeAnnouncement}s.
+     */
+    default boolean supportsLazyPush() {
+        return false;
+    }
 }
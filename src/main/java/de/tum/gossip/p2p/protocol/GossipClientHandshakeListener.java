@@ -16,6 +16,9 @@ import io.netty.util.concurrent.Future;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import javax.net.ssl.SSLPeerUnverifiedException;
+import java.security.cert.CertificateException;
+
 /**
  * Created by Andi on 06.07.22.
  */
@@ -65,10 +68,18 @@ public class GossipClientHandshakeListener implements GossipPacketHandler {
             return;
         }
 
-        // At this point the full identity was verified through the `SelfSignedCertifyingTrustManager`.
+        // At this point the certificate chain was verified through the `SelfSignedCertifyingTrustManager`, unless the session was resumed.
+        // The trust manager is shared by all clients, therefore we check the binding to the server's identity explicitly.
         // We know the servers identity from the start, when we constructed the client.
+        gossipModule.tlsSessionTracker().recordHandshake(GossipCrypto.getSslHandler(channel).engine());
+        try {
+            GossipCrypto.checkPeerCertificate(GossipCrypto.peerCertificateFromTLSSession(channel), serverPeerInfo.publicKey());
+        } catch (CertificateException | SSLPeerUnverifiedException | IllegalStateException e) {
+            channel.close(new GossipPacketDisconnect.OutboundCloseReason(Reason.AUTHENTICATION, e));
+            return;
+        }
 
-        channel.sendPacket(new GossipPacketHandshakeHello());
+        channel.sendPacket(new GossipPacketHandshakeHello(gossipModule.supportedFeatures()));
     }
 
     @Override
@@ -88,7 +99,14 @@ public class GossipClientHandshakeListener implements GossipPacketHandler {
     }
 
     public synchronized void handle(GossipHandshakeComplete packet) {
-        var handler = new GossipEstablishedSession(gossipModule, serverPeerInfo, false);
+        var mismatch = GossipPacketHandshakeHello.Feature.mandatoryMismatch(packet.features, gossipModule.supportedFeatures());
+        if (mismatch.isPresent()) {
+            channel.close(new GossipPacketDisconnect.OutboundCloseReason(Reason.UNSUPPORTED, "Peers disagree on mandatory feature " + mismatch.get() + "!"));
+            return;
+        }
+
+        var features = GossipPacketHandshakeHello.Feature.negotiate(packet.features, gossipModule.supportedFeatures());
+        var handler = new GossipEstablishedSession(gossipModule, serverPeerInfo, false, features);
         channel.replacePacketHandler(handler);
     }
 
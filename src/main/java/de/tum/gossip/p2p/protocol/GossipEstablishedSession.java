@@ -5,20 +5,33 @@ import de.tum.gossip.api.packets.GossipAPIPacket;
 import de.tum.gossip.net.ChannelInboundHandler;
 import de.tum.gossip.net.ConnectionInitializer;
 import de.tum.gossip.net.packets.OutboundPacket;
+import de.tum.gossip.net.packets.PreEncodedPacket;
 import de.tum.gossip.net.util.ChannelCloseReason;
 import de.tum.gossip.net.util.ChannelCloseReasonCause;
+import de.tum.gossip.net.util.ChunkReassembler;
+import de.tum.gossip.net.util.ChunkedSender;
 import de.tum.gossip.p2p.GossipException;
 import de.tum.gossip.p2p.GossipModule;
 import de.tum.gossip.p2p.GossipPeerInfo;
 import de.tum.gossip.p2p.packets.GossipHandshakeComplete;
 import de.tum.gossip.p2p.packets.GossipPacketDisconnect;
+import de.tum.gossip.p2p.packets.GossipPacketHandshakeHello.Feature;
+import de.tum.gossip.p2p.packets.GossipPacketKnowledgeAnnouncement;
+import de.tum.gossip.p2p.packets.GossipPacketKnowledgeRequest;
 import de.tum.gossip.p2p.packets.GossipPacketSpreadKnowledge;
+import de.tum.gossip.p2p.packets.GossipPacketSpreadKnowledgeBatch;
+import de.tum.gossip.p2p.packets.GossipPacketSpreadKnowledgeChunk;
+import de.tum.gossip.p2p.util.DataType;
+import de.tum.gossip.p2p.util.GossipMessageId;
+import io.netty.buffer.ByteBuf;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.net.InetSocketAddress;
+import java.util.EnumSet;
 
 /**
  * Created by Andi on 07.07.22.
@@ -31,13 +44,28 @@ public class GossipEstablishedSession implements GossipPacketHandler, Establishe
      * If this is {@code ture}, this session was established at the server side by an incoming connection from a remote peer.
      */
     private final boolean serverBound;
+    /**
+     * The protocol features negotiated during the handshake.
+     */
+    private final EnumSet<Feature> features;
 
     private ChannelInboundHandler channel;
+    @Nullable
+    private KnowledgeBatcher knowledgeBatcher;
+    /**
+     * Reassembles chunked knowledge, keyed by message id.
+     */
+    private final ChunkReassembler<GossipMessageId> knowledgeChunks = new ChunkReassembler<>();
 
     public GossipEstablishedSession(GossipModule module, GossipPeerInfo remotePeerInfo, boolean serverBound) {
+        this(module, remotePeerInfo, serverBound, EnumSet.noneOf(Feature.class));
+    }
+
+    public GossipEstablishedSession(GossipModule module, GossipPeerInfo remotePeerInfo, boolean serverBound, EnumSet<Feature> features) {
         this.module = module;
         this.remotePeerInfo = remotePeerInfo;
         this.serverBound = serverBound;
+        this.features = features;
     }
 
     @Override
@@ -59,9 +87,17 @@ public class GossipEstablishedSession implements GossipPacketHandler, Establishe
         return channel;
     }
 
+    @Override
+    public Future<Void> close(ChannelCloseReason reason) {
+        return channel.close(reason);
+    }
+
     @Override
     public void onConnect(ChannelInboundHandler channel) {
         this.channel = channel;
+        if (features.contains(Feature.BATCHED_KNOWLEDGE)) {
+            this.knowledgeBatcher = new KnowledgeBatcher(channel);
+        }
 
         var result = module.adoptSession(this);
         if (result.isPresent()) {
@@ -71,7 +107,12 @@ public class GossipEstablishedSession implements GossipPacketHandler, Establishe
 
         if (serverBound) {
             // if we are server bound we must send the final handshake complete message!
-            channel.sendPacket(new GossipHandshakeComplete());
+            channel.sendPacket(new GossipHandshakeComplete(features));
+        }
+
+        if (features.contains(Feature.COMPRESSION)) {
+            // both peers always accept compressed frames, so there is no need to wait for the complete packet to be written
+            channel.enableFrameCompression();
         }
 
         // handshake and session establishment is considered successful from this point onwards
@@ -96,6 +137,11 @@ public class GossipEstablishedSession implements GossipPacketHandler, Establishe
             promise.setFailure(new ChannelCloseReasonCause(reason));
         }
 
+        if (knowledgeBatcher != null) {
+            knowledgeBatcher.release();
+        }
+        knowledgeChunks.release();
+
         module.handleSessionDisconnect(this);
     }
 
@@ -107,6 +153,55 @@ public class GossipEstablishedSession implements GossipPacketHandler, Establishe
         }
     }
 
+    public void handle(GossipPacketSpreadKnowledgeBatch packet) {
+        try {
+            for (GossipPacketSpreadKnowledge entry : packet.unpack()) {
+                module.handleIncomingKnowledgeSpread(this, entry);
+            }
+        } catch (GossipException e) {
+            channel.close(new GossipPacketDisconnect.OutboundCloseReason(GossipPacketDisconnect.Reason.NOT_ALLOWED, e.getMessage()));
+        }
+    }
+
+    public void handle(GossipPacketSpreadKnowledgeChunk packet) {
+        ByteBuf data;
+        try {
+            data = knowledgeChunks.append(packet.messageId, packet.totalLength, packet.offset, packet.chunk);
+        } catch (ChunkReassembler.InvalidChunkException e) {
+            channel.close(new GossipPacketDisconnect.OutboundCloseReason(GossipPacketDisconnect.Reason.NOT_ALLOWED, e.getMessage()));
+            return;
+        }
+
+        if (data == null) {
+            return; // wait for the remaining chunks
+        }
+
+        // the reassembled payload is handled like a single knowledge packet
+        try {
+            module.handleIncomingKnowledgeSpread(this, new GossipPacketSpreadKnowledge(packet.messageId, packet.ttl, packet.dataType, data));
+        } catch (GossipException e) {
+            channel.close(new GossipPacketDisconnect.OutboundCloseReason(GossipPacketDisconnect.Reason.NOT_ALLOWED, e.getMessage()));
+        } finally {
+            data.release();
+        }
+    }
+
+    public void handle(GossipPacketKnowledgeAnnouncement packet) {
+        try {
+            module.handleKnowledgeAnnouncement(this, packet.messageId);
+        } catch (GossipException e) {
+            channel.close(new GossipPacketDisconnect.OutboundCloseReason(GossipPacketDisconnect.Reason.NOT_ALLOWED, e.getMessage()));
+        }
+    }
+
+    public void handle(GossipPacketKnowledgeRequest packet) {
+        try {
+            module.handleKnowledgeRequest(this, packet.messageId);
+        } catch (GossipException e) {
+            channel.close(new GossipPacketDisconnect.OutboundCloseReason(GossipPacketDisconnect.Reason.NOT_ALLOWED, e.getMessage()));
+        }
+    }
+
     @Override
     public void handle(GossipPacketDisconnect packet) {
         channel.close(packet.channelCloseReason(channel));
@@ -115,10 +210,39 @@ public class GossipEstablishedSession implements GossipPacketHandler, Establishe
     @Override
     public <Packet extends OutboundPacket> void sendPacket(Packet packet, GenericFutureListener<? extends Future<? super Void>>[] genericFutureListeners) {
         Preconditions.checkNotNull(channel);
-        Preconditions.checkState(!(packet instanceof GossipAPIPacket));
+        Preconditions.checkState(!(packet instanceof GossipAPIPacket)
+                && !(packet instanceof PreEncodedPacket encodedPacket && encodedPacket.isOf(GossipAPIPacket.class)));
         channel.sendPacket(packet, genericFutureListeners);
     }
 
+    @Override
+    public boolean supportsBatchedKnowledge() {
+        return knowledgeBatcher != null;
+    }
+
+    @Override
+    public void spreadBatchedKnowledge(GossipMessageId messageId, int ttl, DataType dataType, ByteBuf data) {
+        Preconditions.checkState(knowledgeBatcher != null, "Session didn't negotiate batched knowledge!");
+        knowledgeBatcher.add(messageId, ttl, dataType, data);
+    }
+
+    @Override
+    public boolean supportsChunkedKnowledge() {
+        return features.contains(Feature.CHUNKED_KNOWLEDGE);
+    }
+
+    @Override
+    public void spreadChunkedKnowledge(GossipMessageId messageId, int ttl, DataType dataType, ByteBuf data) {
+        Preconditions.checkState(supportsChunkedKnowledge(), "Session didn't negotiate chunked knowledge!");
+        ChunkedSender.send(this, data.retainedDuplicate(), (totalLength, offset, chunk) ->
+                new GossipPacketSpreadKnowledgeChunk(messageId, ttl, dataType, totalLength, offset, chunk));
+    }
+
+    @Override
+    public boolean supportsLazyPush() {
+        return features.contains(Feature.LAZY_PUSH);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
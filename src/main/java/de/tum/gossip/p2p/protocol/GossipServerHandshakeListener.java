@@ -93,11 +93,27 @@ public class GossipServerHandshakeListener implements GossipPacketHandler {
             return;
         }
 
+        if (gossipModule.tlsSessionTracker().recordHandshake(GossipCrypto.getSslHandler(channel).engine())) {
+            // resumed sessions skip the trust manager, the root identity is verified against our storage below
+            try {
+                GossipCrypto.checkPeerCertificate(peerCertificateInfo, null);
+            } catch (CertificateException e) {
+                channel.close(new GossipPacketDisconnect.OutboundCloseReason(Reason.AUTHENTICATION, e));
+                return;
+            }
+        }
+
         if (packet.version != GossipPacketHandshakeHello.Version.CURRENT) {
             channel.close(new GossipPacketDisconnect.OutboundCloseReason(Reason.UNSUPPORTED, new GossipPacketHandshakeHello.UnsupportedVersionException()));
             return;
         }
 
+        var mismatch = GossipPacketHandshakeHello.Feature.mandatoryMismatch(packet.features, gossipModule.supportedFeatures());
+        if (mismatch.isPresent()) {
+            channel.close(new GossipPacketDisconnect.OutboundCloseReason(Reason.UNSUPPORTED, "Peers disagree on mandatory feature " + mismatch.get() + "!"));
+            return;
+        }
+
         if (!(peerCertificateInfo.hostKeyCertificate().getPublicKey() instanceof RSAPublicKey tlsKey)) {
             channel.close(new GossipPacketDisconnect.OutboundCloseReason(Reason.AUTHENTICATION, "Unexpected certificate chain. Root is not a host key!"));
             return;
@@ -145,7 +161,8 @@ public class GossipServerHandshakeListener implements GossipPacketHandler {
         }
 
         // switching protocol state into SESSION
-        var handler = new GossipEstablishedSession(gossipModule, clientPeerInfo, true);
+        var features = GossipPacketHandshakeHello.Feature.negotiate(packet.features, gossipModule.supportedFeatures());
+        var handler = new GossipEstablishedSession(gossipModule, clientPeerInfo, true, features);
         channel.replacePacketHandler(handler);
     }
 
@@ -0,0 +1,148 @@
+package de.tum.gossip.p2p.protocol;
+
+import de.tum.gossip.net.ChannelInboundHandler;
+import de.tum.gossip.net.PacketEncoder;
+import de.tum.gossip.p2p.packets.GossipPacketSpreadKnowledge;
+import de.tum.gossip.p2p.packets.GossipPacketSpreadKnowledgeBatch;
+import de.tum.gossip.p2p.util.DataType;
+import de.tum.gossip.p2p.util.GossipMessageId;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Aggregates knowledge spread to a single session into {@link GossipPacketSpreadKnowledgeBatch} packets.
+ * <p>
+ * A batch is sent once it reaches {@link #SIZE_THRESHOLD} bytes or {@link #WINDOW_MILLIS} after its first entry was added,
+ * whatever happens first. Entries which don't fit into a batch frame are sent as a single {@link GossipPacketSpreadKnowledge}.
+ */
+public class KnowledgeBatcher {
+    /**
+     * The maximum time an entry is held back.
+     */
+    public static final long WINDOW_MILLIS = 2;
+    /**
+     * Batches are sent once their entries exceed this size. Chosen to fit a single TLS record.
+     */
+    public static final int SIZE_THRESHOLD = 16 * 1024;
+    /**
+     * The maximum size of the entries of a single batch, limited by the maximum frame length.
+     */
+    static final int MAX_ENTRIES_SIZE = PacketEncoder.MAX_FRAME_LENGTH - PacketEncoder.HEADER_SIZE - GossipPacketSpreadKnowledgeBatch.HEADER_SIZE;
+
+    private final ChannelInboundHandler channel;
+    private final Lock lock = new ReentrantLock();
+
+    // below fields are guarded by the `lock`
+    @Nullable
+    private ByteBuf entries;
+    private int count;
+    private boolean released;
+
+    public KnowledgeBatcher(ChannelInboundHandler channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Adds a knowledge entry to the current batch.
+     * @param data - The payload. It is copied into the batch, the caller keeps ownership.
+     */
+    public void add(GossipMessageId messageId, int ttl, DataType dataType, ByteBuf data) {
+        int entrySize = GossipPacketSpreadKnowledgeBatch.entrySize(data);
+        if (entrySize > MAX_ENTRIES_SIZE) {
+            // doesn't fit a batch frame, send it separately
+            channel.sendPacket(new GossipPacketSpreadKnowledge(messageId, ttl, dataType, data.retainedDuplicate()));
+            return;
+        }
+
+        GossipPacketSpreadKnowledgeBatch full = null;
+        GossipPacketSpreadKnowledgeBatch ready = null;
+        boolean scheduleFlush = false;
+
+        lock.lock();
+        try {
+            if (released) {
+                return;
+            }
+
+            if (entries != null && (entries.readableBytes() + entrySize > MAX_ENTRIES_SIZE || count == 0xFFFF)) {
+                full = takeBatch();
+            }
+
+            if (entries == null) {
+                entries = ByteBufAllocator.DEFAULT.directBuffer(Math.min(SIZE_THRESHOLD, MAX_ENTRIES_SIZE), MAX_ENTRIES_SIZE);
+                scheduleFlush = true;
+            }
+
+            GossipPacketSpreadKnowledgeBatch.writeEntry(entries, messageId, ttl, dataType, data);
+            count++;
+
+            if (entries.readableBytes() >= SIZE_THRESHOLD) {
+                ready = takeBatch();
+                scheduleFlush = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // packets are sent outside the lock
+        if (full != null) {
+            channel.sendPacket(full);
+        }
+        if (ready != null) {
+            channel.sendPacket(ready);
+        }
+        if (scheduleFlush) {
+            channel.getHandle().eventLoop().schedule(this::flush, WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends the current batch, if any.
+     */
+    public void flush() {
+        GossipPacketSpreadKnowledgeBatch batch;
+        lock.lock();
+        try {
+            batch = takeBatch();
+        } finally {
+            lock.unlock();
+        }
+
+        if (batch != null) {
+            channel.sendPacketAndFlush(batch);
+        }
+    }
+
+    /**
+     * Releases the current batch. Any entries added afterwards are discarded.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            released = true;
+            if (entries != null) {
+                entries.release();
+                entries = null;
+                count = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private @Nullable GossipPacketSpreadKnowledgeBatch takeBatch() {
+        if (entries == null) {
+            return null;
+        }
+
+        var batch = new GossipPacketSpreadKnowledgeBatch(count, entries);
+        entries = null;
+        count = 0;
+        return batch;
+    }
+}
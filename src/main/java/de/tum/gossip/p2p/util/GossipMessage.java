@@ -1,29 +1,67 @@
 package de.tum.gossip.p2p.util;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Sets;
-import de.tum.gossip.p2p.protocol.EstablishedSession;
+import io.netty.buffer.ByteBuf;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Encapsulates all context information of a gossip knowledge message that is part of the network.
+ * <p>
+ * A knowledge base holds many messages, therefore the mutable state is kept in plain volatile fields
+ * updated through field updaters, instead of separate atomic objects per message.
+ * Sessions are referred to by the small integer slot the {@link de.tum.gossip.p2p.GossipModule} assigned them,
+ * such that a message doesn't keep disconnected sessions reachable. Once a slot is freed, the bits of the former
+ * session are dropped lazily, on the next access of the message (see {@link SlotEpochs}).
  */
 public class GossipMessage {
+    private static final AtomicLongFieldUpdater<GossipMessage> TRANSMISSIONS
+            = AtomicLongFieldUpdater.newUpdater(GossipMessage.class, "transmissions");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<GossipMessage, List> NOTIFICATION_IDS
+            = AtomicReferenceFieldUpdater.newUpdater(GossipMessage.class, List.class, "notificationIds");
+    private static final AtomicIntegerFieldUpdater<GossipMessage> PENDING_VALIDATIONS
+            = AtomicIntegerFieldUpdater.newUpdater(GossipMessage.class, "pendingValidations");
+    private static final AtomicIntegerFieldUpdater<GossipMessage> DATA_HOLDERS
+            = AtomicIntegerFieldUpdater.newUpdater(GossipMessage.class, "dataHolders");
+
+    /**
+     * Value of the session slot for messages sent by us.
+     */
+    public static final int LOCAL_SLOT = -1;
+    /**
+     * Estimated heap footprint of a message in bytes, excluding the payload (message, id and cache entry).
+     */
+    public static final int METADATA_WEIGHT = 128;
+
     /**
      * The Gossip Message id.
      */
     public final GossipMessageId messageId;
+
+    /**
+     * Bitset of the session slots we sent knowledge packets to already (contains the slot we received the message from,
+     * to easily check for targets). Holds slots 0 to 63, see {@link #moreTransmissions} for the remaining ones.
+     */
+    private volatile long transmissions;
+    /**
+     * Bitset of the session slots starting at 64. Only allocated if there are more than 64 slots.
+     */
+    @Nullable
+    private final AtomicLongArray moreTransmissions;
     /**
-     * Null if the message was sent by us. Otherwise, sent to the session we received the message from.
+     * The free epochs of the session slots.
      */
-    public final AtomicReference<EstablishedSession> receivedFrom;
+    private final SlotEpochs slotEpochs;
     /**
-     * The set of destinations we sent knowledge packets already (contains `receivedFrom` to easily check for targets).
+     * The slot epoch the transmission bits were reconciled with. Bits of slots freed after this epoch are stale.
      */
-    public final Set<EstablishedSession> completedTransmissions;
+    private volatile long syncedEpoch;
 
     // KNOWLEDGE
     /**
@@ -36,43 +74,76 @@ public class GossipMessage {
      */
     public final DataType dataType;
     /**
-     * The message data for the given data type.
+     * The message data for the given data type. The message owns one reference of the buffer,
+     * which is released once the message is removed from the knowledge base (see {@link #release()}).
      */
-    public final byte[] data;
+    private final ByteBuf data;
+    /**
+     * The length of the {@link #data}, captured upfront, as the buffer must not be accessed once released.
+     */
+    private final int dataLength;
+    /**
+     * The amount of holders guarding the {@link #data} reference: the knowledge base, plus any thread
+     * currently taking a new reference (see {@link #retainedData()}). The data is released once it drops to zero.
+     * <p>
+     * Pooled buffers are recycled once released and handed out to other allocations with a fresh reference count.
+     * Therefore, the buffer itself can't tell whether it was released, and must only be retained while we hold it.
+     */
+    private volatile int dataHolders = 1;
 
     /**
-     * The notificationId used within the API-layer protocol. It is only set, if we expect validations
-     * (expect to continue to spread the message into the network).
+     * The notification ids used within the API-layer protocol, one for every notified API connection.
+     * It is only set, if we expect validations (expect to continue to spread the message into the network).
      */
-    public final AtomicReference<MessageNotificationId> notificationId;
+    @Nullable
+    private volatile List<NotificationIdSpace.Allocation> notificationIds;
     /**
      * The amount of pending validation we expect to receive from the API layer (typically 1).
      * A count of 0, indicates that everything was validated and the packet can be sent further into the network.
      * A value of -1, indicates that is not expected to be forwarded (e.g. ttl ran out), and consequentially no
      * validations are expected to arrive.
      */
-    private final AtomicInteger pendingValidations;
+    private volatile int pendingValidations = -1;
+    /**
+     * Set once the message was spread into the network, i.e. it was validated by all local modules.
+     * Only then, it is handed out to peers requesting it.
+     */
+    private volatile boolean spread;
 
-    public GossipMessage(GossipMessageId messageId, int nextTTL, DataType dataType, byte[] data) {
-        this(messageId, null, nextTTL, dataType, data);
+    /**
+     * @param slotEpochs - The session slots.
+     * @param data - The message data. The message takes ownership of the provided reference.
+     */
+    public GossipMessage(GossipMessageId messageId, SlotEpochs slotEpochs, int nextTTL, DataType dataType, ByteBuf data) {
+        this(messageId, slotEpochs, LOCAL_SLOT, slotEpochs.current(), nextTTL, dataType, data);
     }
 
-    public GossipMessage(GossipMessageId messageId, EstablishedSession receivedFrom, int nextTTL, DataType dataType, byte[] data) {
+    /**
+     * @param slotEpochs - The session slots.
+     * @param receivedFrom - The slot of the session we received the message from, or {@link #LOCAL_SLOT} if the message was sent by us.
+     * @param epoch - The slot epoch observed before the {@code receivedFrom} slot was looked up.
+     *              If the slot is freed in the meantime, its bit is dropped once the message is accessed.
+     * @param data - The message data. The message takes ownership of the provided reference.
+     */
+    public GossipMessage(GossipMessageId messageId, SlotEpochs slotEpochs, int receivedFrom, long epoch, int nextTTL, DataType dataType, ByteBuf data) {
         Preconditions.checkState(nextTTL != 1);
+        int slots = slotEpochs.slots();
+        Preconditions.checkArgument(receivedFrom < slots, "Slot %s exceeds the amount of slots %s", receivedFrom, slots);
 
         this.messageId = messageId;
-        this.receivedFrom = new AtomicReference<>(receivedFrom);
-        this.completedTransmissions = Sets.newConcurrentHashSet();
-        if (receivedFrom != null) {
-            this.completedTransmissions.add(receivedFrom);
+        this.moreTransmissions = slots > Long.SIZE
+                ? new AtomicLongArray((slots - 1) / Long.SIZE)
+                : null;
+        this.slotEpochs = slotEpochs;
+        this.syncedEpoch = epoch;
+        if (receivedFrom != LOCAL_SLOT) {
+            setTransmitted(receivedFrom);
         }
 
         this.nextTTL = nextTTL;
         this.dataType = dataType;
         this.data = data;
-
-        this.notificationId = new AtomicReference<>();
-        this.pendingValidations = new AtomicInteger(-1);
+        this.dataLength = data.readableBytes();
     }
 
     public boolean shouldForward() {
@@ -80,14 +151,171 @@ public class GossipMessage {
         return nextTTL >= 0;
     }
 
-    public void initPendingValidations(MessageNotificationId notificationId, int pendingValidations) {
-        boolean success = this.notificationId.compareAndSet(null, notificationId);
+    /**
+     * Marks the message as sent to the session of the provided slot.
+     * @return True if the message wasn't sent to the slot before.
+     */
+    public boolean markTransmitted(int slot) {
+        syncSlots();
+        return setTransmitted(slot);
+    }
+
+    private boolean setTransmitted(int slot) {
+        long mask = 1L << slot; // shifts are taken modulo 64
+        if (slot < Long.SIZE) {
+            return (TRANSMISSIONS.getAndAccumulate(this, mask, (word, bit) -> word | bit) & mask) == 0;
+        }
+
+        Preconditions.checkState(moreTransmissions != null, "Slot %s exceeds the amount of slots", slot);
+        return (moreTransmissions.getAndAccumulate(slot / Long.SIZE - 1, mask, (word, bit) -> word | bit) & mask) == 0;
+    }
+
+    /**
+     * @return True if the message was sent to (or received from) the session of the provided slot.
+     */
+    public boolean isTransmitted(int slot) {
+        syncSlots();
+        long mask = 1L << slot;
+        if (slot < Long.SIZE) {
+            return (transmissions & mask) != 0;
+        }
+        return moreTransmissions != null && (moreTransmissions.get(slot / Long.SIZE - 1) & mask) != 0;
+    }
+
+    /**
+     * Drops the bits of slots freed since the last access, as they belonged to former sessions.
+     * A mark is only set after the marking thread reconciled the bits with an epoch past the free of that slot,
+     * therefore a concurrent reconciliation never drops the mark of the current session of a slot.
+     */
+    private void syncSlots() {
+        long epoch = slotEpochs.current();
+        if (syncedEpoch >= epoch) {
+            return;
+        }
+
+        synchronized (this) {
+            long synced = syncedEpoch;
+            if (synced >= epoch) {
+                return;
+            }
+
+            for (int slot = 0; slot < slotEpochs.slots(); slot++) {
+                if (slotEpochs.freedAt(slot) > synced) {
+                    clearTransmission(slot);
+                }
+            }
+            this.syncedEpoch = epoch;
+        }
+    }
+
+    /**
+     * Forgets about transmissions to the provided slot.
+     */
+    public void clearTransmission(int slot) {
+        long mask = ~(1L << slot);
+        if (slot < Long.SIZE) {
+            TRANSMISSIONS.getAndAccumulate(this, mask, (word, bits) -> word & bits);
+        } else if (moreTransmissions != null) {
+            moreTransmissions.getAndAccumulate(slot / Long.SIZE - 1, mask, (word, bits) -> word & bits);
+        }
+    }
+
+    /**
+     * @param notificationIds - The notification ids the message was sent out with. If the message should be forwarded,
+     *                        a validation is expected for every id.
+     */
+    public void initPendingValidations(List<NotificationIdSpace.Allocation> notificationIds) {
+        boolean success = NOTIFICATION_IDS.compareAndSet(this, null, notificationIds);
         Preconditions.checkState(success, "Reached inconsistent state!");
-        this.pendingValidations.set(pendingValidations);
+        if (shouldForward()) {
+            this.pendingValidations = notificationIds.size();
+        }
     }
 
     public boolean reportValidity() {
-        var result = pendingValidations.decrementAndGet();
+        var result = PENDING_VALIDATIONS.decrementAndGet(this);
         return result == 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * Marks the message as spread into the network.
+     */
+    public void markSpread() {
+        this.spread = true;
+    }
+
+    /**
+     * @return True if the message was spread into the network, see {@link #markSpread()}.
+     */
+    public boolean isSpread() {
+        return spread;
+    }
+
+    /**
+     * Releases the notification ids not yet released by their validation.
+     * Called once the message is removed from the knowledge base.
+     */
+    public void releaseNotificationIds() {
+        var notificationIds = this.notificationIds;
+        if (notificationIds != null) {
+            notificationIds.forEach(NotificationIdSpace.Allocation::release);
+        }
+    }
+
+    /**
+     * @return The weight of the message within a byte bounded knowledge base.
+     */
+    public int weight() {
+        return METADATA_WEIGHT + dataLength;
+    }
+
+    /**
+     * @return The size of the message data in bytes.
+     */
+    public int dataLength() {
+        return dataLength;
+    }
+
+    /**
+     * Retrieves a new reference to the message data. The caller is responsible to release the returned buffer.
+     * @return Returns a retained duplicate of the message data, or {@code null} if the message was
+     *  already released (e.g. evicted from the knowledge base concurrently).
+     */
+    public @Nullable ByteBuf retainedData() {
+        int holders;
+        do {
+            holders = dataHolders;
+            if (holders == 0) {
+                return null;
+            }
+        } while (!DATA_HOLDERS.compareAndSet(this, holders, holders + 1));
+
+        try {
+            // we hold the data, therefore it wasn't released yet
+            return data.retainedDuplicate();
+        } finally {
+            releaseHolder();
+        }
+    }
+
+    /**
+     * Releases the reference to the message data owned by this message.
+     * Called once the message is removed from the knowledge base. The data is freed once
+     * concurrent calls of {@link #retainedData()} took their own reference.
+     */
+    public void release() {
+        releaseHolder();
+    }
+
+    private void releaseHolder() {
+        int holders;
+        do {
+            holders = dataHolders;
+            Preconditions.checkState(holders > 0, "Message data was released already!");
+        } while (!DATA_HOLDERS.compareAndSet(this, holders, holders - 1));
+
+        if (holders == 1) {
+            data.release();
+        }
+    }
+}
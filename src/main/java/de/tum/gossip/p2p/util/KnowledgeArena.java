@@ -0,0 +1,56 @@
+package de.tum.gossip.p2p.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * Off-heap storage for the payloads of the knowledge base.
+ * <p>
+ * Payloads are copied into direct buffers of a dedicated pooled allocator. A message therefore holds exactly
+ * its payload, instead of pinning the (potentially much larger) inbound frame it was sliced from, and payload
+ * memory is invisible to the garbage collector. The allocator is not shared with the network layer, such that
+ * {@link #usedBytes()} reflects the memory of the knowledge base alone.
+ */
+public class KnowledgeArena {
+    /**
+     * Size of the pages handed out by the allocator. Payloads are rounded up to a size class below this size.
+     */
+    private static final int PAGE_SIZE = 8192;
+    /**
+     * Chunks span {@code PAGE_SIZE << MAX_ORDER} bytes (1 MiB).
+     */
+    private static final int MAX_ORDER = 7;
+
+    private final PooledByteBufAllocator allocator;
+
+    public KnowledgeArena() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * @param arenas - The amount of allocator arenas, which bounds the contention of concurrent allocations.
+     */
+    public KnowledgeArena(int arenas) {
+        // no thread local caches, freed payloads are returned to the arena right away
+        this.allocator = new PooledByteBufAllocator(true, 0, arenas, PAGE_SIZE, MAX_ORDER, 0, 0, false);
+    }
+
+    /**
+     * Copies the provided payload into the arena.
+     * @param data - The payload. The reference is borrowed, its reader index isn't modified.
+     * @return The copy, sized to the payload. The caller owns the returned reference.
+     */
+    public ByteBuf copyOf(ByteBuf data) {
+        int length = data.readableBytes();
+        ByteBuf copy = allocator.directBuffer(length, length);
+        copy.writeBytes(data, data.readerIndex(), length);
+        return copy;
+    }
+
+    /**
+     * @return The direct memory in bytes held by the arena, including memory of freed payloads retained for reuse.
+     */
+    public long usedBytes() {
+        return allocator.metric().usedDirectMemory();
+    }
+}
@@ -1,10 +1,5 @@
 package de.tum.gossip.p2p.util;
 
-import de.tum.gossip.crypto.GossipCrypto;
-
-import java.nio.ByteBuffer;
-import java.util.Arrays;
-
 /**
  * The identifier to identity pairs of {@link de.tum.gossip.api.packets.APIPacketGossipNotification}
  * and {@link de.tum.gossip.api.packets.APIPacketGossipValidation}.
@@ -13,32 +8,28 @@ import java.util.Arrays;
  *
  * @param messageId - 2 Bytes message Id.
  */
-public record MessageNotificationId(byte[] messageId) {
-    public MessageNotificationId(int messageId) {
-        this(ByteBuffer.allocate(2).putShort((short) messageId).array());
-    }
+public record MessageNotificationId(short messageId) {
+    /**
+     * The amount of distinct notification ids.
+     */
+    public static final int CAPACITY = 1 << Short.SIZE;
 
-    public static MessageNotificationId createEmpty() {
-        return new MessageNotificationId(new byte[2]);
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        MessageNotificationId that = (MessageNotificationId) o;
-        return Arrays.equals(messageId, that.messageId);
+    public MessageNotificationId(int messageId) {
+        this((short) messageId);
     }
 
-    @Override
-    public int hashCode() {
-        return Arrays.hashCode(messageId);
+    /**
+     * @return The unsigned value of the id, in the range of [0, {@link #CAPACITY}).
+     *  Used to index tables keyed by notification ids.
+     */
+    public int index() {
+        return Short.toUnsignedInt(messageId);
     }
 
     @Override
     public String toString() {
         return "NotificationId{" +
-                GossipCrypto.formatHex(messageId) +
+                String.format("%04x", index()) +
                 '}';
     }
 }
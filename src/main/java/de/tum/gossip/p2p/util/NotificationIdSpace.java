@@ -0,0 +1,224 @@
+package de.tum.gossip.p2p.util;
+
+import de.tum.gossip.api.APIConnection;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * The {@link MessageNotificationId}s of a single API connection, translating them back to the {@link GossipMessageId}
+ * of the message awaiting validation.
+ * <p>
+ * Every API connection has its own space, such that a slow validator exhausts only its own ids.
+ * Ids are tracked in a bitmap. Allocating scans the bitmap a word (64 ids) at a time, starting at a rotating cursor,
+ * and claims a free bit with a CAS. Therefore, allocation is lock-free and bounded by the amount of words,
+ * independent of how many ids are in use.
+ * <p>
+ * Ids are released once validated ({@link #release(MessageNotificationId)}) or once their message is removed
+ * from the knowledge base ({@link Allocation#release()}). Ids not validated within the {@link #VALIDATION_TIMEOUT_NANOS}
+ * are reclaimed by {@link #expire()}, which the owner runs every {@link #SWEEP_INTERVAL_NANOS}. The sweep scans the whole
+ * space, therefore it never runs on the allocation path. If there is no free id, {@link #allocate(GossipMessageId)} returns null.
+ * <p>
+ * A reclaimed id is handed to the expiry handler, which settles its message, as the validation won't be counted anymore.
+ * The id itself is quarantined for {@link #QUARANTINE_NANOS} before it is reused. Therefore, a late validation of the
+ * expired message is rejected, instead of releasing the allocation of another message.
+ */
+public class NotificationIdSpace {
+    /**
+     * Allocated ids not validated within this amount of nanoseconds may be reclaimed.
+     */
+    public static final long VALIDATION_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(2);
+    /**
+     * Reclaimed ids are reused after this amount of nanoseconds.
+     */
+    public static final long QUARANTINE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    /**
+     * The interval {@link #expire()} is expected to run at. Bounds how long an id outlives its timeout or its quarantine.
+     */
+    public static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final int WORDS = MessageNotificationId.CAPACITY / Long.SIZE;
+
+    /**
+     * A notification id handed out for a message.
+     * @param space - The space the id was allocated from.
+     * @param notificationId - The notification id.
+     * @param messageId - The message the id translates to.
+     * @param deadline - The {@link System#nanoTime()} after which the id may be reclaimed.
+     */
+    public record Allocation(NotificationIdSpace space, MessageNotificationId notificationId, GossipMessageId messageId, long deadline) {
+        /**
+         * Releases the id, if it wasn't released already.
+         */
+        public void release() {
+            space.release(this);
+        }
+    }
+
+    /**
+     * @param index - The quarantined index.
+     * @param until - The {@link System#nanoTime()} after which the index may be reused.
+     */
+    private record Quarantine(int index, long until) {}
+
+    private final APIConnection connection;
+    private final LongSupplier nanoTime;
+    private final Consumer<Allocation> expiryHandler;
+
+    private final AtomicLongArray used = new AtomicLongArray(WORDS);
+    private final AtomicReferenceArray<Allocation> allocations = new AtomicReferenceArray<>(MessageNotificationId.CAPACITY);
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    // reclaimed indices, ordered by the end of their quarantine. Guarded by the monitor of the space.
+    private final ArrayDeque<Quarantine> quarantine = new ArrayDeque<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder exhaustions = new LongAdder();
+
+    public NotificationIdSpace(APIConnection connection, Consumer<Allocation> expiryHandler) {
+        this(connection, System::nanoTime, expiryHandler);
+    }
+
+    /**
+     * @param connection - The API connection the ids are sent to.
+     * @param nanoTime - The time source used for the {@link #VALIDATION_TIMEOUT_NANOS} and the {@link #QUARANTINE_NANOS}.
+     * @param expiryHandler - Called with every allocation reclaimed before it was validated.
+     */
+    public NotificationIdSpace(APIConnection connection, LongSupplier nanoTime, Consumer<Allocation> expiryHandler) {
+        this.connection = connection;
+        this.nanoTime = nanoTime;
+        this.expiryHandler = expiryHandler;
+    }
+
+    /**
+     * @return The API connection the ids are sent to.
+     */
+    public APIConnection connection() {
+        return connection;
+    }
+
+    /**
+     * Allocates a free notification id.
+     * @param messageId - The message the id translates to.
+     * @return The allocation, or null if all ids are in use.
+     */
+    public @Nullable Allocation allocate(GossipMessageId messageId) {
+        int index = claim();
+        if (index < 0) {
+            exhaustions.increment();
+            return null;
+        }
+
+        var allocation = new Allocation(this, new MessageNotificationId(index), messageId, nanoTime.getAsLong() + VALIDATION_TIMEOUT_NANOS);
+        allocations.set(index, allocation);
+        size.incrementAndGet();
+        return allocation;
+    }
+
+    /**
+     * Releases the provided id, e.g. once its validation arrived.
+     * @return The message id the notification id translated to, or null if the id wasn't allocated.
+     */
+    public @Nullable GossipMessageId release(MessageNotificationId notificationId) {
+        var allocation = allocations.get(notificationId.index());
+        if (allocation == null || !release(allocation)) {
+            return null;
+        }
+        return allocation.messageId;
+    }
+
+    /**
+     * @return The amount of allocated ids.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return The amount of allocations which failed, as all ids were in use.
+     */
+    public long exhaustedCount() {
+        return exhaustions.sum();
+    }
+
+    private boolean release(Allocation allocation) {
+        int index = allocation.notificationId.index();
+        // compares by identity, the slot might already be reused by a later allocation
+        if (!allocations.compareAndSet(index, allocation, null)) {
+            return false;
+        }
+
+        free(index);
+        size.decrementAndGet();
+        return true;
+    }
+
+    private void free(int index) {
+        long mask = 1L << index;
+        used.getAndUpdate(index / Long.SIZE, word -> word & ~mask);
+    }
+
+    /**
+     * @return The claimed index, or -1 if there is no free index.
+     */
+    private int claim() {
+        int start = cursor.getAndIncrement();
+        for (int i = 0; i < WORDS; i++) {
+            int wordIndex = (start + i) & (WORDS - 1);
+
+            long word;
+            while ((word = used.get(wordIndex)) != -1L) {
+                int bit = Long.numberOfTrailingZeros(~word);
+                if (used.compareAndSet(wordIndex, word, word | (1L << bit))) {
+                    return wordIndex * Long.SIZE + bit;
+                }
+                // lost the race for this word, retry with its updated value
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Frees the indices whose quarantine ended and quarantines the indices of expired allocations.
+     * Scans the whole space, call it periodically (see {@link #SWEEP_INTERVAL_NANOS}) and not on the allocation path.
+     * Concurrent sweeps are serialized by the monitor of the space.
+     * @return The amount of freed indices.
+     */
+    public int expire() {
+        long now = nanoTime.getAsLong();
+        int freed = 0;
+        List<Allocation> expired = new ArrayList<>();
+
+        synchronized (this) {
+            Quarantine quarantined;
+            while ((quarantined = quarantine.peek()) != null && now - quarantined.until > 0) {
+                quarantine.poll();
+                free(quarantined.index);
+                freed++;
+            }
+
+            for (int index = 0; index < MessageNotificationId.CAPACITY && size.get() > 0; index++) {
+                var allocation = allocations.get(index);
+                // the index stays claimed, it is only freed once its quarantine ended
+                if (allocation != null && now - allocation.deadline > 0 && allocations.compareAndSet(index, allocation, null)) {
+                    size.decrementAndGet();
+                    quarantine.add(new Quarantine(index, now + QUARANTINE_NANOS));
+                    expired.add(allocation);
+                }
+            }
+        }
+
+        // the handler might release other ids of this space, therefore we call it without holding the monitor
+        expired.forEach(expiryHandler);
+        return freed;
+    }
+}
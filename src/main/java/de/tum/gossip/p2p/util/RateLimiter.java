@@ -0,0 +1,120 @@
+package de.tum.gossip.p2p.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the rate of operations with a pair of token buckets, one refilled per second and one refilled per minute.
+ * <p>
+ * The buckets are refilled lazily from the time source on every acquire, there are no scheduled tasks.
+ * Every bucket is represented by a single timestamp, the theoretical arrival time of the next token
+ * (generic cell rate algorithm). A bucket holding {@code rate} tokens, refilled by one token every
+ * {@code period / rate}, admits an operation as long as this timestamp isn't more than
+ * {@code period - period / rate} ahead of now. Acquiring a token advances the timestamp by {@code period / rate}
+ * with a single CAS. A bucket idle for a full period is full again, therefore a limiter not accessed for
+ * a minute can simply be dropped (see {@link #IDLE_NANOS}).
+ * <p>
+ * Many limiters exist at once (one per remote address or peer), therefore the state is kept in
+ * plain volatile fields updated through field updaters.
+ */
+public class RateLimiter {
+    private static final AtomicLongFieldUpdater<RateLimiter> SECOND_ARRIVAL
+            = AtomicLongFieldUpdater.newUpdater(RateLimiter.class, "secondArrival");
+    private static final AtomicLongFieldUpdater<RateLimiter> MINUTE_ARRIVAL
+            = AtomicLongFieldUpdater.newUpdater(RateLimiter.class, "minuteArrival");
+
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * A limiter not accessed for this amount of nanoseconds holds full buckets and is indistinguishable from a new one.
+     */
+    public static final long IDLE_NANOS = MINUTE_NANOS;
+
+    /**
+     * @param perSecond - The amount of operations admitted per second.
+     * @param perMinute - The amount of operations admitted per minute.
+     */
+    public record Configuration(int perSecond, int perMinute) {
+        public Configuration {
+            Preconditions.checkArgument(perSecond > 0, "Rate per second must be positive!");
+            Preconditions.checkArgument(perMinute > 0, "Rate per minute must be positive!");
+        }
+    }
+
+    private final LongSupplier nanoTime;
+
+    private final long secondInterval;
+    private final long secondTolerance;
+    private final long minuteInterval;
+    private final long minuteTolerance;
+
+    /**
+     * The theoretical arrival time of the next token of the per second bucket.
+     */
+    private volatile long secondArrival;
+    /**
+     * The theoretical arrival time of the next token of the per minute bucket.
+     */
+    private volatile long minuteArrival;
+
+    public RateLimiter(Configuration configuration) {
+        this(configuration, System::nanoTime);
+    }
+
+    /**
+     * @param configuration - The rates of the buckets.
+     * @param nanoTime - The time source the buckets are refilled from.
+     */
+    public RateLimiter(Configuration configuration, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+
+        this.secondInterval = SECOND_NANOS / configuration.perSecond();
+        this.secondTolerance = SECOND_NANOS - secondInterval;
+        this.minuteInterval = MINUTE_NANOS / configuration.perMinute();
+        this.minuteTolerance = MINUTE_NANOS - minuteInterval;
+
+        // nanoTime might be negative, both buckets start out full
+        long now = nanoTime.getAsLong();
+        this.secondArrival = now;
+        this.minuteArrival = now;
+    }
+
+    /**
+     * Takes a token from both buckets.
+     * @return True if the operation is admitted, false if one of the buckets is empty.
+     *  A rejected operation doesn't consume any tokens.
+     */
+    public boolean tryAcquire() {
+        long now = nanoTime.getAsLong();
+        if (!tryAcquire(SECOND_ARRIVAL, now, secondInterval, secondTolerance)) {
+            return false;
+        }
+
+        if (!tryAcquire(MINUTE_ARRIVAL, now, minuteInterval, minuteTolerance)) {
+            // return the token of the per second bucket, the operation wasn't admitted
+            SECOND_ARRIVAL.getAndAdd(this, -secondInterval);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean tryAcquire(AtomicLongFieldUpdater<RateLimiter> bucket, long now, long interval, long tolerance) {
+        while (true) {
+            long arrival = bucket.get(this);
+            // a bucket behind the current time is full, tokens don't accumulate beyond its capacity
+            long next = arrival - now > 0 ? arrival : now;
+            if (next - now > tolerance) {
+                return false;
+            }
+
+            if (bucket.compareAndSet(this, arrival, next + interval)) {
+                return true;
+            }
+            // lost the race against a concurrent acquire, retry with the updated arrival time
+        }
+    }
+}
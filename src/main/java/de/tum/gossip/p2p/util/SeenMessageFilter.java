@@ -0,0 +1,162 @@
+package de.tum.gossip.p2p.util;
+
+import com.google.common.base.Preconditions;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the ids of messages seen recently, independent of the knowledge base.
+ * Once a message is evicted from the knowledge base, late duplicates are still recognized,
+ * instead of being delivered and spread again.
+ * <p>
+ * The ids are stored in a rotating pair of Bloom filters. New ids are added to the current generation, lookups consult
+ * the current and the previous generation. Once the current generation reached its capacity or its time window elapsed,
+ * it becomes the previous generation and the former previous one is dropped. Thereby, an id is remembered for at least
+ * one window (or one capacity worth of ids), while the false positive rate stays bounded.
+ * <p>
+ * A false positive suppresses a message which wasn't seen before. Therefore, the filter is dimensioned for a low
+ * false positive rate and every instance hashes with its own random seed, such that peers don't share false positives.
+ */
+public class SeenMessageFilter {
+    public static final int DEFAULT_CAPACITY = 1 << 18;
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 1e-4;
+    public static final long DEFAULT_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private static final class Generation {
+        private final AtomicLongArray bits;
+        private final long created;
+        private final AtomicInteger count = new AtomicInteger();
+
+        Generation(int words, long created) {
+            this.bits = new AtomicLongArray(words);
+            this.created = created;
+        }
+    }
+
+    private record Generations(Generation current, Generation previous) {}
+
+    private final int capacity;
+    private final long windowNanos;
+    private final LongSupplier nanoTime;
+
+    private final int words;
+    private final long bitCount;
+    private final int hashFunctions;
+    private final long seed = new SecureRandom().nextLong();
+
+    private final AtomicReference<Generations> generations;
+
+    public SeenMessageFilter() {
+        this(DEFAULT_CAPACITY, DEFAULT_FALSE_POSITIVE_RATE, DEFAULT_WINDOW_NANOS, System::nanoTime);
+    }
+
+    /**
+     * @param capacity - The amount of ids a generation holds before it is rotated.
+     * @param falsePositiveRate - The false positive rate of a single, full generation.
+     * @param windowNanos - The time window after which a generation is rotated, even if it isn't full.
+     * @param nanoTime - The time source for the time window.
+     */
+    public SeenMessageFilter(int capacity, double falsePositiveRate, long windowNanos, LongSupplier nanoTime) {
+        Preconditions.checkArgument(capacity > 0, "Capacity must be positive!");
+        Preconditions.checkArgument(falsePositiveRate > 0 && falsePositiveRate < 1, "False positive rate must be in (0, 1)!");
+        this.capacity = capacity;
+        this.windowNanos = windowNanos;
+        this.nanoTime = nanoTime;
+
+        // optimal amount of bits and hash functions for the capacity and the false positive rate
+        long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = Math.toIntExact((optimalBits + Long.SIZE - 1) / Long.SIZE);
+        this.bitCount = (long) words * Long.SIZE;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+
+        long now = nanoTime.getAsLong();
+        this.generations = new AtomicReference<>(new Generations(new Generation(words, now), new Generation(words, now)));
+    }
+
+    /**
+     * @return True if the id was (probably) seen within the time horizon of the filter.
+     */
+    public boolean mightContain(GossipMessageId messageId) {
+        var generations = this.generations.get();
+        long hash = hash(messageId);
+        return contains(generations.current, hash) || contains(generations.previous, hash);
+    }
+
+    /**
+     * Remembers the provided id.
+     */
+    public void add(GossipMessageId messageId) {
+        var generations = rotateIfNeeded();
+        long hash = hash(messageId);
+
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = index(h1, h2, i);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((generations.current.bits.get(word) & mask) == 0) {
+                generations.current.bits.getAndAccumulate(word, mask, (value, bits) -> value | bits);
+            }
+        }
+        generations.current.count.incrementAndGet();
+    }
+
+    /**
+     * @return The size of both generations in bytes.
+     */
+    public long sizeInBytes() {
+        return 2L * words * Long.BYTES;
+    }
+
+    private Generations rotateIfNeeded() {
+        var generations = this.generations.get();
+        long now = nanoTime.getAsLong();
+        var current = generations.current;
+        if (current.count.get() < capacity && now - current.created < windowNanos) {
+            return generations;
+        }
+
+        var rotated = new Generations(new Generation(words, now), current);
+        // if another thread rotated concurrently, we use its generations
+        return this.generations.compareAndSet(generations, rotated) ? rotated : this.generations.get();
+    }
+
+    private boolean contains(Generation generation, long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = index(h1, h2, i);
+            if ((generation.bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(int h1, int h2, int i) {
+        // double hashing, see Kirsch and Mitzenmacher: "Less Hashing, Same Performance"
+        long combined = h1 + (long) i * h2;
+        if (combined < 0) {
+            combined = ~combined;
+        }
+        return combined % bitCount;
+    }
+
+    private long hash(GossipMessageId messageId) {
+        // message ids are chosen by remote peers, the secret seed keeps them from targeting specific bits.
+        // finalizer of MurmurHash3 (fmix64) to spread all bits of the id
+        long hash = messageId.messageId() ^ seed;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
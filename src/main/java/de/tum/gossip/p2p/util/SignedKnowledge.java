@@ -0,0 +1,131 @@
+package de.tum.gossip.p2p.util;
+
+import de.tum.gossip.crypto.GossipCrypto;
+import de.tum.gossip.crypto.HostKey;
+import de.tum.gossip.crypto.PeerIdentity;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.nio.ByteBuffer;
+import java.security.interfaces.RSAPublicKey;
+import java.util.function.Function;
+
+import static de.tum.gossip.crypto.GossipCrypto.SHA256_HASH_BYTES_LENGTH;
+
+/**
+ * Envelope authenticating knowledge end-to-end with the host key of its originator.
+ * <p>
+ * If peers negotiated {@link de.tum.gossip.p2p.packets.GossipPacketHandshakeHello.Feature#SIGNED_KNOWLEDGE}, the knowledge payload of
+ * every spread packet is wrapped into this envelope. The originator signs the message id, the data type and the data.
+ * Every receiver verifies the signature before notifying local modules or forwarding the (unchanged) envelope.
+ * <p>
+ * The envelope only names the {@link PeerIdentity} of the originator. Receivers verify the signature against the public key
+ * they know for that identity, envelopes of unknown originators are rejected. Otherwise, any forwarding peer could
+ * modify the data and sign it again with a key of its choice.
+ * <p>
+ * Format:
+ * <pre>
+ * 32 bytes: identity of the originator (SHA256 hash of its public key)
+ * 2 bytes: length of the signature
+ * m bytes: signature
+ * remaining bytes: data
+ * </pre>
+ */
+public class SignedKnowledge {
+    public static class InvalidSignatureException extends Exception {
+        public InvalidSignatureException(String message) {
+            super(message);
+        }
+
+        public InvalidSignatureException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Signals an envelope whose originator isn't known to the receiver, therefore can't be verified.
+     */
+    public static class UnknownOriginatorException extends InvalidSignatureException {
+        public UnknownOriginatorException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The identity of the originator.
+     */
+    public final PeerIdentity originator;
+    private final byte[] signature;
+    /**
+     * The data contained in the envelope. A slice of the envelope, not retained.
+     */
+    public final ByteBuf data;
+
+    private SignedKnowledge(PeerIdentity originator, byte[] signature, ByteBuf data) {
+        this.originator = originator;
+        this.signature = signature;
+        this.data = data;
+    }
+
+    /**
+     * Signs the provided data and wraps it into an envelope. Performs an RSA operation, don't call on I/O threads.
+     * @param hostKey - The host key of the originator.
+     * @param data - The data. The reference is borrowed, the returned envelope retains its own reference.
+     * @return The envelope. The caller owns the returned reference.
+     */
+    public static ByteBuf sign(HostKey hostKey, GossipMessageId messageId, DataType dataType, ByteBuf data) {
+        byte[] signature = GossipCrypto.Signature.sign(hostKey, signedHeader(messageId, dataType), data.nioBuffer());
+
+        ByteBuf header = Unpooled.buffer(SHA256_HASH_BYTES_LENGTH + 2 + signature.length);
+        header.writeBytes(hostKey.identity.rawBytes());
+        header.writeShort(signature.length);
+        header.writeBytes(signature);
+
+        return Unpooled.wrappedBuffer(header, data.retainedDuplicate());
+    }
+
+    /**
+     * Parses an envelope, without verifying the signature.
+     * @param envelope - The envelope. Its reader index isn't modified.
+     * @return The parsed envelope, whose data is a slice of the provided envelope.
+     * @throws InvalidSignatureException If the envelope is malformed.
+     */
+    public static SignedKnowledge parse(ByteBuf envelope) throws InvalidSignatureException {
+        ByteBuf buf = envelope.duplicate();
+        try {
+            byte[] identity = new byte[SHA256_HASH_BYTES_LENGTH];
+            buf.readBytes(identity);
+            byte[] signature = new byte[buf.readUnsignedShort()];
+            buf.readBytes(signature);
+
+            return new SignedKnowledge(new PeerIdentity(identity), signature, buf.slice());
+        } catch (IndexOutOfBoundsException e) {
+            throw new InvalidSignatureException("Received truncated signed knowledge envelope!", e);
+        }
+    }
+
+    /**
+     * Verifies the signature of the originator. Performs an RSA operation, don't call on I/O threads.
+     * @param originatorKeys - Resolves the public key of a known identity, or returns null if the identity is unknown.
+     * @throws UnknownOriginatorException If the originator isn't known.
+     * @throws InvalidSignatureException If the signature doesn't match the envelope contents and the key of the originator.
+     */
+    public void verify(GossipMessageId messageId, DataType dataType, Function<PeerIdentity, @Nullable RSAPublicKey> originatorKeys) throws InvalidSignatureException {
+        RSAPublicKey publicKey = originatorKeys.apply(originator);
+        if (publicKey == null) {
+            throw new UnknownOriginatorException("Received knowledge " + messageId + " from unknown originator " + originator + "!");
+        }
+
+        if (!GossipCrypto.Signature.verify(signature, publicKey, signedHeader(messageId, dataType), data.nioBuffer())) {
+            throw new InvalidSignatureException("Received knowledge " + messageId + " with an invalid originator signature!");
+        }
+    }
+
+    private static ByteBuffer signedHeader(GossipMessageId messageId, DataType dataType) {
+        ByteBuffer header = ByteBuffer.allocate(GossipMessageId.BYTES + 2);
+        header.putLong(messageId.messageId());
+        header.putShort((short) dataType.dataType());
+        return header.flip();
+    }
+}
@@ -0,0 +1,63 @@
+package de.tum.gossip.p2p.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks when the session slots of a {@link de.tum.gossip.p2p.GossipModule} were freed.
+ * <p>
+ * Every time a slot is freed, the epoch advances and the slot is tagged with the new epoch.
+ * A {@link GossipMessage} remembers the epoch its transmission bits were last reconciled with. Once it observes
+ * a newer epoch, it drops the bits of all slots freed in the meantime, as they belonged to former sessions.
+ * Therefore, freeing a slot is constant time, instead of touching every message of the knowledge base.
+ */
+public class SlotEpochs {
+    private final int slots;
+    /**
+     * The epoch every slot was last freed at, 0 if it was never freed.
+     */
+    private final AtomicLongArray freedAt;
+    private volatile long epoch;
+
+    /**
+     * @param slots - The amount of session slots.
+     */
+    public SlotEpochs(int slots) {
+        Preconditions.checkArgument(slots > 0, "Requires at least one slot!");
+        this.slots = slots;
+        this.freedAt = new AtomicLongArray(slots);
+    }
+
+    /**
+     * @return The amount of session slots.
+     */
+    public int slots() {
+        return slots;
+    }
+
+    /**
+     * @return The current epoch.
+     */
+    public long current() {
+        return epoch;
+    }
+
+    /**
+     * Tags the provided slot as freed, advancing the epoch.
+     * Must not be called concurrently, the module frees slots while holding its session write lock.
+     */
+    public void free(int slot) {
+        long next = epoch + 1;
+        // the slot is tagged before the epoch is published. Whoever observes the new epoch, observes the tag.
+        freedAt.set(slot, next);
+        epoch = next;
+    }
+
+    /**
+     * @return The epoch the provided slot was last freed at.
+     */
+    public long freedAt(int slot) {
+        return freedAt.get(slot);
+    }
+}
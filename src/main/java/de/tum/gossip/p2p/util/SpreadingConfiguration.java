@@ -0,0 +1,48 @@
+package de.tum.gossip.p2p.util;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Configures how knowledge is spread to the established sessions of a peer.
+ *
+ * @param strategy - The spreading strategy.
+ * @param fanout - The amount of sessions receiving the payload eagerly. Ignored by the {@link Strategy#FLOOD} strategy.
+ * @param fetchTimeoutMillis - The time to wait for an eager copy of announced knowledge before requesting it, and
+ *                           before requesting it from the next announcing peer. Only used with {@link Strategy#LAZY_PUSH}.
+ */
+public record SpreadingConfiguration(
+        Strategy strategy,
+        int fanout,
+        int fetchTimeoutMillis
+) {
+    public enum Strategy {
+        /** Push the payload to every session. */
+        FLOOD,
+        /** Push the payload to {@code fanout} randomly chosen sessions, the remaining sessions aren't contacted. */
+        RANDOM_FANOUT,
+        /**
+         * Push the payload to {@code fanout} randomly chosen sessions and announce the message id to the remaining ones,
+         * which request the payload if they didn't receive it otherwise (see
+         * {@link de.tum.gossip.p2p.packets.GossipPacketHandshakeHello.Feature#LAZY_PUSH}).
+         * Sessions not supporting announcements receive the payload eagerly.
+         */
+        LAZY_PUSH,
+        ;
+    }
+
+    public static final int DEFAULT_FANOUT = 6;
+    public static final int DEFAULT_FETCH_TIMEOUT_MILLIS = 200;
+
+    public SpreadingConfiguration {
+        Preconditions.checkNotNull(strategy);
+        Preconditions.checkArgument(fanout > 0 || (fanout == 0 && strategy != Strategy.RANDOM_FANOUT), "Illegal spreading fanout!");
+        Preconditions.checkArgument(fetchTimeoutMillis > 0, "Fetch timeout must be positive!");
+    }
+
+    /**
+     * @return A configuration using the {@link Strategy#FLOOD} strategy.
+     */
+    public static SpreadingConfiguration defaults() {
+        return new SpreadingConfiguration(Strategy.FLOOD, DEFAULT_FANOUT, DEFAULT_FETCH_TIMEOUT_MILLIS);
+    }
+}
@@ -7,11 +7,16 @@ import de.tum.gossip.api.packets.APIPacketGossipNotify;
 import de.tum.gossip.api.packets.APIPacketGossipValidation;
 import de.tum.gossip.net.ConnectionInitializer;
 import de.tum.gossip.net.packets.EmptyPacketHandler;
+import de.tum.gossip.net.packets.PreEncodedPacket;
 import de.tum.gossip.p2p.util.DataType;
 import de.tum.gossip.p2p.util.MessageNotificationId;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.DecoderException;
 import org.junit.jupiter.api.Test;
 
 import java.util.HexFormat;
@@ -52,10 +57,10 @@ class APITests {
 
         ByteBuf buf = channel.readOutbound();
 
-        ByteBuf other;
-        while ((other = channel.readOutbound()) != null) {
-            buf.writeBytes(other);
-        }
+        // the whole frame is encoded into a single, exactly sized buffer
+        assertNull(channel.readOutbound());
+        assertTrue(buf.isDirect());
+        assertEquals(buf.capacity(), buf.readableBytes());
         return buf;
     }
 
@@ -95,7 +100,7 @@ class APITests {
                         + "00:01" // reserved + v
         );
 
-        assertArrayEquals(new byte[] {0x05, 0x39}, packet.messageId.messageId());
+        assertEquals(new MessageNotificationId(0x0539), packet.messageId);
         assertTrue(packet.valid);
     }
 
@@ -104,7 +109,7 @@ class APITests {
         ByteBuf buf = testSimpleOutboundPacket(new APIPacketGossipNotification(
                 new MessageNotificationId(1),
                 new DataType(2),
-                new byte[2]
+                Unpooled.wrappedBuffer(new byte[2])
         ));
 
         var size = buf.readShort();
@@ -126,4 +131,90 @@ class APITests {
 
         buf.release();
     }
-}
\ No newline at end of file
+
+    @Test
+    void preEncodedNotificationTest() throws Exception {
+        var data = Unpooled.wrappedBuffer(new byte[] {0x31, 0x32, 0x33});
+        var expected = testSimpleOutboundPacket(new APIPacketGossipNotification(
+                new MessageNotificationId(1),
+                new DataType(2),
+                data.retainedDuplicate()
+        ));
+
+        var packet = PreEncodedPacket.encode(
+                GossipAPILayer.PROTOCOL,
+                new APIPacketGossipNotification(new MessageNotificationId(1), new DataType(2), data.retainedDuplicate()),
+                UnpooledByteBufAllocator.DEFAULT
+        );
+
+        // encoding consumes the reference of the source packet
+        assertEquals(1, data.refCnt());
+        assertEquals(APIPacketGossipNotification.class, packet.packetType());
+        assertEquals(expected, packet.frame());
+
+        var duplicate = packet.retainedDuplicate();
+        assertEquals(2, packet.refCnt());
+        duplicate.frame().skipBytes(2);
+        assertEquals(0, packet.frame().readerIndex()); // duplicates don't share their reader index
+
+        duplicate.release();
+        packet.release();
+        assertEquals(0, packet.refCnt());
+
+        expected.release();
+        data.release();
+    }
+
+    @Test
+    void fragmentedAndCoalescedFramesTest() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        new ConnectionInitializer(GossipAPILayer.PROTOCOL, EmptyPacketHandler::new, null, false).initChannel(channel);
+
+        var frames = HexFormat.ofDelimiter(":").parseHex(
+                "00:08:01:f5:00:00:00:01:" // notify with data type 1
+                        + "00:0c:01:f4:30:00:00:02:31:32:33:34:" // announce with data type 2
+                        + "00:08:01:f5:00:00:00:03" // notify with data type 3
+        );
+
+        // first frame and a part of the second frame
+        assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(frames, 0, 11)));
+        APIPacketGossipNotify notify = channel.readInbound();
+        assertEquals(1, notify.dataType);
+        assertNull(channel.readInbound());
+
+        // rest of the second frame and the complete third frame
+        assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(frames, 11, frames.length - 11)));
+        APIPacketGossipAnnounce announce = channel.readInbound();
+        assertEquals(2, announce.dataType);
+        assertArrayEquals(new byte[] {0x31, 0x32, 0x33, 0x34}, ByteBufUtil.getBytes(announce.data));
+        announce.release();
+
+        notify = channel.readInbound();
+        assertEquals(3, notify.dataType);
+        assertNull(channel.readInbound());
+
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void malformedFramesTest() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        new ConnectionInitializer(GossipAPILayer.PROTOCOL, EmptyPacketHandler::new, null, false).initChannel(channel);
+
+        // size smaller than the size field itself
+        assertThrows(CorruptedFrameException.class, () -> channel.writeInbound(Unpooled.wrappedBuffer(new byte[] {0x00, 0x01})));
+        // unknown packet type
+        assertThrows(DecoderException.class, () -> channel.writeInbound(Unpooled.wrappedBuffer(new byte[] {0x00, 0x04, 0x00, 0x01})));
+        // frame too short to hold the packet type
+        assertThrows(DecoderException.class, () -> channel.writeInbound(Unpooled.wrappedBuffer(new byte[] {0x00, 0x03, 0x01})));
+        // not exhausted notify packet
+        assertThrows(DecoderException.class, () -> channel.writeInbound(Unpooled.wrappedBuffer(
+                HexFormat.ofDelimiter(":").parseHex("00:09:01:f5:00:00:00:01:ff")
+        )));
+
+        // malformed frames are skipped, the following frames are decoded as usual
+        assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(HexFormat.ofDelimiter(":").parseHex("00:08:01:f5:00:00:00:01"))));
+        APIPacketGossipNotify notify = channel.readInbound();
+        assertEquals(1, notify.dataType);
+    }
+}
@@ -1,5 +1,8 @@
 package de.tum.gossip;
 
+import de.tum.gossip.net.util.OutboundQueueConfiguration;
+import de.tum.gossip.p2p.util.RateLimiter;
+import de.tum.gossip.p2p.util.SpreadingConfiguration;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
@@ -24,5 +27,22 @@ public class ConfigurationTests {
         assertEquals(6001, configuration.p2p_port());
         assertEquals("131.159.15.62", configuration.api_address());
         assertEquals(7001, configuration.api_port());
+
+        var outboundQueue = configuration.outboundQueueConfiguration();
+        assertEquals(16384, outboundQueue.lowWaterMark());
+        assertEquals(32768, outboundQueue.highWaterMark());
+        assertEquals(512, outboundQueue.capacity());
+        assertEquals(OutboundQueueConfiguration.OverflowPolicy.DROP_NEWEST, outboundQueue.overflowPolicy());
+
+        assertTrue(configuration.signed_knowledge());
+        assertEquals(1048576, configuration.cache_bytes());
+
+        assertEquals(new RateLimiter.Configuration(5, 100), configuration.connectRateLimit());
+        assertEquals(new RateLimiter.Configuration(100, 1000), configuration.knowledgeRateLimit());
+
+        var spreading = configuration.spreadingConfiguration();
+        assertEquals(SpreadingConfiguration.Strategy.LAZY_PUSH, spreading.strategy());
+        assertEquals(4, spreading.fanout());
+        assertEquals(SpreadingConfiguration.DEFAULT_FETCH_TIMEOUT_MILLIS, spreading.fetchTimeoutMillis());
     }
 }
\ No newline at end of file
@@ -78,6 +78,17 @@ public class GossipCryptoTests {
         Assertions.assertEquals(hexString, hexString1);
     }
 
+    @Test
+    void testHexParsingLeadingZeros() {
+        var bytes = new byte[32];
+        GossipCrypto.SECURE_RANDOM.nextBytes(bytes);
+        bytes[0] = 0;
+        bytes[1] = 0;
+
+        var output = GossipCrypto.fromHex(GossipCrypto.formatHex(bytes));
+        Assertions.assertArrayEquals(bytes, output);
+    }
+
     @Test
     void testHexParsingString() {
         var output = GossipCrypto.fromHex("809042e1a693a72e3b4de17968f1faf41a886891eb36528d72f1a38322a4b0b4");
@@ -0,0 +1,117 @@
+package de.tum.gossip.crypto;
+
+import de.tum.gossip.crypto.certificates.HostKeyCertificate;
+import de.tum.gossip.crypto.certificates.HostKeySelfSignedX509Certificates;
+import io.netty.util.concurrent.DefaultEventExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the alias handling and rotation of the {@link RotatingHostKeyManager}.
+ */
+public class RotatingHostKeyManagerTests {
+    private static HostKeyCertificate certificate(HostKey hostKey, long validityMillis) {
+        long now = System.currentTimeMillis();
+        return new HostKeySelfSignedX509Certificates(
+                hostKey,
+                HostKeyCertificate.GOSSIP_ISSUER,
+                HostKeyCertificate.GOSSIP_SUBJECT,
+                GossipCrypto.SECURE_RANDOM,
+                384,
+                new Date(now - 60_000),
+                new Date(now + validityMillis)
+        );
+    }
+
+    @Test
+    void testRotationKeepsPreviousAlias() {
+        var hostKey = GossipCrypto.readHostKey(GossipCryptoTests.hostKeyFileFromResources());
+        var keyManager = new RotatingHostKeyManager(hostKey);
+        assertEquals(1, keyManager.generatedCertificates());
+
+        // a fresh chain isn't rotated
+        assertFalse(keyManager.rotateIfExpiring());
+
+        var alias = keyManager.chooseEngineServerAlias("EC", null, null);
+        assertNotNull(alias);
+        assertNull(keyManager.chooseEngineServerAlias("RSA", null, null));
+        assertEquals(alias, keyManager.chooseEngineClientAlias(new String[] { "RSA", "EC" }, null, null));
+
+        var privateKey = keyManager.getPrivateKey(alias);
+        var chain = keyManager.getCertificateChain(alias);
+        assertEquals(2, chain.length);
+
+        keyManager.rotate();
+        assertEquals(2, keyManager.generatedCertificates());
+
+        var nextAlias = keyManager.chooseEngineServerAlias("EC", null, null);
+        assertNotEquals(alias, nextAlias);
+        assertNotEquals(privateKey, keyManager.getPrivateKey(nextAlias));
+
+        // handshakes which chose the alias before the rotation still resolve the matching chain
+        assertEquals(privateKey, keyManager.getPrivateKey(alias));
+        assertArrayEquals(chain, keyManager.getCertificateChain(alias));
+
+        keyManager.rotate();
+        assertNull(keyManager.getPrivateKey(alias));
+        assertNull(keyManager.getCertificateChain(alias));
+    }
+
+    @Test
+    void testExpiringChainIsRotated() {
+        var hostKey = GossipCrypto.readHostKey(GossipCryptoTests.hostKeyFileFromResources());
+        var keyManager = new RotatingHostKeyManager(hostKey, key -> certificate(key, RotatingHostKeyManager.ROTATION_MARGIN / 2));
+
+        assertTrue(keyManager.rotateIfExpiring());
+        assertEquals(2, keyManager.generatedCertificates());
+
+        // without a rotation executor, choosing an alias rotates the chain right away
+        keyManager.chooseEngineServerAlias("EC", null, null);
+        assertEquals(3, keyManager.generatedCertificates());
+
+        var longLived = new RotatingHostKeyManager(hostKey, key -> certificate(key, 2 * RotatingHostKeyManager.ROTATION_MARGIN));
+        assertFalse(longLived.rotateIfExpiring());
+        longLived.chooseEngineServerAlias("EC", null, null);
+        assertEquals(1, longLived.generatedCertificates());
+    }
+
+    @Test
+    void testExpiringChainIsRotatedInBackground() throws InterruptedException {
+        var hostKey = GossipCrypto.readHostKey(GossipCryptoTests.hostKeyFileFromResources());
+        var generationStarted = new CountDownLatch(1);
+        var generationReleased = new CountDownLatch(1);
+        var generations = new AtomicInteger();
+        var keyManager = new RotatingHostKeyManager(hostKey, key -> {
+            if (generations.getAndIncrement() > 0) {
+                generationStarted.countDown();
+                assertDoesNotThrow(() -> generationReleased.await());
+            }
+            return certificate(key, RotatingHostKeyManager.ROTATION_MARGIN / 2);
+        });
+
+        var executor = new DefaultEventExecutor();
+        var rotation = keyManager.scheduleRotation(executor);
+        try {
+            // the expiring, but still valid chain is served while the next chain is generated
+            var alias = keyManager.chooseEngineServerAlias("EC", null, null);
+            assertTrue(generationStarted.await(10, TimeUnit.SECONDS));
+            assertEquals(alias, keyManager.chooseEngineServerAlias("EC", null, null));
+            assertEquals(2, generations.get());
+
+            generationReleased.countDown();
+            executor.submit(() -> {}).sync();
+            assertEquals(2, keyManager.generatedCertificates());
+            assertNotNull(keyManager.getPrivateKey(alias));
+        } finally {
+            generationReleased.countDown();
+            rotation.cancel(false);
+            executor.shutdownGracefully(0, 5, TimeUnit.SECONDS).sync();
+        }
+    }
+}
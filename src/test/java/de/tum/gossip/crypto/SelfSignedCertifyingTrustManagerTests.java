@@ -0,0 +1,106 @@
+package de.tum.gossip.crypto;
+
+import de.tum.gossip.crypto.certificates.HostKeySelfSignedX509Certificates;
+import de.tum.gossip.mocks.MockPeerInfo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the verification and the verification cache of the {@link SelfSignedCertifyingTrustManager}.
+ */
+public class SelfSignedCertifyingTrustManagerTests {
+    private static final Logger logger = LogManager.getLogger(SelfSignedCertifyingTrustManagerTests.class);
+
+    private static final int BENCHMARK_ITERATIONS = 200;
+
+    @Test
+    void testRepeatedVerificationIsCached() {
+        var hostKey = GossipCrypto.readHostKey(GossipCryptoTests.hostKeyFileFromResources());
+        var chain = new HostKeySelfSignedX509Certificates(hostKey).certificates();
+
+        var trustManager = new SelfSignedCertifyingTrustManager(HostKeySelfSignedX509Certificates.class, MockPeerInfo.from(hostKey));
+        assertDoesNotThrow(() -> trustManager.checkServerTrusted(chain, "UNKNOWN"));
+        assertDoesNotThrow(() -> trustManager.checkServerTrusted(chain, "UNKNOWN"));
+        assertEquals(1, trustManager.verificationCacheMisses());
+        assertEquals(1, trustManager.verificationCacheHits());
+
+        // verifications of the other side of a connection are cached separately
+        assertDoesNotThrow(() -> trustManager.checkClientTrusted(chain, "UNKNOWN"));
+        assertEquals(2, trustManager.verificationCacheMisses());
+
+        // a new chain of the same peer is verified again
+        var rotatedChain = new HostKeySelfSignedX509Certificates(hostKey).certificates();
+        assertDoesNotThrow(() -> trustManager.checkServerTrusted(rotatedChain, "UNKNOWN"));
+        assertEquals(3, trustManager.verificationCacheMisses());
+    }
+
+    @Test
+    void testInvalidChainsAreNotCached() {
+        var hostKey = GossipCrypto.readHostKey(GossipCryptoTests.hostKeyFileFromResources());
+        var otherHostKey = HostKey.generate();
+        var chain = new HostKeySelfSignedX509Certificates(hostKey).certificates();
+        var otherChain = new HostKeySelfSignedX509Certificates(otherHostKey).certificates();
+
+        var trustManager = new SelfSignedCertifyingTrustManager(HostKeySelfSignedX509Certificates.class, MockPeerInfo.from(otherHostKey));
+        assertThrows(CertificateException.class, () -> trustManager.checkServerTrusted(chain, "UNKNOWN"));
+        assertThrows(CertificateException.class, () -> trustManager.checkServerTrusted(chain, "UNKNOWN"));
+        assertEquals(2, trustManager.verificationCacheMisses());
+        assertEquals(0, trustManager.verificationCacheHits());
+
+        // the intermediate certificate isn't signed by the root of the other chain
+        var mixedChain = new X509Certificate[] { chain[0], otherChain[1] };
+        assertThrows(CertificateException.class, () -> trustManager.checkServerTrusted(mixedChain, "UNKNOWN"));
+
+        assertDoesNotThrow(() -> trustManager.checkServerTrusted(otherChain, "UNKNOWN"));
+        assertEquals(0, trustManager.verificationCacheHits());
+    }
+
+    /**
+     * Compares repeated verifications of the same chain with a cold cache (a fresh trust manager for every check)
+     * against a warm cache (a single trust manager), as seen by a peer reconnecting to us over and over again.
+     */
+    @Test
+    void benchmarkVerificationCache() throws CertificateException {
+        var hostKey = GossipCrypto.readHostKey(GossipCryptoTests.hostKeyFileFromResources());
+        var peerInfo = MockPeerInfo.from(hostKey);
+        var chain = new HostKeySelfSignedX509Certificates(hostKey).certificates();
+
+        var warm = new SelfSignedCertifyingTrustManager(HostKeySelfSignedX509Certificates.class, peerInfo);
+        for (int round = 0; round < 5; round++) { // the first rounds serve as warmup
+            // the trust managers are created upfront, such that only the verification is measured
+            var cold = new SelfSignedCertifyingTrustManager[BENCHMARK_ITERATIONS];
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                cold[i] = new SelfSignedCertifyingTrustManager(HostKeySelfSignedX509Certificates.class, peerInfo);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                cold[i].checkClientTrusted(chain, "UNKNOWN");
+            }
+            long coldNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                warm.checkClientTrusted(chain, "UNKNOWN");
+            }
+            long warmNanos = System.nanoTime() - start;
+
+            logger.info("[Round {}] {} client chain verifications: cold cache {} us/op, warm cache {} us/op",
+                    round, BENCHMARK_ITERATIONS,
+                    String.format("%.2f", coldNanos / 1000.0 / BENCHMARK_ITERATIONS), String.format("%.2f", warmNanos / 1000.0 / BENCHMARK_ITERATIONS));
+
+            for (var trustManager: cold) {
+                assertEquals(1, trustManager.verificationCacheMisses());
+            }
+        }
+
+        assertEquals(1, warm.verificationCacheMisses());
+        assertEquals(5L * BENCHMARK_ITERATIONS - 1, warm.verificationCacheHits());
+    }
+}
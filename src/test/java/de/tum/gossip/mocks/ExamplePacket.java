@@ -15,6 +15,11 @@ public class ExamplePacket implements Packet<EmptyPacketHandler> {
         byteBuf.writeShort(42);
     }
 
+    @Override
+    public int serializedSize() {
+        return 2;
+    }
+
     @Override
     public void deserialize(ByteBuf byteBuf) {
         assertEquals(42, byteBuf.readShort());
@@ -3,8 +3,13 @@ package de.tum.gossip.mocks;
 import de.tum.gossip.api.APIConnection;
 import de.tum.gossip.api.packets.APIPacketGossipNotification;
 import de.tum.gossip.net.packets.OutboundPacket;
+import de.tum.gossip.net.packets.PreEncodedPacket;
+import de.tum.gossip.p2p.util.DataType;
+import de.tum.gossip.p2p.util.MessageNotificationId;
+import io.netty.buffer.Unpooled;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import org.junit.jupiter.api.Assertions;
 
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -26,10 +31,39 @@ public class MockAPIConnection implements APIConnection {
 
     @Override
     public <Packet extends OutboundPacket> void sendPacket(Packet packet, GenericFutureListener<? extends Future<? super Void>>[] genericFutureListeners) {
+        if (packet instanceof PreEncodedPacket encodedPacket) {
+            notificationQueue.add(decodeNotification(encodedPacket));
+            return;
+        }
+
         if (!(packet instanceof APIPacketGossipNotification apiPacket)) {
             throw new RuntimeException("Encountered unexpected packet: " + packet);
         }
 
         notificationQueue.add(apiPacket);
     }
+
+    private static APIPacketGossipNotification decodeNotification(PreEncodedPacket packet) {
+        try {
+            Assertions.assertEquals(APIPacketGossipNotification.class, packet.packetType());
+
+            // patched notifications carry their notification id in a separate header
+            var header = packet.header();
+            var frame = header == null ? packet.frame() : Unpooled.wrappedBuffer(header, packet.frame().retain());
+            try {
+                frame.skipBytes(4); // size and message type
+
+                var messageId = new MessageNotificationId(frame.readShort());
+                var dataType = new DataType(frame.readUnsignedShort());
+
+                return new APIPacketGossipNotification(messageId, dataType, frame.readRetainedSlice(frame.readableBytes()));
+            } finally {
+                if (header != null) {
+                    frame.release();
+                }
+            }
+        } finally {
+            packet.release();
+        }
+    }
 }
\ No newline at end of file
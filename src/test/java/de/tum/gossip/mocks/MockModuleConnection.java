@@ -1,12 +1,17 @@
 package de.tum.gossip.mocks;
 
 import de.tum.gossip.net.packets.OutboundPacket;
+import de.tum.gossip.net.packets.PreEncodedPacket;
+import de.tum.gossip.net.util.ChannelCloseReason;
 import de.tum.gossip.p2p.GossipModule;
 import de.tum.gossip.p2p.GossipPeerInfo;
+import de.tum.gossip.p2p.packets.GossipPacketKnowledgeAnnouncement;
+import de.tum.gossip.p2p.packets.GossipPacketKnowledgeRequest;
 import de.tum.gossip.p2p.packets.GossipPacketSpreadKnowledge;
 import de.tum.gossip.p2p.protocol.EstablishedSession;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import org.junit.jupiter.api.Assertions;
 
 import java.util.Optional;
@@ -48,26 +53,83 @@ public class MockModuleConnection {
             return true;
         }
 
+        @Override
+        public Future<Void> close(ChannelCloseReason reason) {
+            return ImmediateEventExecutor.INSTANCE.newSucceededFuture(null);
+        }
+
+        @Override
+        public boolean supportsLazyPush() {
+            return lazyPush;
+        }
+
         @Override
         public <P extends OutboundPacket> void sendPacket(P packet, GenericFutureListener<? extends Future<? super Void>>[] genericFutureListeners) {
-            if (!(packet instanceof GossipPacketSpreadKnowledge knowledgePacket)) {
+            var session = this.equals(sessionAToB) ? sessionBtoA : sessionAToB;
+
+            OutboundPacket decodedPacket = packet;
+            if (packet instanceof PreEncodedPacket encodedPacket) {
+                decodedPacket = decode(encodedPacket);
+            }
+
+            if (decodedPacket instanceof GossipPacketKnowledgeAnnouncement announcement) {
+                Assertions.assertDoesNotThrow(() -> target.handleKnowledgeAnnouncement(session, announcement.messageId));
+                return;
+            } else if (decodedPacket instanceof GossipPacketKnowledgeRequest request) {
+                Assertions.assertDoesNotThrow(() -> target.handleKnowledgeRequest(session, request.messageId));
+                return;
+            } else if (!(decodedPacket instanceof GossipPacketSpreadKnowledge)) {
                 throw new RuntimeException("Encountered unexpected packet: " + packet);
             }
 
-            var session = this.equals(sessionAToB) ? sessionBtoA : sessionAToB;
-            Assertions.assertDoesNotThrow(() -> target.handleIncomingKnowledgeSpread(session, knowledgePacket));
+            var knowledgePacket = (GossipPacketSpreadKnowledge) decodedPacket;
+            try {
+                Assertions.assertDoesNotThrow(() -> target.handleIncomingKnowledgeSpread(session, knowledgePacket));
+            } finally {
+                // mirrors the channel pipeline, which releases the packet once it was handled
+                knowledgePacket.release();
+            }
+        }
+    }
+
+    private static OutboundPacket decode(PreEncodedPacket packet) {
+        try {
+            var frame = packet.frame();
+            frame.skipBytes(4); // size and packet id
+
+            if (packet.isOf(GossipPacketKnowledgeAnnouncement.class)) {
+                var announcement = new GossipPacketKnowledgeAnnouncement();
+                announcement.deserialize(frame);
+                return announcement;
+            }
+
+            Assertions.assertEquals(GossipPacketSpreadKnowledge.class, packet.packetType());
+            var knowledgePacket = new GossipPacketSpreadKnowledge();
+            knowledgePacket.deserialize(frame);
+            return knowledgePacket;
+        } finally {
+            packet.release();
         }
     }
 
     private final GossipModule moduleA;
     private final GossipModule moduleB;
+    /**
+     * If true, both sessions behave like they negotiated the lazy push feature.
+     */
+    private final boolean lazyPush;
 
     private final Session sessionAToB;
     private final Session sessionBtoA;
 
     public MockModuleConnection(GossipModule moduleA, GossipModule moduleB) {
+        this(moduleA, moduleB, false);
+    }
+
+    public MockModuleConnection(GossipModule moduleA, GossipModule moduleB, boolean lazyPush) {
         this.moduleA = moduleA;
         this.moduleB = moduleB;
+        this.lazyPush = lazyPush;
         this.sessionAToB = new Session(moduleB);
         this.sessionBtoA = new Session(moduleA);
 
@@ -75,6 +137,13 @@ public class MockModuleConnection {
         Assertions.assertEquals(moduleB.adoptSession(sessionBtoA), Optional.empty());
     }
 
+    /**
+     * Delivers the provided packet to module B, as if module A sent it.
+     */
+    public void sendToB(OutboundPacket packet) {
+        sessionAToB.sendPacket(packet);
+    }
+
     public void teardown() {
         moduleA.handleSessionDisconnect(sessionAToB);
         moduleB.handleSessionDisconnect(sessionBtoA);
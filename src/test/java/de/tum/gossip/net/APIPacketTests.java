@@ -66,13 +66,13 @@ class APIPacketTests {
         var packet = new APIPacketGossipValidation();
         packet.deserialize(msg);
 
-        assertArrayEquals(new byte[] {0x05, 0x39}, packet.messageId.messageId());
+        assertEquals(new MessageNotificationId(0x0539), packet.messageId);
         assertTrue(packet.valid);
     }
 
     @Test
     void encodeNotificationPacketTest() {
-        var packet = new APIPacketGossipNotification(new MessageNotificationId(0x10), new DataType(0x20), HexFormat.ofDelimiter(":").parseHex("31:32:33:34"));
+        var packet = new APIPacketGossipNotification(new MessageNotificationId(0x10), new DataType(0x20), Unpooled.wrappedBuffer(HexFormat.ofDelimiter(":").parseHex("31:32:33:34")));
 
         ByteBuf byteBuf = Unpooled.buffer();
         packet.serialize(byteBuf);
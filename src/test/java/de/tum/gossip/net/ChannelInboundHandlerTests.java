@@ -0,0 +1,330 @@
+package de.tum.gossip.net;
+
+import de.tum.gossip.mocks.ExamplePacket;
+import de.tum.gossip.net.packets.EmptyPacketHandler;
+import de.tum.gossip.net.packets.PreEncodedPacket;
+import de.tum.gossip.net.util.ChannelCloseReason;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the batched write path and the close path of the {@link ChannelInboundHandler}.
+ */
+public class ChannelInboundHandlerTests {
+    private static final ProtocolDescription PROTOCOL = new ProtocolDescription()
+            .registerInboundAndOutbound(2, ExamplePacket::new);
+    private static final int PACKET_COUNT = 100;
+
+    private static class FlushCounter extends ChannelOutboundHandlerAdapter {
+        final AtomicInteger flushes = new AtomicInteger();
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            flushes.incrementAndGet();
+            super.flush(ctx);
+        }
+    }
+
+    private static class EncoderCounter extends ChannelOutboundHandlerAdapter {
+        final AtomicInteger writes = new AtomicInteger();
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            writes.incrementAndGet();
+            super.write(ctx, msg, promise);
+        }
+    }
+
+    private DefaultEventLoopGroup eventLoop;
+    private Channel server;
+    private Channel client;
+    private ChannelInboundHandler handler;
+    private FlushCounter counter;
+    private EncoderCounter encoderCounter;
+    private final CompositeByteBuf received = Unpooled.compositeBuffer();
+
+    @BeforeEach
+    void setup() throws InterruptedException {
+        eventLoop = new DefaultEventLoopGroup(1);
+        counter = new FlushCounter();
+        encoderCounter = new EncoderCounter();
+
+        server = new ServerBootstrap()
+                .group(eventLoop)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<>() {
+                    @Override
+                    protected void initChannel(Channel channel) {
+                        channel.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                                received.addComponent(true, (ByteBuf) msg);
+                            }
+                        });
+                    }
+                })
+                .bind(address()).sync().channel();
+
+        client = connect(PROTOCOL, counter, encoderCounter);
+        handler = client.pipeline().get(ChannelInboundHandler.class);
+        assertNotNull(handler);
+        counter.flushes.set(0);
+    }
+
+    private Channel connect(ProtocolDescription protocol, FlushCounter counter, EncoderCounter encoderCounter) throws InterruptedException {
+        var channel = new Bootstrap()
+                .group(eventLoop)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInitializer<>() {
+                    @Override
+                    protected void initChannel(Channel channel) {
+                        channel.pipeline().addLast(counter);
+                        new ConnectionInitializer(protocol, EmptyPacketHandler::new, null).initChannel(channel);
+                        // sees every message passed to the packet encoder
+                        channel.pipeline().addAfter(ConnectionInitializer.Ids.ENCODER, "encoderCounter", encoderCounter);
+                    }
+                })
+                .connect(address()).sync().channel();
+
+        // wait till the channel activation is fully processed by the event loop and the handler executor
+        var handler = channel.pipeline().get(ChannelInboundHandler.class);
+        channel.eventLoop().submit(() -> {}).sync();
+        channel.pipeline().context(handler).executor().submit(() -> {}).sync();
+        assertTrue(handler.isConnected());
+        return channel;
+    }
+
+    private static LocalAddress address() {
+        return new LocalAddress("channel-inbound-handler-tests");
+    }
+
+    @AfterEach
+    void teardown() {
+        client.close().syncUninterruptibly();
+        server.close().syncUninterruptibly();
+        eventLoop.shutdownGracefully().syncUninterruptibly();
+        received.release();
+    }
+
+    @Test
+    void testBatchedFlushOutsideEventLoop() throws InterruptedException {
+        // block the event loop, so all packets queue up before a single drain happens
+        var blocked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        client.eventLoop().execute(() -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {}
+        });
+        blocked.await();
+
+        var written = new AtomicInteger();
+        for (int i = 0; i < PACKET_COUNT; i++) {
+            handler.sendPacket(new ExamplePacket(), future -> written.incrementAndGet());
+        }
+
+        release.countDown();
+        client.eventLoop().submit(() -> {}).sync();
+
+        assertEquals(PACKET_COUNT, written.get());
+        assertEquals(1, counter.flushes.get());
+    }
+
+    @Test
+    void testBatchedFlushWithHandlerExecutor() throws InterruptedException {
+        var handlerExecutor = new DefaultEventExecutorGroup(1);
+        var protocol = new ProtocolDescription()
+                .registerInboundAndOutbound(2, ExamplePacket::new)
+                .withHandlerExecutor(handlerExecutor);
+        var executorCounter = new FlushCounter();
+        var executorEncoderCounter = new EncoderCounter();
+        var channel = connect(protocol, executorCounter, executorEncoderCounter);
+        var executorHandler = channel.pipeline().get(ChannelInboundHandler.class);
+        executorCounter.flushes.set(0);
+
+        // block both, so all packets are drained by the handler executor at once and queue up on the event loop
+        var blocked = new CountDownLatch(2);
+        var release = new CountDownLatch(1);
+        var releaseExecutor = new CountDownLatch(1);
+        channel.eventLoop().execute(() -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {}
+        });
+        handlerExecutor.next().execute(() -> {
+            blocked.countDown();
+            try {
+                releaseExecutor.await();
+            } catch (InterruptedException ignored) {}
+        });
+        blocked.await();
+
+        var written = new AtomicInteger();
+        for (int i = 0; i < PACKET_COUNT; i++) {
+            executorHandler.sendPacket(new ExamplePacket(), future -> written.incrementAndGet());
+        }
+
+        releaseExecutor.countDown();
+        handlerExecutor.next().submit(() -> {}).sync();
+        int pendingTasks = ((SingleThreadEventLoop) channel.eventLoop()).pendingTasks();
+
+        release.countDown();
+        channel.eventLoop().submit(() -> {}).sync();
+
+        // the whole batch is handed to the event loop of the channel as a single task
+        assertEquals(1, pendingTasks);
+
+        assertEquals(PACKET_COUNT, written.get());
+        assertEquals(PACKET_COUNT, executorEncoderCounter.writes.get());
+        assertEquals(1, executorCounter.flushes.get());
+
+        channel.close().syncUninterruptibly();
+        handlerExecutor.shutdownGracefully().syncUninterruptibly();
+    }
+
+    @Test
+    void testBatchedFlushWithinEventLoop() throws InterruptedException {
+        client.eventLoop().submit(() -> {
+            for (int i = 0; i < PACKET_COUNT; i++) {
+                handler.sendPacket(new ExamplePacket());
+            }
+            // nothing is flushed before the current event loop turn completed
+            assertEquals(0, counter.flushes.get());
+        }).sync();
+
+        client.eventLoop().submit(() -> {}).sync();
+        assertEquals(1, counter.flushes.get());
+    }
+
+    @Test
+    void testSendAndFlush() throws InterruptedException {
+        client.eventLoop().submit(() -> {
+            handler.sendPacket(new ExamplePacket());
+            handler.sendPacketAndFlush(new ExamplePacket());
+            // the explicit flush covers the previously written packet as well
+            assertEquals(1, counter.flushes.get());
+        }).sync();
+
+        client.eventLoop().submit(() -> {}).sync();
+        assertEquals(1, counter.flushes.get());
+    }
+
+    @Test
+    void testPreEncodedPacket() throws InterruptedException {
+        var packet = PreEncodedPacket.encode(PROTOCOL, new ExamplePacket(), UnpooledByteBufAllocator.DEFAULT);
+        var frameLength = packet.frame().readableBytes();
+
+        for (int i = 0; i < 3; i++) {
+            handler.sendPacket(packet.retainedDuplicate());
+        }
+        handler.sendPacket(new ExamplePacket());
+
+        client.eventLoop().submit(() -> {}).sync();
+        server.eventLoop().submit(() -> {}).sync();
+
+        // only the regular packet passed through the packet encoder
+        assertEquals(1, encoderCounter.writes.get());
+        assertEquals(4 * frameLength, received.readableBytes());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(packet.frame(), received.readSlice(frameLength));
+        }
+
+        // the local transport hands the written buffers to the peer, so the duplicates are freed once we release them
+        received.discardReadComponents();
+        assertEquals(1, packet.refCnt());
+
+        // serializing the packet yields the packet contents of the frame, without modifying the frame
+        var contents = Unpooled.buffer();
+        packet.serialize(contents);
+        assertEquals(packet.serializedSize(), contents.readableBytes());
+        assertEquals(packet.frame().slice(PacketEncoder.HEADER_SIZE, packet.serializedSize()), contents);
+        new ExamplePacket().deserialize(contents);
+        assertEquals(frameLength, packet.frame().readableBytes());
+        contents.release();
+
+        packet.release();
+    }
+
+    @Test
+    void testPatchedPreEncodedPacket() throws InterruptedException {
+        var packet = PreEncodedPacket.encode(PROTOCOL, new ExamplePacket(), UnpooledByteBufAllocator.DEFAULT);
+        var frameLength = packet.frame().readableBytes();
+
+        for (int i = 0; i < 3; i++) {
+            var patched = packet.retainedDuplicate(PacketEncoder.HEADER_SIZE, new byte[] {(byte) i});
+            assertNotNull(patched.header());
+            assertEquals(frameLength, patched.header().readableBytes() + patched.frame().readableBytes());
+            handler.sendPacket(patched);
+        }
+
+        client.eventLoop().submit(() -> {}).sync();
+        server.eventLoop().submit(() -> {}).sync();
+
+        // neither the header nor the shared remainder of the frame passed through the packet encoder
+        assertEquals(0, encoderCounter.writes.get());
+        assertEquals(3 * frameLength, received.readableBytes());
+        for (int i = 0; i < 3; i++) {
+            var frame = received.readSlice(frameLength);
+            assertEquals(packet.frame().slice(0, PacketEncoder.HEADER_SIZE), frame.slice(0, PacketEncoder.HEADER_SIZE));
+            assertEquals(i, frame.getByte(PacketEncoder.HEADER_SIZE));
+            assertEquals(packet.frame().getByte(frameLength - 1), frame.getByte(frameLength - 1));
+        }
+
+        received.discardReadComponents();
+        assertEquals(1, packet.refCnt());
+        packet.release();
+    }
+
+    @Test
+    void testNonBlockingClose() throws InterruptedException {
+        // block the event loop, close must return regardless
+        var blocked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        client.eventLoop().execute(() -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {}
+        });
+        blocked.await();
+
+        var closeFuture = handler.close(new ChannelCloseReason.Message("first"));
+        var secondCloseFuture = handler.close(new ChannelCloseReason.Message("second"));
+        assertFalse(closeFuture.isDone());
+        assertSame(closeFuture, secondCloseFuture);
+        assertTrue(handler.isConnected()); // the close routine didn't run yet
+
+        release.countDown();
+        assertTrue(closeFuture.await(5, TimeUnit.SECONDS));
+        assertTrue(closeFuture.isSuccess());
+        assertFalse(handler.isConnected());
+        assertFalse(client.isOpen());
+    }
+}
@@ -0,0 +1,153 @@
+package de.tum.gossip.net;
+
+import de.tum.gossip.net.packets.OutboundPacket;
+import de.tum.gossip.net.packets.PacketSendable;
+import de.tum.gossip.net.util.ChunkReassembler;
+import de.tum.gossip.net.util.ChunkReassembler.InvalidChunkException;
+import de.tum.gossip.net.util.ChunkedSender;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link ChunkedSender} and the {@link ChunkReassembler}.
+ */
+public class ChunkedTransferTests {
+    private record Chunk(int totalLength, int offset, ByteBuf chunk) implements OutboundPacket {
+        @Override
+        public void serialize(ByteBuf byteBuf) {}
+
+        @Override
+        public int serializedSize() {
+            return 0;
+        }
+    }
+
+    /**
+     * Records sent chunks, completing their write once {@link #complete(boolean)} is called.
+     */
+    private static class RecordingSendable implements PacketSendable {
+        final List<Chunk> chunks = new ArrayList<>();
+        final List<Promise<Void>> pending = new ArrayList<>();
+
+        @Override
+        public <P extends OutboundPacket> void sendPacket(P packet, GenericFutureListener<? extends Future<? super Void>>[] genericFutureListeners) {
+            chunks.add((Chunk) packet);
+            Promise<Void> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+            promise.addListeners(genericFutureListeners);
+            pending.add(promise);
+        }
+
+        void complete(boolean success) {
+            var promise = pending.remove(0);
+            if (success) {
+                promise.setSuccess(null);
+            } else {
+                promise.setFailure(new Exception("Write failed"));
+            }
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    void testPipelinedRoundTrip() throws InvalidChunkException {
+        int length = 2 * ChunkedSender.CHUNK_SIZE + 100;
+        byte[] message = randomBytes(length);
+        ByteBuf data = Unpooled.copiedBuffer(message);
+
+        var target = new RecordingSendable();
+        ChunkedSender.send(target, data, Chunk::new);
+        // only the window is handed to the channel upfront
+        assertEquals(ChunkedSender.WINDOW, target.chunks.size());
+
+        target.complete(true);
+        assertEquals(3, target.chunks.size());
+        assertEquals(ChunkedSender.chunkCount(length), target.chunks.size());
+        target.complete(true);
+        target.complete(true);
+        assertEquals(3, target.chunks.size());
+
+        var reassembler = new ChunkReassembler<Integer>();
+        ByteBuf result = null;
+        for (var chunk : target.chunks) {
+            assertNull(result);
+            assertEquals(length, chunk.totalLength());
+            result = reassembler.append(1, chunk.totalLength(), chunk.offset(), chunk.chunk());
+            chunk.chunk().release();
+        }
+
+        assertNotNull(result);
+        assertArrayEquals(message, ByteBufUtil.getBytes(result));
+        assertEquals(0, reassembler.pendingBytes());
+        result.release();
+        assertEquals(0, data.refCnt());
+    }
+
+    @Test
+    void testSendingStopsOnFailure() {
+        ByteBuf data = Unpooled.copiedBuffer(randomBytes(4 * ChunkedSender.CHUNK_SIZE));
+
+        var target = new RecordingSendable();
+        ChunkedSender.send(target, data, Chunk::new);
+        target.complete(false);
+        target.complete(true);
+
+        assertEquals(ChunkedSender.WINDOW, target.chunks.size());
+        target.chunks.forEach(chunk -> chunk.chunk().release());
+        assertEquals(0, data.refCnt());
+    }
+
+    @Test
+    void testInterleavedMessages() throws InvalidChunkException {
+        var reassembler = new ChunkReassembler<Integer>();
+        ByteBuf a = Unpooled.wrappedBuffer(new byte[] { 1, 2 });
+        ByteBuf b = Unpooled.wrappedBuffer(new byte[] { 3, 4 });
+
+        assertNull(reassembler.append(1, 4, 0, a));
+        assertNull(reassembler.append(2, 4, 0, b));
+        assertEquals(8, reassembler.pendingBytes());
+
+        var first = reassembler.append(1, 4, 2, b);
+        assertNotNull(first);
+        assertArrayEquals(new byte[] { 1, 2, 3, 4 }, ByteBufUtil.getBytes(first));
+        first.release();
+
+        var second = reassembler.append(2, 4, 2, a);
+        assertNotNull(second);
+        assertArrayEquals(new byte[] { 3, 4, 1, 2 }, ByteBufUtil.getBytes(second));
+        second.release();
+        assertEquals(0, reassembler.pendingBytes());
+    }
+
+    @Test
+    void testInvalidChunks() throws InvalidChunkException {
+        var reassembler = new ChunkReassembler<Integer>(8, 12);
+        ByteBuf chunk = Unpooled.wrappedBuffer(new byte[4]);
+
+        assertThrows(InvalidChunkException.class, () -> reassembler.append(1, 8, 4, chunk)); // unknown message
+        assertThrows(InvalidChunkException.class, () -> reassembler.append(1, 9, 0, chunk)); // too large
+
+        assertNull(reassembler.append(1, 8, 0, chunk));
+        assertThrows(InvalidChunkException.class, () -> reassembler.append(1, 8, 0, chunk)); // gap
+        assertThrows(InvalidChunkException.class, () -> reassembler.append(2, 8, 0, chunk)); // pending bytes exceeded
+
+        reassembler.release();
+        assertEquals(0, reassembler.pendingBytes());
+    }
+}
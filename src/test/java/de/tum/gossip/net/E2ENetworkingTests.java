@@ -4,14 +4,24 @@ import de.tum.gossip.net.packets.InboundPacketHandler;
 import de.tum.gossip.net.packets.Packet;
 import de.tum.gossip.net.util.ByteBufUtils;
 import de.tum.gossip.net.util.ChannelCloseReason;
+import de.tum.gossip.net.util.NetworkTransport;
 import io.netty.buffer.ByteBuf;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.Promise;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.EnumMap;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * Created by Andi on 27.06.22.
@@ -40,6 +50,11 @@ public class E2ENetworkingTests {
             ByteBufUtils.writeString(byteBuf, message);
         }
 
+        @Override
+        public int serializedSize() {
+            return ByteBufUtils.stringSize(message);
+        }
+
         @Override
         public void accept(HelloPacketHandler handler) {
             handler.handle(this);
@@ -71,6 +86,7 @@ public class E2ENetworkingTests {
             packetHandleCalled++;
 
             serverReceivedMessage = packet.message;
+            serverHandlerThread = Thread.currentThread().getName();
             channel.sendPacket(packet);
         }
     }
@@ -105,20 +121,62 @@ public class E2ENetworkingTests {
         }
     }
 
+    /**
+     * Client handler which keeps on sending packets to the echo server until {@link #BENCHMARK_ROUND_TRIPS}
+     * round trips were completed.
+     */
+    private class EchoBenchmarkClientHandler implements HelloPacketHandler {
+        private final Logger logger = LogManager.getLogger(EchoBenchmarkClientHandler.class);
+        private ChannelInboundHandler channel;
+        private int roundTrips = 0;
+
+        @Override
+        public Logger logger() {
+            return logger;
+        }
+
+        @Override
+        public void onConnect(ChannelInboundHandler channel) {
+            this.channel = channel;
+            channel.sendPacket(new HelloPacket("Hello World!"));
+        }
+
+        @Override
+        public void onDisconnect(ChannelCloseReason reason) {}
+
+        @Override
+        public void handle(HelloPacket packet) {
+            if (++roundTrips >= BENCHMARK_ROUND_TRIPS) {
+                packetReceivePromise.setSuccess(null);
+                return;
+            }
+
+            channel.sendPacket(packet);
+        }
+    }
+
+    private static final Logger logger = LogManager.getLogger(E2ENetworkingTests.class);
+
+    private static final int BENCHMARK_ROUND_TRIPS = 20_000;
+
     private Integer onConnectCalled = 0;
     private Integer onDisconnectCalled = 0;
     private Integer packetHandleCalled = 0;
     private String clientReceivedMessage;
     private String serverReceivedMessage;
+    private String serverHandlerThread;
 
     private Promise<Void> packetReceivePromise;
 
-    @Test
-    public void e2eEchoClientServerTest() throws InterruptedException {
+    @ParameterizedTest
+    @EnumSource(NetworkTransport.class)
+    public void e2eEchoClientServerTest(NetworkTransport transport) throws InterruptedException {
+        assumeTrue(transport.isAvailable(), transport + " transport isn't available on this machine!");
+
         var protocol = new ProtocolDescription()
                 .registerInboundAndOutbound(1, HelloPacket::new);
 
-        var eventLoop = new NioEventLoopGroup(2);
+        var eventLoop = transport.newEventLoopGroup(2, new DefaultThreadFactory("e2e-" + transport));
         var server = protocol.makeServer(2446, eventLoop, EchoServerHandler::new);
         var client = protocol.makeClient("localhost", 2446, eventLoop, EchoClientHandler::new);
 
@@ -148,5 +206,98 @@ public class E2ENetworkingTests {
         assertEquals(2, packetHandleCalled);
         assertEquals(clientReceivedMessage, "Hello World!");
         assertEquals(serverReceivedMessage, "Hello World!");
+
+        eventLoop.shutdownGracefully().sync();
+    }
+
+    /**
+     * A simple benchmark comparing the available {@link NetworkTransport}s using the echo scenario from above.
+     * The client and the echo server exchange {@link #BENCHMARK_ROUND_TRIPS} packets in a ping-pong fashion.
+     * Excluded from the default test run, run it through the {@code benchmark} task.
+     */
+    @Test
+    @Tag("benchmark")
+    public void e2eEchoTransportBenchmark() throws InterruptedException {
+        var results = new EnumMap<NetworkTransport, Long>(NetworkTransport.class);
+        for (var transport : NetworkTransport.values()) {
+            if (!transport.isAvailable()) {
+                logger.info("[{}] Skipped, the transport isn't available on this machine", transport);
+                continue;
+            }
+
+            runEchoBenchmark(transport); // warmup
+            results.put(transport, runEchoBenchmark(transport));
+        }
+
+        long baseline = results.get(NetworkTransport.NIO);
+        results.forEach((transport, elapsed) -> logger.info("[{}] {} echo round trips took {} ms ({} us per round trip, {}x of {})",
+                transport, BENCHMARK_ROUND_TRIPS, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                String.format("%.2f", elapsed / 1000.0 / BENCHMARK_ROUND_TRIPS),
+                String.format("%.2f", (double) elapsed / baseline), NetworkTransport.NIO));
+    }
+
+    /**
+     * @return The time in nanoseconds it took to complete {@link #BENCHMARK_ROUND_TRIPS} round trips, including connecting.
+     */
+    private long runEchoBenchmark(NetworkTransport transport) throws InterruptedException {
+        var protocol = new ProtocolDescription()
+                .registerInboundAndOutbound(1, HelloPacket::new);
+
+        var eventLoop = transport.newEventLoopGroup(2, new DefaultThreadFactory("e2e-benchmark-" + transport));
+        var server = protocol.makeServer(2447, eventLoop, EchoServerHandler::new);
+        var client = protocol.makeClient("localhost", 2447, eventLoop, EchoBenchmarkClientHandler::new);
+
+        packetReceivePromise = eventLoop.next().newPromise();
+
+        server.bind().sync();
+
+        long start = System.nanoTime();
+        client.connect().sync();
+
+        assertTrue(packetReceivePromise.await(60, TimeUnit.SECONDS), "Benchmark didn't complete in time!");
+        long elapsed = System.nanoTime() - start;
+
+        client.disconnect().sync();
+        server.stop().sync();
+
+        eventLoop.shutdownGracefully().sync();
+        return elapsed;
+    }
+
+    /**
+     * Runs the echo scenario with separate boss and worker groups and a dedicated handler executor,
+     * verifying that packets are dispatched off the I/O threads.
+     */
+    @ParameterizedTest
+    @EnumSource(NetworkTransport.class)
+    public void e2eEchoWithHandlerExecutorTest(NetworkTransport transport) throws InterruptedException {
+        assumeTrue(transport.isAvailable(), transport + " transport isn't available on this machine!");
+
+        var handlerExecutor = new DefaultEventExecutorGroup(2, new DefaultThreadFactory("e2e-handler-" + transport));
+        var protocol = new ProtocolDescription()
+                .registerInboundAndOutbound(1, HelloPacket::new)
+                .withHandlerExecutor(handlerExecutor);
+
+        var bossGroup = transport.newEventLoopGroup(1, new DefaultThreadFactory("e2e-boss-" + transport));
+        var workerGroup = transport.newEventLoopGroup(2, new DefaultThreadFactory("e2e-worker-" + transport));
+        var server = protocol.makeServer(null, 2448, bossGroup, workerGroup, EchoServerHandler::new);
+        var client = protocol.makeClient("localhost", 2448, workerGroup, EchoBenchmarkClientHandler::new);
+
+        packetReceivePromise = handlerExecutor.next().newPromise();
+
+        server.bind().sync();
+        client.connect().sync();
+
+        assertTrue(packetReceivePromise.await(60, TimeUnit.SECONDS), "Echo didn't complete in time!");
+
+        client.disconnect().sync();
+        server.stop().sync();
+
+        assertEquals("Hello World!", serverReceivedMessage);
+        assertTrue(serverHandlerThread.startsWith("e2e-handler-"), "Packet was dispatched on " + serverHandlerThread);
+
+        bossGroup.shutdownGracefully().sync();
+        workerGroup.shutdownGracefully().sync();
+        handlerExecutor.shutdownGracefully().sync();
     }
-}
\ No newline at end of file
+}
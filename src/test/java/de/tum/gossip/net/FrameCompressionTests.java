@@ -0,0 +1,143 @@
+package de.tum.gossip.net;
+
+import de.tum.gossip.net.packets.EmptyPacketHandler;
+import de.tum.gossip.net.packets.Packet;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link FrameCompressionCodec} and the inflation of compressed frames by the {@link PacketDecoder}.
+ */
+public class FrameCompressionTests {
+    private static final int PACKET_ID = 16;
+
+    /**
+     * Holds the raw packet contents.
+     */
+    private static class RawPacket implements Packet<EmptyPacketHandler> {
+        byte[] contents;
+
+        @Override
+        public void deserialize(ByteBuf byteBuf) {
+            contents = ByteBufUtil.getBytes(byteBuf);
+            byteBuf.skipBytes(contents.length);
+        }
+
+        @Override
+        public void serialize(ByteBuf byteBuf) {
+            byteBuf.writeBytes(contents);
+        }
+
+        @Override
+        public int serializedSize() {
+            return contents.length;
+        }
+
+        @Override
+        public void accept(EmptyPacketHandler handler) {
+            handler.handle(this);
+        }
+    }
+
+    private static final ProtocolDescription PROTOCOL = new ProtocolDescription()
+            .registerInboundAndOutbound(PACKET_ID, RawPacket::new)
+            .withFrameCompression(true);
+
+    private static ByteBuf frame(byte[] content) {
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeShort(PacketEncoder.HEADER_SIZE + content.length);
+        frame.writeShort(PACKET_ID);
+        frame.writeBytes(content);
+        return frame;
+    }
+
+    private static EmbeddedChannel receiver(ProtocolDescription protocol) {
+        var channel = new EmbeddedChannel(new PacketDecoder());
+        channel.attr(ChannelInboundHandler.PROTOCOL_DESCRIPTION_KEY).set(protocol);
+        return channel;
+    }
+
+    private static byte[] roundTrip(byte[] content, boolean expectCompressed) {
+        var sender = new EmbeddedChannel(new FrameCompressionCodec());
+        var receiver = receiver(PROTOCOL);
+        sender.pipeline().get(FrameCompressionCodec.class).enableCompression();
+
+        assertTrue(sender.writeOutbound(frame(content)));
+        ByteBuf wire = sender.readOutbound();
+        assertEquals(expectCompressed, (wire.getUnsignedShort(2) & FrameCompressionCodec.COMPRESSED_FLAG) != 0);
+        assertEquals(wire.readableBytes(), wire.getUnsignedShort(0));
+
+        assertTrue(receiver.writeInbound(wire));
+        RawPacket result = receiver.readInbound();
+
+        assertFalse(sender.finish());
+        assertFalse(receiver.finish());
+        return result.contents;
+    }
+
+    @Test
+    void testCompressibleFrame() {
+        var content = "Hello World! ".repeat(100).getBytes();
+        assertArrayEquals(content, roundTrip(content, true));
+    }
+
+    @Test
+    void testSmallAndIncompressibleFrames() {
+        var small = "Hello World!".getBytes();
+        assertArrayEquals(small, roundTrip(small, false));
+
+        byte[] random = new byte[4096];
+        new Random(42).nextBytes(random);
+        assertArrayEquals(random, roundTrip(random, false));
+    }
+
+    @Test
+    void testUncompressedOutboundByDefault() {
+        var channel = new EmbeddedChannel(new FrameCompressionCodec());
+        var frame = frame(new byte[1024]);
+
+        assertTrue(channel.writeOutbound(frame.retain()));
+        ByteBuf wire = channel.readOutbound();
+        assertEquals(frame, wire);
+
+        frame.release();
+        wire.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testMalformedCompressedFrame() {
+        var channel = receiver(PROTOCOL);
+        ByteBuf wire = Unpooled.buffer();
+        wire.writeShort(10);
+        wire.writeShort(PACKET_ID | FrameCompressionCodec.COMPRESSED_FLAG);
+        wire.writeShort(1024);
+        wire.writeInt(0xDEADBEEF);
+
+        assertThrows(DecoderException.class, () -> channel.writeInbound(wire));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testCompressedFrameWithoutCompressionSupport() {
+        var sender = new EmbeddedChannel(new FrameCompressionCodec());
+        sender.pipeline().get(FrameCompressionCodec.class).enableCompression();
+        assertTrue(sender.writeOutbound(frame("Hello World! ".repeat(100).getBytes())));
+        ByteBuf wire = sender.readOutbound();
+
+        // the flagged packet id is unknown to protocols without frame compression
+        var channel = receiver(new ProtocolDescription().registerInboundAndOutbound(PACKET_ID, RawPacket::new));
+        assertThrows(DecoderException.class, () -> channel.writeInbound(wire));
+
+        assertFalse(sender.finish());
+        assertFalse(channel.finish());
+    }
+}
@@ -0,0 +1,185 @@
+package de.tum.gossip.net;
+
+import de.tum.gossip.mocks.ExamplePacket;
+import de.tum.gossip.net.packets.EmptyPacketHandler;
+import de.tum.gossip.net.util.OutboundQueueConfiguration;
+import de.tum.gossip.net.util.OutboundQueueConfiguration.OverflowPolicy;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the bounded outbound queue of the {@link ChannelInboundHandler}.
+ * <p>
+ * The high water mark is set below the size of two frames (including the per-entry overhead
+ * of the netty outbound buffer), so the channel becomes unwritable after writing two packets without flushing.
+ * Flushes are held back by a {@link FlushGate}, simulating a slow remote peer.
+ */
+public class OutboundBackpressureTests {
+    private static final int LOW_WATER_MARK = 1;
+    private static final int HIGH_WATER_MARK = 150;
+
+    private static class DroppablePacket extends ExamplePacket {
+        @Override
+        public boolean isDroppable() {
+            return true;
+        }
+    }
+
+    private static final ProtocolDescription PROTOCOL = new ProtocolDescription()
+            .registerInboundAndOutbound(2, ExamplePacket::new)
+            .registerOutbound(3, DroppablePacket::new)
+            .freeze();
+
+    private static class FlushGate extends ChannelOutboundHandlerAdapter {
+        boolean open = false;
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            if (open) {
+                super.flush(ctx);
+            }
+        }
+    }
+
+    private final Map<Integer, Boolean> results = new ConcurrentHashMap<>();
+    private final FlushGate gate = new FlushGate();
+    private ChannelInboundHandler handler;
+
+    private EmbeddedChannel channel(OutboundQueueConfiguration configuration) {
+        var channel = newChannel(configuration);
+        channel.pipeline().fireChannelActive();
+        assertTrue(handler.isConnected());
+        return channel;
+    }
+
+    private EmbeddedChannel newChannel(OutboundQueueConfiguration configuration) {
+        var channel = new EmbeddedChannel(gate);
+        new ConnectionInitializer(PROTOCOL.clone().withOutboundQueue(configuration), EmptyPacketHandler::new, null).initChannel(channel);
+
+        handler = channel.pipeline().get(ChannelInboundHandler.class);
+        assertNotNull(handler);
+        return channel;
+    }
+
+    private static void openGate(EmbeddedChannel channel, FlushGate gate) {
+        gate.open = true;
+        channel.flush();
+        channel.runPendingTasks();
+    }
+
+    private void send(int index) {
+        handler.sendPacket(new DroppablePacket(), future -> results.put(index, future.isSuccess()));
+    }
+
+    private static int drainOutbound(EmbeddedChannel channel) {
+        int count = 0;
+        ByteBuf buf;
+        while ((buf = channel.readOutbound()) != null) {
+            buf.release();
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    void testDropOldest() {
+        var configuration = new OutboundQueueConfiguration(LOW_WATER_MARK, HIGH_WATER_MARK, 2, OverflowPolicy.DROP_OLDEST);
+        var channel = channel(configuration);
+
+        send(1);
+        send(2);
+        assertFalse(channel.isWritable());
+
+        send(3);
+        send(4);
+        assertEquals(2, handler.outboundQueueDepth());
+        send(5); // drops 3
+
+        assertEquals(Boolean.FALSE, results.get(3));
+        assertEquals(2, handler.outboundQueueDepth());
+        assertEquals(2, configuration.metrics().queueDepth());
+        assertEquals(1, configuration.metrics().droppedOldestCount());
+
+        // control packets are never held back
+        handler.sendPacket(new ExamplePacket(), future -> results.put(0, future.isSuccess()));
+
+        // flushing makes the channel writable again, which drains the queue
+        openGate(channel, gate);
+        assertTrue(channel.isWritable());
+        assertEquals(0, handler.outboundQueueDepth());
+        assertEquals(0, configuration.metrics().queueDepth());
+        assertEquals(5, drainOutbound(channel));
+        assertEquals(Map.of(0, true, 1, true, 2, true, 3, false, 4, true, 5, true), results);
+
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testDropNewest() {
+        var configuration = new OutboundQueueConfiguration(LOW_WATER_MARK, HIGH_WATER_MARK, 1, OverflowPolicy.DROP_NEWEST);
+        var channel = channel(configuration);
+
+        send(1);
+        send(2);
+        send(3);
+        send(4); // dropped
+
+        assertEquals(1, handler.outboundQueueDepth());
+        assertEquals(1, configuration.metrics().droppedNewestCount());
+        assertEquals(Boolean.FALSE, results.get(4));
+
+        openGate(channel, gate);
+        assertEquals(3, drainOutbound(channel));
+        assertEquals(Map.of(1, true, 2, true, 3, true, 4, false), results);
+
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testDisconnectOnOverflow() {
+        var configuration = new OutboundQueueConfiguration(LOW_WATER_MARK, HIGH_WATER_MARK, 1, OverflowPolicy.DISCONNECT);
+        var channel = channel(configuration);
+
+        send(1);
+        send(2);
+        send(3);
+        assertTrue(channel.isOpen());
+        send(4); // overflows
+
+        assertFalse(channel.isOpen());
+        assertFalse(handler.isConnected());
+        assertEquals(1, configuration.metrics().overflowDisconnectCount());
+        assertEquals(0, configuration.metrics().queueDepth());
+        assertEquals(Boolean.FALSE, results.get(3));
+        assertEquals(Boolean.FALSE, results.get(4));
+
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testPacketsQueuedBeforeActivation() {
+        var configuration = new OutboundQueueConfiguration(LOW_WATER_MARK, HIGH_WATER_MARK, 1, OverflowPolicy.DROP_OLDEST);
+        var channel = newChannel(configuration);
+
+        send(1); // dropped
+        handler.sendPacket(new ExamplePacket());
+        send(2);
+        assertEquals(1, configuration.metrics().droppedOldestCount());
+
+        channel.pipeline().fireChannelActive();
+        openGate(channel, gate);
+
+        assertEquals(2, drainOutbound(channel));
+        assertEquals(Map.of(1, false, 2, true), results);
+
+        assertFalse(channel.finish());
+    }
+}
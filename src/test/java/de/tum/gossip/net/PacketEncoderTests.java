@@ -0,0 +1,55 @@
+package de.tum.gossip.net;
+
+import de.tum.gossip.mocks.ExamplePacket;
+import de.tum.gossip.p2p.packets.GossipPacketSpreadKnowledge;
+import de.tum.gossip.p2p.util.DataType;
+import de.tum.gossip.p2p.util.GossipMessageId;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.EncoderException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the frames written by the {@link PacketEncoder}.
+ */
+public class PacketEncoderTests {
+    private static final ProtocolDescription PROTOCOL = new ProtocolDescription()
+            .registerInboundAndOutbound(2, ExamplePacket::new);
+
+    private static EmbeddedChannel channel() {
+        var channel = new EmbeddedChannel(new PacketEncoder());
+        channel.attr(ChannelInboundHandler.PROTOCOL_DESCRIPTION_KEY).set(PROTOCOL);
+        return channel;
+    }
+
+    @Test
+    void testEncodeFrame() {
+        var channel = channel();
+        assertTrue(channel.writeOutbound(new ExamplePacket()));
+
+        ByteBuf frame = channel.readOutbound();
+        assertEquals(PacketEncoder.HEADER_SIZE + 2, frame.readableBytes());
+        assertEquals(frame.readableBytes(), frame.readUnsignedShort());
+        assertEquals(2, frame.readUnsignedShort());
+        assertEquals(42, frame.readShort());
+        frame.release();
+
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testOversizedPacketIsReleased() {
+        var channel = channel();
+        var data = Unpooled.buffer(PacketEncoder.MAX_FRAME_LENGTH).writeZero(PacketEncoder.MAX_FRAME_LENGTH);
+        var packet = new GossipPacketSpreadKnowledge(new GossipMessageId(1), 1, new DataType(101), data);
+
+        // the packet doesn't fit into a frame, therefore no buffer is allocated for it
+        assertThrows(EncoderException.class, () -> channel.writeOutbound(packet));
+        assertEquals(0, packet.refCnt());
+
+        assertFalse(channel.finish());
+    }
+}
@@ -0,0 +1,151 @@
+package de.tum.gossip.net;
+
+import de.tum.gossip.api.GossipAPILayer;
+import de.tum.gossip.api.GossipAPIPacketHandler;
+import de.tum.gossip.api.packets.APIPacketGossipAnnounce;
+import de.tum.gossip.api.packets.APIPacketGossipAnnounceChunk;
+import de.tum.gossip.api.packets.APIPacketGossipNotify;
+import de.tum.gossip.api.packets.APIPacketGossipValidation;
+import de.tum.gossip.net.packets.RecyclablePacket;
+import de.tum.gossip.net.util.ChannelCloseReason;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests the pooling of {@link RecyclablePacket}s.
+ */
+public class PacketRecyclingTests {
+    private static final int FRAME_COUNT = 64;
+    private static final int ALLOCATION_ITERATIONS = 100_000;
+
+    // prevents the JIT from eliminating the allocations of the unpooled path
+    @SuppressWarnings("unused")
+    private static volatile Object sink;
+
+    private static class RecordingHandler implements GossipAPIPacketHandler {
+        private final Logger logger = LogManager.getLogger(RecordingHandler.class);
+        final List<Object> dispatched = new ArrayList<>();
+        final List<ByteBuf> payloads = new ArrayList<>();
+
+        @Override
+        public Logger logger() {
+            return logger;
+        }
+
+        @Override
+        public void onConnect(ChannelInboundHandler channel) {}
+
+        @Override
+        public void onDisconnect(ChannelCloseReason reason) {}
+
+        @Override
+        public void handle(APIPacketGossipAnnounce packet) {
+            dispatched.add(packet);
+            payloads.add(packet.data);
+        }
+
+        @Override
+        public void handle(APIPacketGossipAnnounceChunk packet) {
+            dispatched.add(packet);
+        }
+
+        @Override
+        public void handle(APIPacketGossipNotify packet) {
+            dispatched.add(packet);
+        }
+
+        @Override
+        public void handle(APIPacketGossipValidation packet) {
+            assertNotNull(packet.messageId);
+            dispatched.add(packet);
+        }
+    }
+
+    private static ByteBuf frame(String hexString) {
+        return Unpooled.wrappedBuffer(HexFormat.ofDelimiter(":").parseHex(hexString));
+    }
+
+    @Test
+    void testInboundPacketsAreRecycled() {
+        var handler = new RecordingHandler();
+        var channel = new EmbeddedChannel();
+        new ConnectionInitializer(GossipAPILayer.PROTOCOL, () -> handler, null).initChannel(channel);
+        channel.pipeline().fireChannelActive();
+
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            channel.writeInbound(frame("00:08:01:f7:05:39:00:01")); // validation
+            channel.writeInbound(frame("00:0c:01:f4:30:00:00:01:31:32:33:34")); // announce
+        }
+
+        assertEquals(2 * FRAME_COUNT, handler.dispatched.size());
+
+        // instances are returned to the pool after dispatch and reused for the following frames.
+        // Note: netty's Recycler only pools every n-th (default 8) newly created instance.
+        var distinctInstances = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinctInstances.addAll(handler.dispatched);
+        assertTrue(distinctInstances.size() <= 2 * 16, "Found " + distinctInstances.size() + " distinct packet instances!");
+
+        // recycled instances were reset and their payload was released
+        for (var packet: handler.dispatched) {
+            if (packet instanceof APIPacketGossipAnnounce announce) {
+                assertNull(announce.data);
+            } else {
+                assertNull(((APIPacketGossipValidation) packet).messageId);
+            }
+        }
+        for (var payload: handler.payloads) {
+            assertEquals(0, payload.refCnt());
+        }
+
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testPooledAllocationRate() {
+        var threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean, "Thread allocation counters aren't supported!");
+        var allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled());
+
+        long threadId = Thread.currentThread().getId();
+
+        // warmup, fills the thread local pool and lets the JIT compile both paths
+        for (int i = 0; i < ALLOCATION_ITERATIONS; i++) {
+            ((RecyclablePacket) GossipAPILayer.PROTOCOL.newPacketInstanceFromInbound(503)).recycle();
+            sink = new APIPacketGossipValidation();
+        }
+
+        long start = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ALLOCATION_ITERATIONS; i++) {
+            var packet = GossipAPILayer.PROTOCOL.newPacketInstanceFromInbound(503);
+            sink = packet;
+            ((RecyclablePacket) packet).recycle();
+        }
+        long pooled = allocationBean.getThreadAllocatedBytes(threadId) - start;
+
+        start = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ALLOCATION_ITERATIONS; i++) {
+            sink = new APIPacketGossipValidation();
+        }
+        long unpooled = allocationBean.getThreadAllocatedBytes(threadId) - start;
+
+        // the pooled path must not allocate a packet per frame, while the unpooled path allocates at least an object header per frame
+        assertTrue(pooled < ALLOCATION_ITERATIONS, "Pooled path allocated " + pooled + " bytes!");
+        assertTrue(unpooled >= 16L * ALLOCATION_ITERATIONS, "Unpooled path allocated only " + unpooled + " bytes!");
+        assertTrue(pooled * 16 < unpooled, "Pooled path allocated " + pooled + " bytes, unpooled path " + unpooled + " bytes!");
+    }
+}
@@ -1,9 +1,16 @@
 package de.tum.gossip.net;
 
 import de.tum.gossip.mocks.ExamplePacket;
+import de.tum.gossip.net.packets.InboundPacket;
+import de.tum.gossip.net.packets.InboundPacketHandler;
+import de.tum.gossip.net.packets.OutboundPacket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashMap;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -11,6 +18,10 @@ import static org.junit.jupiter.api.Assertions.*;
  * Created by Andi on 04.07.22.
  */
 public class ProtocolDescriptionTests {
+    private static final Logger logger = LogManager.getLogger(ProtocolDescriptionTests.class);
+
+    private static final int BENCHMARK_ITERATIONS = 5_000_000;
+
     @Test
     void testInboundPacketRegistration() {
         var description = new ProtocolDescription()
@@ -18,12 +29,15 @@ public class ProtocolDescriptionTests {
 
         assertThrows(IllegalStateException.class, () -> description.registerInbound(2, ExamplePacket::new));
 
-        assertEquals(Optional.empty(), description.packetIdFromPacket(new ExamplePacket()));
+        assertEquals(ProtocolDescription.UNKNOWN_PACKET_ID, description.packetIdFromPacket(new ExamplePacket()));
 
         var packet = description.newPacketInstanceFromInbound(2);
-        assertTrue(packet.isPresent());
+        assertNotNull(packet);
+        assertEquals(ExamplePacket.class, packet.getClass());
 
-        assertEquals(ExamplePacket.class, packet.get().getClass());
+        assertNull(description.newPacketInstanceFromInbound(1));
+        assertNull(description.newPacketInstanceFromInbound(3));
+        assertNull(description.newPacketInstanceFromInbound(0xFFFF));
     }
 
     @Test
@@ -32,7 +46,74 @@ public class ProtocolDescriptionTests {
                 .registerOutbound(2, ExamplePacket::new);
 
         assertThrows(IllegalStateException.class, () -> description.registerOutbound(2, ExamplePacket::new));
+        assertThrows(IllegalArgumentException.class, () -> description.registerOutbound(0x10000, ExamplePacket::new));
+
+        assertEquals(2, description.packetIdFromPacket(new ExamplePacket()));
+        assertNull(description.newPacketInstanceFromInbound(2));
+    }
+
+    @Test
+    void testFrozenProtocol() {
+        var description = new ProtocolDescription()
+                .registerInboundAndOutbound(2, ExamplePacket::new);
+        var clone = description.clone();
+
+        assertFalse(description.isFrozen());
+        description.freeze();
+        assertTrue(description.isFrozen());
+
+        assertThrows(IllegalStateException.class, () -> description.registerInbound(3, ExamplePacket::new));
+
+        // clones taken before freezing are still mutable
+        assertFalse(clone.isFrozen());
+        assertDoesNotThrow(() -> clone.registerInbound(3, ExamplePacket::new));
+
+        // clones of a frozen protocol share the packet table
+        var frozenClone = description.clone();
+        assertTrue(frozenClone.isFrozen());
+        assertEquals(2, frozenClone.packetIdFromPacket(new ExamplePacket()));
+    }
+
+    /**
+     * Compares the frozen packet table against the previous lookup path
+     * (boxed {@link HashMap} lookups wrapped into an {@link Optional}).
+     */
+    @Test
+    void benchmarkPacketLookup() {
+        var description = new ProtocolDescription()
+                .registerInboundAndOutbound(16, ExamplePacket::new)
+                .freeze();
+
+        HashMap<Integer, Supplier<? extends InboundPacket<? extends InboundPacketHandler>>> inboundPacketSuppliers = new HashMap<>();
+        HashMap<Class<? extends OutboundPacket>, Integer> outboundPacketIds = new HashMap<>();
+        inboundPacketSuppliers.put(16, ExamplePacket::new);
+        outboundPacketIds.put(ExamplePacket.class, 16);
+
+        var packet = new ExamplePacket();
+
+        long sink = 0;
+        for (int round = 0; round < 8; round++) { // the first rounds serve as warmup
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                var instance = Optional.ofNullable(inboundPacketSuppliers.get(16)).map(Supplier::get);
+                var packetId = Optional.ofNullable(outboundPacketIds.get(packet.getClass()));
+                sink += instance.isPresent() ? packetId.orElse(0) : 0;
+            }
+            long legacy = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                var instance = description.newPacketInstanceFromInbound(16);
+                var packetId = description.packetIdFromPacket(packet);
+                sink += instance != null ? packetId : 0;
+            }
+            long frozen = System.nanoTime() - start;
+
+            logger.info("[Round {}] {} inbound+outbound packet lookups: HashMap/Optional {} ns/op, packet table {} ns/op",
+                    round, BENCHMARK_ITERATIONS,
+                    String.format("%.2f", (double) legacy / BENCHMARK_ITERATIONS), String.format("%.2f", (double) frozen / BENCHMARK_ITERATIONS));
+        }
 
-        assertEquals(Optional.of(2), description.packetIdFromPacket(new ExamplePacket()));
+        assertEquals(16L * BENCHMARK_ITERATIONS * 16, sink);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package de.tum.gossip.p2p;
+
+import de.tum.gossip.p2p.util.DataType;
+import de.tum.gossip.p2p.util.GossipMessage;
+import de.tum.gossip.p2p.util.GossipMessageId;
+import de.tum.gossip.p2p.util.SlotEpochs;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the slot based transmission tracking and the data ownership of the {@link GossipMessage}.
+ */
+public class GossipMessageTests {
+    @Test
+    void testTransmissionSlots() {
+        var message = new GossipMessage(new GossipMessageId(1), new SlotEpochs(130), 3, 0, 5, new DataType(101), Unpooled.buffer());
+
+        // the slot we received the message from is marked already
+        assertFalse(message.markTransmitted(3));
+
+        for (int slot : new int[] { 0, 63, 64, 127, 129 }) {
+            assertTrue(message.markTransmitted(slot), "slot " + slot);
+            assertFalse(message.markTransmitted(slot), "slot " + slot);
+        }
+
+        // slots sharing the lower bits in another word are tracked separately
+        assertTrue(message.markTransmitted(128));
+        assertTrue(message.markTransmitted(65));
+
+        message.clearTransmission(64);
+        assertTrue(message.markTransmitted(64));
+        assertFalse(message.markTransmitted(0));
+
+        assertThrows(IllegalArgumentException.class, () -> new GossipMessage(new GossipMessageId(2), new SlotEpochs(4), 4, 0, 5, new DataType(101), Unpooled.buffer()));
+
+        var local = new GossipMessage(new GossipMessageId(3), new SlotEpochs(4), 5, new DataType(101), Unpooled.buffer());
+        assertTrue(local.markTransmitted(0));
+        assertThrows(IllegalStateException.class, () -> local.markTransmitted(64));
+    }
+
+    @Test
+    void testFreedSlots() {
+        var slotEpochs = new SlotEpochs(70);
+        var message = new GossipMessage(new GossipMessageId(1), slotEpochs, 1, slotEpochs.current(), 5, new DataType(101), Unpooled.buffer());
+        assertTrue(message.markTransmitted(2));
+        assertTrue(message.markTransmitted(66));
+
+        // freeing slots doesn't touch the message, the stale bits are dropped on the next access
+        slotEpochs.free(2);
+        slotEpochs.free(66);
+        assertTrue(message.isTransmitted(1));
+        assertFalse(message.isTransmitted(2));
+        assertFalse(message.isTransmitted(66));
+        assertTrue(message.markTransmitted(2));
+
+        // the slot we received the message from was freed before the message was created
+        long epoch = slotEpochs.current();
+        slotEpochs.free(3);
+        var late = new GossipMessage(new GossipMessageId(2), slotEpochs, 3, epoch, 5, new DataType(101), Unpooled.buffer());
+        assertTrue(late.markTransmitted(3));
+        assertFalse(late.markTransmitted(3));
+    }
+
+    @Test
+    void testDataOwnership() {
+        var data = PooledByteBufAllocator.DEFAULT.directBuffer(4).writeInt(42);
+        var message = new GossipMessage(new GossipMessageId(1), new SlotEpochs(4), 5, new DataType(101), data);
+        assertEquals(4, message.dataLength());
+
+        var reference = message.retainedData();
+        assertNotNull(reference);
+        assertEquals(2, data.refCnt());
+
+        message.release();
+        assertNull(message.retainedData());
+        assertThrows(IllegalStateException.class, message::release);
+        assertNull(message.retainedData());
+        // the message doesn't touch the buffer anymore, even if it is recycled for another allocation
+        assertEquals(4, message.dataLength());
+        assertEquals(4, message.weight() - GossipMessage.METADATA_WEIGHT);
+
+        // the outstanding reference keeps the data alive
+        assertEquals(42, reference.getInt(0));
+        assertTrue(reference.release());
+    }
+}
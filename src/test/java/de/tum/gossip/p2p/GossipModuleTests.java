@@ -1,6 +1,7 @@
 package de.tum.gossip.p2p;
 
 import de.tum.gossip.crypto.HostKey;
+import de.tum.gossip.crypto.PeerIdentity;
 import de.tum.gossip.mocks.MockConfiguration;
 import de.tum.gossip.mocks.MockPeerInfo;
 import de.tum.gossip.p2p.storage.PeerIdentityStorage;
@@ -11,8 +12,12 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -56,4 +61,77 @@ public class GossipModuleTests {
 
         eventLoop.shutdownGracefully().syncUninterruptibly();
     }
-}
\ No newline at end of file
+
+    @Test
+    void reconnectResumesTlsSession() throws IOException, InterruptedException {
+        var hostKey1 = HostKey.generate();
+        var hostKey2 = HostKey.generate();
+
+        var configuration1 = MockConfiguration.generate(hostKey1, hostKeys);
+        var configuration2 = MockConfiguration.generate(hostKey2, hostKeys);
+
+        PeerIdentityStorage.unsafeStoreKey(identityStorage, hostKey1.identity, new StoredIdentity(configuration1.p2p_address(), configuration1.p2p_port(), hostKey1.publicKey));
+        PeerIdentityStorage.unsafeStoreKey(identityStorage, hostKey2.identity, new StoredIdentity(configuration2.p2p_address(), configuration2.p2p_port(), hostKey2.publicKey));
+
+        var eventLoop = new NioEventLoopGroup();
+        var module1 = new GossipModule(configuration1, eventLoop, new PeerIdentityStorage(identityStorage));
+        var module2 = new GossipModule(configuration2, eventLoop, new PeerIdentityStorage(identityStorage));
+
+        module1.run().syncUninterruptibly();
+        module2.run().syncUninterruptibly();
+
+        var client = module1.newClientContext(MockPeerInfo.from(hostKey2), configuration2.p2p_address(), configuration2.p2p_port());
+
+        client.connect().syncUninterruptibly();
+        assertDoesNotThrow(() -> client.handshakeFuture().sync());
+        assertEquals(1, module1.tlsSessionTracker().fullHandshakeCount());
+        assertEquals(0, module1.tlsSessionTracker().resumedHandshakeCount());
+
+        client.disconnect().syncUninterruptibly();
+        // wait for the server to release the session, otherwise the reconnect is rejected as duplicate
+        Thread.sleep(500);
+
+        client.connect().syncUninterruptibly();
+        assertDoesNotThrow(() -> client.handshakeFuture().sync());
+        assertEquals(1, module1.tlsSessionTracker().resumedHandshakeCount());
+        assertEquals(1, module2.tlsSessionTracker().resumedHandshakeCount());
+        assertEquals(0.5, module1.tlsSessionTracker().resumptionHitRate());
+
+        module1.shutdown().syncUninterruptibly();
+        module2.shutdown().syncUninterruptibly();
+
+        eventLoop.shutdownGracefully().syncUninterruptibly();
+    }
+
+    @Test
+    void startupSharesCertificateAcrossPeers(@TempDir File storage) throws IOException, GeneralSecurityException, InterruptedException {
+        final int peerCount = 64;
+
+        // small keys, we only need valid identities for the storage
+        var generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        for (int i = 0; i < peerCount; i++) {
+            var publicKey = (RSAPublicKey) generator.generateKeyPair().getPublic();
+            PeerIdentityStorage.unsafeStoreKey(storage, new PeerIdentity(publicKey), new StoredIdentity("127.0.0.1", 1, publicKey));
+        }
+
+        var hostKey = HostKey.generate();
+        var configuration = MockConfiguration.generate(hostKey, hostKeys);
+
+        var eventLoop = new NioEventLoopGroup();
+        var module = new GossipModule(configuration, eventLoop, new PeerIdentityStorage(storage));
+
+        module.run().syncUninterruptibly();
+        // client contexts are created once the server is bound
+        for (int i = 0; i < 100 && module.clients().size() < peerCount; i++) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(peerCount, module.clients().size());
+        // a single certificate chain is shared by the server and all clients
+        assertEquals(1, module.keyManager().generatedCertificates());
+
+        module.shutdown().syncUninterruptibly();
+        eventLoop.shutdownGracefully().syncUninterruptibly();
+    }
+}
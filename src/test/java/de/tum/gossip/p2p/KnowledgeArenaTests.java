@@ -0,0 +1,39 @@
+package de.tum.gossip.p2p;
+
+import de.tum.gossip.p2p.util.KnowledgeArena;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the payload copies of the {@link KnowledgeArena}.
+ */
+public class KnowledgeArenaTests {
+    @Test
+    void testPayloadIsCopiedOffHeap() {
+        var arena = new KnowledgeArena(1);
+        assertEquals(0, arena.usedBytes());
+
+        // the payload is a small slice of a large inbound frame
+        var frame = Unpooled.buffer(64 * 1024).writeZero(64 * 1024);
+        var payload = frame.slice(100, 10).setBytes(0, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 });
+
+        var copy = arena.copyOf(payload);
+        assertTrue(copy.isDirect());
+        assertEquals(10, copy.capacity());
+        assertEquals(0, payload.readerIndex()); // the reader index of the source isn't modified
+        assertArrayEquals(ByteBufUtil.getBytes(payload), ByteBufUtil.getBytes(copy));
+        assertTrue(arena.usedBytes() > 0);
+
+        // the copy doesn't pin the frame
+        assertTrue(frame.release());
+        assertEquals(1, copy.getByte(0));
+        assertTrue(copy.release());
+
+        var empty = arena.copyOf(Unpooled.EMPTY_BUFFER);
+        assertEquals(0, empty.readableBytes());
+        empty.release();
+    }
+}
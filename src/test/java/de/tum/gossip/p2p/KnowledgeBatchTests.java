@@ -0,0 +1,108 @@
+package de.tum.gossip.p2p;
+
+import de.tum.gossip.p2p.packets.GossipHandshakeComplete;
+import de.tum.gossip.p2p.packets.GossipPacketHandshakeHello;
+import de.tum.gossip.p2p.packets.GossipPacketHandshakeHello.Feature;
+import de.tum.gossip.p2p.packets.GossipPacketSpreadKnowledgeBatch;
+import de.tum.gossip.p2p.util.DataType;
+import de.tum.gossip.p2p.util.GossipMessageId;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the encoding of the {@link GossipPacketSpreadKnowledgeBatch} and the negotiation of the batching feature.
+ */
+public class KnowledgeBatchTests {
+    private static final DataType TYPE = new DataType(101);
+
+    private static GossipMessageId messageId(int value) {
+        return new GossipMessageId(value);
+    }
+
+    @Test
+    void testBatchRoundTrip() {
+        ByteBuf entries = Unpooled.buffer();
+        var data1 = Unpooled.copiedBuffer("Hello", StandardCharsets.UTF_8);
+        var data2 = Unpooled.copiedBuffer("World!", StandardCharsets.UTF_8);
+        GossipPacketSpreadKnowledgeBatch.writeEntry(entries, messageId(1), 10, TYPE, data1);
+        GossipPacketSpreadKnowledgeBatch.writeEntry(entries, messageId(2), 11, TYPE, data2);
+        assertEquals(GossipPacketSpreadKnowledgeBatch.entrySize(data1) + GossipPacketSpreadKnowledgeBatch.entrySize(data2), entries.readableBytes());
+
+        var packet = new GossipPacketSpreadKnowledgeBatch(2, entries);
+        ByteBuf frame = Unpooled.buffer();
+        packet.serialize(frame);
+        assertEquals(packet.serializedSize(), frame.readableBytes());
+        packet.release();
+
+        var decoded = new GossipPacketSpreadKnowledgeBatch();
+        decoded.deserialize(frame);
+        frame.release();
+
+        var unpacked = decoded.unpack();
+        assertEquals(2, unpacked.size());
+        assertEquals(messageId(1), unpacked.get(0).messageId);
+        assertEquals(10, unpacked.get(0).ttl);
+        assertEquals(TYPE, unpacked.get(0).dataType);
+        assertArrayEquals(ByteBufUtil.getBytes(data1), ByteBufUtil.getBytes(unpacked.get(0).data));
+        assertEquals(messageId(2), unpacked.get(1).messageId);
+        assertEquals(11, unpacked.get(1).ttl);
+        assertArrayEquals(ByteBufUtil.getBytes(data2), ByteBufUtil.getBytes(unpacked.get(1).data));
+
+        decoded.release();
+        assertEquals(0, decoded.entries.refCnt());
+    }
+
+    @Test
+    void testMalformedBatch() {
+        ByteBuf entries = Unpooled.buffer();
+        GossipPacketSpreadKnowledgeBatch.writeEntry(entries, messageId(1), 10, TYPE, Unpooled.wrappedBuffer(new byte[4]));
+
+        ByteBuf frame = Unpooled.buffer();
+        new GossipPacketSpreadKnowledgeBatch(2, entries).serialize(frame); // claims two entries
+        assertThrows(IllegalArgumentException.class, () -> new GossipPacketSpreadKnowledgeBatch().deserialize(frame));
+
+        frame.release();
+        entries.release();
+    }
+
+    @Test
+    void testFeatureNegotiation() {
+        ByteBuf buf = Unpooled.buffer();
+        new GossipPacketHandshakeHello().serialize(buf);
+
+        var hello = new GossipPacketHandshakeHello();
+        hello.deserialize(buf);
+        assertEquals(EnumSet.allOf(Feature.class), Feature.negotiate(hello.features));
+
+        // peers not knowing about features send zero flags
+        buf.clear().writeBytes(new byte[] { 1, 0, 0, 0 });
+        hello.deserialize(buf);
+        assertTrue(Feature.negotiate(hello.features).isEmpty());
+
+        // unknown flags are ignored
+        buf.clear().writeBytes(new byte[] { 1, (byte) 0x80, 0, 0 });
+        hello.deserialize(buf);
+        assertTrue(hello.features.isEmpty());
+
+        // the complete packet stays empty without negotiated features
+        buf.clear();
+        new GossipHandshakeComplete().serialize(buf);
+        assertEquals(0, buf.readableBytes());
+        var complete = new GossipHandshakeComplete(EnumSet.of(Feature.BATCHED_KNOWLEDGE));
+        complete.deserialize(buf);
+        assertTrue(complete.features.isEmpty());
+
+        new GossipHandshakeComplete(EnumSet.of(Feature.BATCHED_KNOWLEDGE)).serialize(buf);
+        complete.deserialize(buf);
+        assertEquals(EnumSet.of(Feature.BATCHED_KNOWLEDGE), complete.features);
+
+        buf.release();
+    }
+}
@@ -0,0 +1,115 @@
+package de.tum.gossip.p2p;
+
+import de.tum.gossip.mocks.MockAPIConnection;
+import de.tum.gossip.p2p.util.GossipMessageId;
+import de.tum.gossip.p2p.util.MessageNotificationId;
+import de.tum.gossip.p2p.util.NotificationIdSpace;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests allocation, release and exhaustion of the {@link NotificationIdSpace}.
+ */
+public class NotificationIdSpaceTests {
+    @Test
+    void testExhaustionAndRelease() {
+        var space = new NotificationIdSpace(new MockAPIConnection(), allocation -> fail("Unexpected expiry of " + allocation));
+
+        var ids = new HashSet<MessageNotificationId>();
+        NotificationIdSpace.Allocation first = null;
+        for (int i = 0; i < MessageNotificationId.CAPACITY; i++) {
+            var allocation = space.allocate(new GossipMessageId(i));
+            assertNotNull(allocation);
+            assertTrue(ids.add(allocation.notificationId()));
+            if (first == null) {
+                first = allocation;
+            }
+        }
+        assertEquals(MessageNotificationId.CAPACITY, space.size());
+
+        // exhaustion is reported explicitly
+        assertNull(space.allocate(new GossipMessageId(-1)));
+        assertEquals(1, space.exhaustedCount());
+
+        // a validation releases the id and translates it back to the message
+        assertEquals(first.messageId(), space.release(first.notificationId()));
+        assertNull(space.release(first.notificationId()));
+
+        var reused = space.allocate(new GossipMessageId(-1));
+        assertNotNull(reused);
+        assertEquals(first.notificationId(), reused.notificationId());
+
+        // releasing a stale allocation doesn't release the id of the newer allocation
+        first.release();
+        assertEquals(new GossipMessageId(-1), space.release(reused.notificationId()));
+    }
+
+    @Test
+    void testExpiredIdsAreReclaimed() {
+        var time = new AtomicLong();
+        var expired = new ArrayList<NotificationIdSpace.Allocation>();
+        var space = new NotificationIdSpace(new MockAPIConnection(), time::get, expired::add);
+
+        NotificationIdSpace.Allocation first = null;
+        for (int i = 0; i < MessageNotificationId.CAPACITY; i++) {
+            var allocation = space.allocate(new GossipMessageId(i));
+            assertNotNull(allocation);
+            if (first == null) {
+                first = allocation;
+            }
+        }
+        assertNull(space.allocate(new GossipMessageId(-1)));
+        assertTrue(expired.isEmpty());
+
+        // the allocation path never scans for expired ids
+        time.addAndGet(NotificationIdSpace.VALIDATION_TIMEOUT_NANOS + 1);
+        assertNull(space.allocate(new GossipMessageId(-1)));
+        assertTrue(expired.isEmpty());
+
+        // expired ids are handed to the expiry handler by the sweep, which settles their messages
+        assertEquals(0, space.expire());
+        assertEquals(MessageNotificationId.CAPACITY, expired.size());
+        assertEquals(0, space.size());
+
+        // the ids are quarantined, a late validation doesn't translate to any message
+        assertNull(space.release(first.notificationId()));
+        time.addAndGet(NotificationIdSpace.QUARANTINE_NANOS / 2);
+        assertEquals(0, space.expire());
+        assertNull(space.allocate(new GossipMessageId(-1)));
+
+        time.addAndGet(NotificationIdSpace.QUARANTINE_NANOS / 2 + 1);
+        assertEquals(MessageNotificationId.CAPACITY, space.expire());
+        var reused = space.allocate(new GossipMessageId(-1));
+        assertNotNull(reused);
+        assertEquals(1, space.size());
+        assertEquals(MessageNotificationId.CAPACITY, expired.size());
+
+        // releasing the expired allocation doesn't release the id of the newer allocation
+        expired.forEach(NotificationIdSpace.Allocation::release);
+        assertEquals(new GossipMessageId(-1), space.release(reused.notificationId()));
+    }
+
+    @Test
+    void testTimeoutWithoutExhaustion() {
+        var time = new AtomicLong();
+        var expired = new ArrayList<NotificationIdSpace.Allocation>();
+        var space = new NotificationIdSpace(new MockAPIConnection(), time::get, expired::add);
+
+        var allocation = space.allocate(new GossipMessageId(1));
+        assertNotNull(allocation);
+        assertEquals(0, space.expire());
+        assertTrue(expired.isEmpty());
+
+        // the timeout applies regardless of how many ids are in use
+        time.addAndGet(NotificationIdSpace.VALIDATION_TIMEOUT_NANOS + 1);
+        space.expire();
+        assertEquals(List.of(allocation), expired);
+        assertEquals(0, space.size());
+    }
+}
@@ -0,0 +1,84 @@
+package de.tum.gossip.p2p;
+
+import de.tum.gossip.p2p.util.RateLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTests {
+    @Test
+    void testBurstAndRefill() {
+        // start at a negative time, as System.nanoTime() might
+        var time = new AtomicLong(-TimeUnit.HOURS.toNanos(1));
+        var limiter = new RateLimiter(new RateLimiter.Configuration(10, 100), time::get);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire(), "Acquire " + i + " of the burst was rejected");
+        }
+        assertFalse(limiter.tryAcquire());
+
+        // one token is refilled every 100ms
+        time.addAndGet(TimeUnit.MILLISECONDS.toNanos(99));
+        assertFalse(limiter.tryAcquire());
+        time.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        // an idle bucket refills up to its capacity, not beyond
+        time.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void testMinuteLimit() {
+        var time = new AtomicLong();
+        var limiter = new RateLimiter(new RateLimiter.Configuration(10, 20), time::get);
+
+        int admitted = 0;
+        for (int second = 0; second < 10; second++) {
+            for (int i = 0; i < 10; i++) {
+                if (limiter.tryAcquire()) {
+                    admitted++;
+                }
+            }
+            time.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        }
+        // the full minute bucket, plus one token refilled every 3 seconds
+        assertEquals(23, admitted);
+
+        // rejections of the minute bucket don't consume tokens of the second bucket
+        time.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+    }
+
+    @Test
+    void testConcurrentAcquires() throws InterruptedException {
+        var limiter = new RateLimiter(new RateLimiter.Configuration(1000, 1000), () -> 0);
+        var admitted = new AtomicLong();
+
+        var threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    if (limiter.tryAcquire()) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1000, admitted.get());
+    }
+}
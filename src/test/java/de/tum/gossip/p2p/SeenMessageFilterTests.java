@@ -0,0 +1,58 @@
+package de.tum.gossip.p2p;
+
+import de.tum.gossip.p2p.util.GossipMessageId;
+import de.tum.gossip.p2p.util.SeenMessageFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the rotation and the false positive rate of the {@link SeenMessageFilter}.
+ */
+public class SeenMessageFilterTests {
+    @Test
+    void testFalsePositiveRate() {
+        int capacity = 10_000;
+        var filter = new SeenMessageFilter(capacity, 1e-3, Long.MAX_VALUE, System::nanoTime);
+
+        for (long id = 0; id < capacity; id++) {
+            filter.add(new GossipMessageId(id));
+        }
+        for (long id = 0; id < capacity; id++) {
+            assertTrue(filter.mightContain(new GossipMessageId(id)));
+        }
+
+        int falsePositives = 0;
+        for (long id = capacity; id < 11 * capacity; id++) {
+            if (filter.mightContain(new GossipMessageId(id))) {
+                falsePositives++;
+            }
+        }
+        // the expected rate is 1e-3 (100 ids), leave room for variance
+        assertTrue(falsePositives < 200, "False positives: " + falsePositives);
+    }
+
+    @Test
+    void testGenerationsRotate() {
+        var time = new AtomicLong();
+        var filter = new SeenMessageFilter(100, 1e-6, 1000, time::get);
+
+        var first = new GossipMessageId(1);
+        filter.add(first);
+
+        // the window elapsed, the id moves to the previous generation
+        time.addAndGet(1000);
+        filter.add(new GossipMessageId(2));
+        assertTrue(filter.mightContain(first));
+
+        // the capacity is reached, the generation of the first id is dropped
+        for (long id = 3; id < 103; id++) {
+            filter.add(new GossipMessageId(id));
+        }
+        filter.add(new GossipMessageId(103));
+        assertFalse(filter.mightContain(first));
+        assertTrue(filter.mightContain(new GossipMessageId(103)));
+    }
+}
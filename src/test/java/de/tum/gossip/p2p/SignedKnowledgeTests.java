@@ -0,0 +1,152 @@
+package de.tum.gossip.p2p;
+
+import com.google.common.base.Charsets;
+import de.tum.gossip.crypto.GossipCrypto;
+import de.tum.gossip.crypto.GossipCryptoTests;
+import de.tum.gossip.crypto.HostKey;
+import de.tum.gossip.crypto.PeerIdentity;
+import de.tum.gossip.crypto.SignatureWorkerPool;
+import de.tum.gossip.p2p.util.DataType;
+import de.tum.gossip.p2p.util.GossipMessageId;
+import de.tum.gossip.p2p.util.SignedKnowledge;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link SignedKnowledge} envelope and the {@link SignatureWorkerPool}.
+ */
+public class SignedKnowledgeTests {
+    private static final DataType TYPE = new DataType(101);
+    private static final byte[] DATA = "Hello World".getBytes(Charsets.UTF_8);
+
+    private static GossipMessageId messageId(int value) {
+        return new GossipMessageId((long) value << 56);
+    }
+
+    @Test
+    void testSignedEnvelopeRoundTrip() {
+        var hostKey = GossipCrypto.readHostKey(GossipCryptoTests.hostKeyFileFromResources());
+        var messageId = messageId(1);
+
+        ByteBuf envelope = SignedKnowledge.sign(hostKey, messageId, TYPE, Unpooled.wrappedBuffer(DATA));
+        try {
+            var knowledge = assertDoesNotThrow(() -> SignedKnowledge.parse(envelope));
+            assertEquals(hostKey.identity, knowledge.originator);
+            assertArrayEquals(DATA, ByteBufUtil.getBytes(knowledge.data));
+            assertDoesNotThrow(() -> knowledge.verify(messageId, TYPE, keys(hostKey)));
+
+            // the signature covers message id and data type
+            assertThrows(SignedKnowledge.InvalidSignatureException.class, () -> knowledge.verify(messageId(2), TYPE, keys(hostKey)));
+            assertThrows(SignedKnowledge.InvalidSignatureException.class, () -> knowledge.verify(messageId, new DataType(102), keys(hostKey)));
+
+            // knowledge of originators we don't know can't be verified
+            assertThrows(SignedKnowledge.UnknownOriginatorException.class, () -> knowledge.verify(messageId, TYPE, keys()));
+        } finally {
+            envelope.release();
+        }
+    }
+
+    @Test
+    void testTamperedEnvelopeIsRejected() {
+        var hostKey = GossipCrypto.readHostKey(GossipCryptoTests.hostKeyFileFromResources());
+        var messageId = messageId(1);
+
+        ByteBuf envelope = SignedKnowledge.sign(hostKey, messageId, TYPE, Unpooled.wrappedBuffer(DATA));
+        ByteBuf tampered = Unpooled.copiedBuffer(envelope);
+        envelope.release();
+
+        tampered.setByte(tampered.writerIndex() - 1, tampered.getByte(tampered.writerIndex() - 1) ^ 0x01);
+        var knowledge = assertDoesNotThrow(() -> SignedKnowledge.parse(tampered));
+        assertThrows(SignedKnowledge.InvalidSignatureException.class, () -> knowledge.verify(messageId, TYPE, keys(hostKey)));
+
+        // a forwarding peer can't replace the originator, as the signature doesn't match the key of the claimed one
+        var otherKey = HostKey.generate();
+        ByteBuf forged = Unpooled.copiedBuffer(tampered);
+        forged.setBytes(0, otherKey.identity.rawBytes());
+        tampered.release();
+
+        var forgedKnowledge = assertDoesNotThrow(() -> SignedKnowledge.parse(forged));
+        assertThrows(SignedKnowledge.InvalidSignatureException.class, () -> forgedKnowledge.verify(messageId, TYPE, keys(hostKey, otherKey)));
+        forged.release();
+
+        assertThrows(SignedKnowledge.InvalidSignatureException.class, () -> SignedKnowledge.parse(Unpooled.wrappedBuffer(new byte[] { 0x01, 0x00, 0x00 })));
+    }
+
+    @Test
+    void testResignedEnvelopeIsRejected() {
+        var originator = GossipCrypto.readHostKey(GossipCryptoTests.hostKeyFileFromResources());
+        var relay = HostKey.generate();
+        var messageId = messageId(1);
+        byte[] tamperedData = "Hello Relay".getBytes(Charsets.UTF_8);
+
+        // the relay signs tampered data with its own key, but keeps the originator
+        ByteBuf resigned = SignedKnowledge.sign(relay, messageId, TYPE, Unpooled.wrappedBuffer(tamperedData));
+        resigned.setBytes(0, originator.identity.rawBytes());
+        try {
+            var knowledge = assertDoesNotThrow(() -> SignedKnowledge.parse(resigned));
+            assertEquals(originator.identity, knowledge.originator);
+            assertThrows(SignedKnowledge.InvalidSignatureException.class, () -> knowledge.verify(messageId, TYPE, keys(originator)));
+            assertThrows(SignedKnowledge.InvalidSignatureException.class, () -> knowledge.verify(messageId, TYPE, keys(originator, relay)));
+        } finally {
+            resigned.release();
+        }
+
+        // the relay signs tampered data as itself, it isn't a known originator
+        ByteBuf relayed = SignedKnowledge.sign(relay, messageId, TYPE, Unpooled.wrappedBuffer(tamperedData));
+        try {
+            var knowledge = assertDoesNotThrow(() -> SignedKnowledge.parse(relayed));
+            assertEquals(relay.identity, knowledge.originator);
+            assertThrows(SignedKnowledge.UnknownOriginatorException.class, () -> knowledge.verify(messageId, TYPE, keys(originator)));
+        } finally {
+            relayed.release();
+        }
+    }
+
+    /**
+     * @return A lookup of the public keys of the provided host keys.
+     */
+    private static Function<PeerIdentity, RSAPublicKey> keys(HostKey... known) {
+        var keys = new HashMap<PeerIdentity, RSAPublicKey>();
+        for (HostKey hostKey: known) {
+            keys.put(hostKey.identity, hostKey.publicKey);
+        }
+        return keys::get;
+    }
+
+    @Test
+    void testWorkerPoolCompletesOperations() {
+        var pool = new SignatureWorkerPool(2);
+
+        var futures = new ArrayList<io.netty.util.concurrent.Future<Integer>>();
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            futures.add(pool.submit(ImmediateEventExecutor.INSTANCE, () -> value * 2));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i * 2, futures.get(i).syncUninterruptibly().getNow());
+        }
+        assertEquals(100, pool.operationCount());
+        assertTrue(pool.batchCount() <= 100);
+
+        var failing = pool.submit(ImmediateEventExecutor.INSTANCE, () -> {
+            throw new IllegalStateException();
+        });
+        assertInstanceOf(IllegalStateException.class, failing.awaitUninterruptibly().cause());
+
+        pool.shutdown();
+        var rejected = pool.submit(ImmediateEventExecutor.INSTANCE, () -> 1);
+        assertInstanceOf(RejectedExecutionException.class, rejected.cause());
+    }
+}
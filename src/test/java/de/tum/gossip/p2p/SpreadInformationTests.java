@@ -3,12 +3,22 @@ package de.tum.gossip.p2p;
 import com.google.common.base.Charsets;
 import de.tum.gossip.ConfigurationFile;
 import de.tum.gossip.crypto.GossipCryptoTests;
+import de.tum.gossip.crypto.HostKey;
 import de.tum.gossip.mocks.MockAPIConnection;
 import de.tum.gossip.mocks.MockModuleConnection;
+import de.tum.gossip.net.util.OutboundQueueConfiguration;
+import de.tum.gossip.p2p.packets.GossipPacketSpreadKnowledge;
 import de.tum.gossip.p2p.util.DataType;
+import de.tum.gossip.p2p.util.GossipMessageId;
+import de.tum.gossip.p2p.util.SignedKnowledge;
+import de.tum.gossip.p2p.util.SpreadingConfiguration;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.nio.NioEventLoopGroup;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -17,6 +27,34 @@ import static org.junit.jupiter.api.Assertions.*;
 public class SpreadInformationTests {
     private static final ConfigurationFile MOCK_CONFIGURATION = new ConfigurationFile(GossipCryptoTests.hostKeyFileFromResources().getAbsolutePath(), 40, 20, "127.0.0.1", 8080, "127.0.0.1", 8081);
 
+    private static final ConfigurationFile SIGNED_CONFIGURATION = configuration(true, SpreadingConfiguration.defaults());
+    /**
+     * Announces all knowledge, every payload is requested.
+     */
+    private static final ConfigurationFile LAZY_PUSH_CONFIGURATION = configuration(
+            false,
+            new SpreadingConfiguration(SpreadingConfiguration.Strategy.LAZY_PUSH, 0, 10)
+    );
+
+    private static ConfigurationFile configuration(boolean signedKnowledge, SpreadingConfiguration spreading) {
+        return new ConfigurationFile(
+                MOCK_CONFIGURATION.hostkey(), 40, 20, "127.0.0.1", 8080, "127.0.0.1", 8081,
+                OutboundQueueConfiguration.defaults().lowWaterMark(),
+                OutboundQueueConfiguration.defaults().highWaterMark(),
+                OutboundQueueConfiguration.DEFAULT_CAPACITY,
+                OutboundQueueConfiguration.defaults().overflowPolicy(),
+                signedKnowledge,
+                0,
+                ConfigurationFile.DEFAULT_CONNECT_RATE_LIMIT.perSecond(),
+                ConfigurationFile.DEFAULT_CONNECT_RATE_LIMIT.perMinute(),
+                ConfigurationFile.DEFAULT_KNOWLEDGE_RATE_LIMIT.perSecond(),
+                ConfigurationFile.DEFAULT_KNOWLEDGE_RATE_LIMIT.perMinute(),
+                spreading.strategy(),
+                spreading.fanout(),
+                spreading.fetchTimeoutMillis()
+        );
+    }
+
     private static final DataType TYPE_1 = new DataType(101);
     private static final DataType TYPE_2 = new DataType(102);
 
@@ -45,9 +83,11 @@ public class SpreadInformationTests {
         // VALIDATE
         // in this step we would check e.g. signatures e.t.c to validate the data!
         assertEquals(packet.dataType, TYPE_1);
-        assertArrayEquals(packet.data, DATA_1);
+        assertArrayEquals(DATA_1, ByteBufUtil.getBytes(packet.data));
 
-        assertDoesNotThrow(() -> module.receiveMessageValidation(packet.messageId, true));
+        assertDoesNotThrow(() -> module.receiveMessageValidation(connection1, packet.messageId, true));
+        // the notification id was released with its validation
+        assertThrowsExactly(GossipException.class, () -> module.receiveMessageValidation(connection1, packet.messageId, true));
 
         // CLEANUP
         module.handleDisconnectedAPIClient(connection1);
@@ -75,8 +115,8 @@ public class SpreadInformationTests {
         var packet = connection2.notificationQueue.poll(); // maybe make this blocking?
         assertNotNull(packet);
         assertEquals(packet.dataType, TYPE_1);
-        assertEquals(packet.data, DATA_1);
-        assertDoesNotThrow(() -> moduleB.receiveMessageValidation(packet.messageId, true));
+        assertArrayEquals(DATA_1, ByteBufUtil.getBytes(packet.data));
+        assertDoesNotThrow(() -> moduleB.receiveMessageValidation(connection2, packet.messageId, true));
 
         // ----
         assertTrue(connection1.notificationQueue.isEmpty());
@@ -86,4 +126,98 @@ public class SpreadInformationTests {
         moduleA.handleDisconnectedAPIClient(connection1);
         moduleB.handleDisconnectedAPIClient(connection2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSignedNetworkSpread() throws InterruptedException {
+        var eventLoop = new NioEventLoopGroup();
+        var moduleA = new GossipModule(SIGNED_CONFIGURATION, eventLoop);
+        var moduleB = new GossipModule(SIGNED_CONFIGURATION, eventLoop);
+
+        var connection1 = new MockAPIConnection();
+        var connection2 = new MockAPIConnection();
+        var moduleConnection = new MockModuleConnection(moduleA, moduleB);
+
+        moduleA.registerNotification(connection1, TYPE_1);
+        moduleB.registerNotification(connection2, TYPE_1);
+
+        // signing and verification run on the signature pool, therefore the notification arrives asynchronously
+        assertDoesNotThrow(() -> moduleA.spreadInformation(connection1, 64, TYPE_1, DATA_1));
+
+        var packet = connection2.notificationQueue.poll(5, TimeUnit.SECONDS);
+        assertNotNull(packet);
+        assertEquals(packet.dataType, TYPE_1);
+        // local modules receive the plain data, without the signature envelope
+        assertArrayEquals(DATA_1, ByteBufUtil.getBytes(packet.data));
+        assertDoesNotThrow(() -> moduleB.receiveMessageValidation(connection2, packet.messageId, true));
+
+        assertNotNull(moduleA.signaturePool());
+        assertEquals(1, moduleA.signaturePool().operationCount());
+        assertNotNull(moduleB.signaturePool());
+        assertEquals(1, moduleB.signaturePool().operationCount());
+        assertTrue(connection1.notificationQueue.isEmpty());
+
+        moduleConnection.teardown();
+        moduleA.handleDisconnectedAPIClient(connection1);
+        moduleB.handleDisconnectedAPIClient(connection2);
+    }
+
+    @Test
+    void testSignedNetworkRejectsResignedKnowledge() throws InterruptedException {
+        var eventLoop = new NioEventLoopGroup();
+        var moduleA = new GossipModule(SIGNED_CONFIGURATION, eventLoop);
+        var moduleB = new GossipModule(SIGNED_CONFIGURATION, eventLoop);
+
+        var connection2 = new MockAPIConnection();
+        var moduleConnection = new MockModuleConnection(moduleA, moduleB);
+        moduleB.registerNotification(connection2, TYPE_1);
+
+        // module A relays knowledge it claims to originate from a known peer, but signs tampered data with another key
+        var relayKey = HostKey.generate();
+        var resigned = SignedKnowledge.sign(relayKey, new GossipMessageId(1), TYPE_1, Unpooled.wrappedBuffer(DATA_1));
+        resigned.setBytes(0, moduleA.hostKey.identity.rawBytes());
+        moduleConnection.sendToB(new GossipPacketSpreadKnowledge(new GossipMessageId(1), 64, TYPE_1, resigned));
+
+        // module A signs the tampered data as an originator module B doesn't know
+        var relayed = SignedKnowledge.sign(relayKey, new GossipMessageId(2), TYPE_1, Unpooled.wrappedBuffer(DATA_1));
+        moduleConnection.sendToB(new GossipPacketSpreadKnowledge(new GossipMessageId(2), 64, TYPE_1, relayed));
+
+        assertNull(connection2.notificationQueue.poll(1, TimeUnit.SECONDS));
+        assertNotNull(moduleB.signaturePool());
+        assertEquals(2, moduleB.signaturePool().operationCount());
+
+        moduleConnection.teardown();
+        moduleB.handleDisconnectedAPIClient(connection2);
+    }
+
+    @Test
+    void testLazyPushNetworkSpread() throws InterruptedException {
+        var eventLoop = new NioEventLoopGroup();
+        var moduleA = new GossipModule(LAZY_PUSH_CONFIGURATION, eventLoop);
+        var moduleB = new GossipModule(LAZY_PUSH_CONFIGURATION, eventLoop);
+
+        var connection1 = new MockAPIConnection();
+        var connection2 = new MockAPIConnection();
+        var moduleConnection = new MockModuleConnection(moduleA, moduleB, true);
+
+        moduleA.registerNotification(connection1, TYPE_1);
+        moduleB.registerNotification(connection2, TYPE_1);
+
+        // moduleA only announces the message, moduleB requests it once the fetch timeout elapsed
+        assertDoesNotThrow(() -> moduleA.spreadInformation(connection1, 64, TYPE_1, DATA_1));
+
+        var packet = connection2.notificationQueue.poll(5, TimeUnit.SECONDS);
+        assertNotNull(packet);
+        assertEquals(packet.dataType, TYPE_1);
+        assertArrayEquals(DATA_1, ByteBufUtil.getBytes(packet.data));
+        assertEquals(1, moduleB.knowledgeRequests());
+
+        // moduleA announced the message, therefore moduleB doesn't announce it back
+        assertDoesNotThrow(() -> moduleB.receiveMessageValidation(connection2, packet.messageId, true));
+        assertEquals(0, moduleA.knowledgeRequests());
+        assertTrue(connection1.notificationQueue.isEmpty());
+
+        moduleConnection.teardown();
+        moduleA.handleDisconnectedAPIClient(connection1);
+        moduleB.handleDisconnectedAPIClient(connection2);
+    }
+}